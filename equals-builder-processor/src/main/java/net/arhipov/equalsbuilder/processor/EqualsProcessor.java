@@ -0,0 +1,282 @@
+package net.arhipov.equalsbuilder.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates {@code equals}/{@code hashCode} helper classes for types annotated with {@link GenerateEquals}.
+ */
+public class EqualsProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "Equality";
+
+    private enum Kind {
+        PRIMITIVE,
+        FLOATING,
+        BOOLEAN,
+        ENUM,
+        LIST,
+        MAP,
+        OBJECT
+    }
+
+    private static final class Property {
+        private final String accessor;
+        private final TypeMirror type;
+        private final Kind kind;
+
+        Property(String accessor, TypeMirror type, Kind kind) {
+            this.accessor = accessor;
+            this.type = type;
+            this.kind = kind;
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(GenerateEquals.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateEquals.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateEquals can only be applied to classes");
+                continue;
+            }
+
+            TypeElement type = (TypeElement) element;
+            List<Property> properties = resolve(type, type.getAnnotation(GenerateEquals.class).value());
+            if (properties != null) {
+                generate(type, properties);
+            }
+        }
+        return true;
+    }
+
+    private List<Property> resolve(TypeElement type, String[] names) {
+        List<Property> properties = new ArrayList<>(names.length);
+        boolean valid = true;
+        for (String name : names) {
+            Property property = resolve(type, name);
+            if (property == null) {
+                error(type, "Property '" + name + "' of " + type.getQualifiedName()
+                        + " has no accessible getter or field");
+                valid = false;
+            } else {
+                properties.add(property);
+            }
+        }
+        return valid ? properties : null;
+    }
+
+    private Property resolve(TypeElement type, String name) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Element field = null;
+
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getModifiers().contains(Modifier.PRIVATE) || member.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+
+            String memberName = member.getSimpleName().toString();
+            if (member.getKind() == ElementKind.METHOD && ((ExecutableElement) member).getParameters().isEmpty()) {
+                TypeMirror returnType = ((ExecutableElement) member).getReturnType();
+                if (memberName.equals("get" + capitalized) && returnType.getKind() != TypeKind.VOID
+                        || memberName.equals("is" + capitalized) && returnType.getKind() == TypeKind.BOOLEAN) {
+                    return new Property(memberName + "()", returnType, kindOf(returnType));
+                }
+            } else if (member.getKind() == ElementKind.FIELD && memberName.equals(name)) {
+                field = member;
+            }
+        }
+
+        return field == null ? null : new Property(name, field.asType(), kindOf(field.asType()));
+    }
+
+    private Kind kindOf(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return Kind.BOOLEAN;
+            case FLOAT:
+            case DOUBLE:
+                return Kind.FLOATING;
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+            case LONG:
+                return Kind.PRIMITIVE;
+            case DECLARED:
+                break;
+            default:
+                return Kind.OBJECT;
+        }
+
+        Element element = processingEnv.getTypeUtils().asElement(type);
+        if (element.getKind() == ElementKind.ENUM) {
+            return Kind.ENUM;
+        } else if (isSubtypeOf(type, "java.util.List")) {
+            return Kind.LIST;
+        } else if (isSubtypeOf(type, "java.util.Map")) {
+            return Kind.MAP;
+        }
+        return Kind.OBJECT;
+    }
+
+    private boolean isSubtypeOf(TypeMirror type, String className) {
+        TypeElement superType = processingEnv.getElementUtils().getTypeElement(className);
+        return superType != null && processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type),
+                processingEnv.getTypeUtils().erasure(superType.asType()));
+    }
+
+    private void generate(TypeElement type, List<Property> properties) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String simpleName = helperName(type);
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+        String visibility = type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+
+        boolean usesLists = false;
+        boolean usesMaps = false;
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("// Generated by ").append(EqualsProcessor.class.getName()).append(". Do not edit.\n");
+        source.append("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+        source.append(visibility).append("final class ").append(simpleName).append(" {\n\n");
+        source.append("    private ").append(simpleName).append("() {\n    }\n\n");
+
+        source.append("    ").append(visibility).append("static boolean areEqual(")
+                .append(typeName).append(" a, Object b) {\n");
+        source.append("        if (a == b) {\n            return true;\n        }\n");
+        source.append("        if (a == null || b == null || !a.getClass().isInstance(b)) {\n")
+                .append("            return false;\n        }\n");
+        source.append("        ").append(typeName).append(" that = (").append(typeName).append(") b;\n");
+        for (Property property : properties) {
+            String left = "a." + property.accessor;
+            String right = "that." + property.accessor;
+            String mismatch;
+            switch (property.kind) {
+                case PRIMITIVE:
+                case FLOATING:
+                case BOOLEAN:
+                case ENUM:
+                    mismatch = left + " != " + right;
+                    break;
+                case LIST:
+                    usesLists = true;
+                    mismatch = "!listsEqual(" + left + ", " + right + ")";
+                    break;
+                case MAP:
+                    usesMaps = true;
+                    mismatch = "!mapsEqual(" + left + ", " + right + ")";
+                    break;
+                default:
+                    mismatch = "!java.util.Objects.equals(" + left + ", " + right + ")";
+                    break;
+            }
+            source.append("        if (").append(mismatch).append(") {\n")
+                    .append("            return false;\n        }\n");
+        }
+        source.append("        return true;\n    }\n\n");
+
+        source.append("    ").append(visibility).append("static int hashCode(").append(typeName).append(" a) {\n");
+        source.append("        if (a == null) {\n            return 0;\n        }\n");
+        source.append("        int result = 1;\n");
+        for (Property property : properties) {
+            source.append("        result = 31 * result + ").append(hashOf(property)).append(";\n");
+        }
+        source.append("        return result;\n    }\n");
+
+        if (usesLists) {
+            source.append("\n    private static boolean listsEqual(java.util.List a, java.util.List b) {\n")
+                    .append("        if (a == b) {\n            return true;\n        }\n")
+                    .append("        if (a == null || b == null || a.size() != b.size()) {\n")
+                    .append("            return false;\n        }\n")
+                    .append("        java.util.Iterator aIterator = a.iterator();\n")
+                    .append("        java.util.Iterator bIterator = b.iterator();\n")
+                    .append("        while (aIterator.hasNext() && bIterator.hasNext()) {\n")
+                    .append("            if (!java.util.Objects.equals(aIterator.next(), bIterator.next())) {\n")
+                    .append("                return false;\n            }\n        }\n")
+                    .append("        return aIterator.hasNext() == bIterator.hasNext();\n    }\n");
+        }
+        if (usesMaps) {
+            source.append("\n    private static boolean mapsEqual(java.util.Map a, java.util.Map b) {\n")
+                    .append("        if (a == b) {\n            return true;\n        }\n")
+                    .append("        if (a == null || b == null || a.size() != b.size()) {\n")
+                    .append("            return false;\n        }\n")
+                    .append("        for (Object o : a.entrySet()) {\n")
+                    .append("            java.util.Map.Entry e = (java.util.Map.Entry) o;\n")
+                    .append("            Object value = e.getValue();\n")
+                    .append("            if (value == null) {\n")
+                    .append("                if (b.get(e.getKey()) != null || !b.containsKey(e.getKey())) {\n")
+                    .append("                    return false;\n                }\n")
+                    .append("            } else if (!value.equals(b.get(e.getKey()))) {\n")
+                    .append("                return false;\n            }\n        }\n")
+                    .append("        return true;\n    }\n");
+        }
+        source.append("\n}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Unable to generate " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private String hashOf(Property property) {
+        String value = "a." + property.accessor;
+        switch (property.kind) {
+            case BOOLEAN:
+                return "(" + value + " ? 1231 : 1237)";
+            case FLOATING:
+                // 0.0 == -0.0, so both must share a hash code
+                return "(" + value + " == 0 ? 0 : Double.hashCode(" + value + "))";
+            case PRIMITIVE:
+                return property.type.getKind() == TypeKind.LONG ? "Long.hashCode(" + value + ")" : value;
+            default:
+                return "java.util.Objects.hashCode(" + value + ")";
+        }
+    }
+
+    private static String helperName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement();
+             enclosing.getKind().isClass() || enclosing.getKind().isInterface();
+             enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
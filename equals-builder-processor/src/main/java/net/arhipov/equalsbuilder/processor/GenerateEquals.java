@@ -0,0 +1,53 @@
+package net.arhipov.equalsbuilder.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a helper class with straight-line {@code equals} and {@code hashCode} implementations
+ * for the annotated class at compile time.
+ * <p>
+ * For a class {@code Human} a class {@code HumanEquality} is generated in the same package, having
+ * {@code static boolean areEqual(Human a, Object b)} and {@code static int hashCode(Human a)} methods.
+ * The generated code follows the same rules as
+ * {@code EqualsBuilder.test(a, b).comparing(...).areEqual()}: identical references are equal,
+ * {@code null} is only equal to {@code null}, and the second object has to be an instance
+ * of the runtime class of the first one. Properties are compared in declaration order:
+ * </p>
+ * <ul>
+ *     <li>primitives are compared with {@code ==},</li>
+ *     <li>enums are compared by reference,</li>
+ *     <li>lists are compared element by element like {@code comparingCollections},</li>
+ *     <li>maps are compared by values like {@code comparingMaps},</li>
+ *     <li>everything else is compared with {@code Objects.equals}.</li>
+ * </ul>
+ * <pre>{@code
+ *  @GenerateEquals({"name", "surname", "age"})
+ *  class Human {
+ *      @Override
+ *      public boolean equals(Object o) {
+ *          return HumanEquality.areEqual(this, o);
+ *      }
+ *
+ *      @Override
+ *      public int hashCode() {
+ *          return HumanEquality.hashCode(this);
+ *      }
+ *  }
+ * }</pre>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateEquals {
+
+    /**
+     * Names of compared properties. A property is read with a {@code getName()} or
+     * {@code isName()} method if there is one, or directly from the {@code name} field otherwise.
+     *
+     * @return property names in comparison order
+     */
+    String[] value();
+
+}
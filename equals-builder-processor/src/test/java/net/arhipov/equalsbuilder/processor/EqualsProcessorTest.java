@@ -0,0 +1,176 @@
+package net.arhipov.equalsbuilder.processor;
+
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+public class EqualsProcessorTest {
+
+    private static final String ADDRESS_SOURCE = String.join("\n",
+            "package test;",
+            "",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "",
+            "@net.arhipov.equalsbuilder.processor.GenerateEquals({\"house\", \"phone\", \"latitude\", \"existing\", "
+                    + "\"street\", \"kind\", \"tags\", \"attributes\"})",
+            "public class Address {",
+            "    public enum Kind { HOUSE, FLAT }",
+            "",
+            "    private final int house;",
+            "    final long phone;",
+            "    private final double latitude;",
+            "    private final boolean existing;",
+            "    private final String street;",
+            "    private final Kind kind;",
+            "    private final List<String> tags;",
+            "    private final Map<String, Integer> attributes;",
+            "",
+            "    public Address(int house, long phone, double latitude, boolean existing, String street, Kind kind,",
+            "                   List<String> tags, Map<String, Integer> attributes) {",
+            "        this.house = house;",
+            "        this.phone = phone;",
+            "        this.latitude = latitude;",
+            "        this.existing = existing;",
+            "        this.street = street;",
+            "        this.kind = kind;",
+            "        this.tags = tags;",
+            "        this.attributes = attributes;",
+            "    }",
+            "",
+            "    public int getHouse() { return house; }",
+            "    public double getLatitude() { return latitude; }",
+            "    public boolean isExisting() { return existing; }",
+            "    public String getStreet() { return street; }",
+            "    public Kind getKind() { return kind; }",
+            "    public List<String> getTags() { return tags; }",
+            "    public Map<String, Integer> getAttributes() { return attributes; }",
+            "}");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File sources;
+    private File classes;
+
+    @Before
+    public void setUp() throws Exception {
+        sources = folder.newFolder("sources");
+        classes = folder.newFolder("classes");
+    }
+
+    @Test
+    public void generatesEqualsAndHashCode() throws Exception {
+        assertTrue(compile("test/Address.java", ADDRESS_SOURCE).isEmpty());
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()})) {
+            Class<?> address = loader.loadClass("test.Address");
+            Class<?> kind = loader.loadClass("test.Address$Kind");
+            Class<?> helper = loader.loadClass("test.AddressEquality");
+            Method areEqual = helper.getMethod("areEqual", address, Object.class);
+            Method hashCode = helper.getMethod("hashCode", address);
+            Constructor<?> constructor = address.getConstructors()[0];
+            Object house = kind.getEnumConstants()[0];
+            Object flat = kind.getEnumConstants()[1];
+
+            Map<String, Integer> attributes = new HashMap<>();
+            attributes.put("floors", 2);
+            attributes.put("garage", null);
+            Map<String, Integer> otherAttributes = new HashMap<>(attributes);
+
+            Object first = constructor.newInstance(1, 2L, 0.0, true, "street", house, asList("a", "b"), attributes);
+            Object second = constructor.newInstance(1, 2L, -0.0, true, "street", house, asList("a", "b"), otherAttributes);
+
+            assertEquals(true, areEqual.invoke(null, first, first));
+            assertEquals(true, areEqual.invoke(null, first, second));
+            assertEquals(hashCode.invoke(null, first), hashCode.invoke(null, second));
+            assertEquals(true, areEqual.invoke(null, null, null));
+            assertEquals(false, areEqual.invoke(null, first, null));
+            assertEquals(false, areEqual.invoke(null, null, first));
+            assertEquals(false, areEqual.invoke(null, first, "street"));
+            assertEquals(0, hashCode.invoke(null, (Object) null));
+
+            Object[][] different = {
+                    {2, 2L, 0.0, true, "street", house, asList("a", "b"), attributes},
+                    {1, 3L, 0.0, true, "street", house, asList("a", "b"), attributes},
+                    {1, 2L, 0.1, true, "street", house, asList("a", "b"), attributes},
+                    {1, 2L, 0.0, false, "street", house, asList("a", "b"), attributes},
+                    {1, 2L, 0.0, true, null, house, asList("a", "b"), attributes},
+                    {1, 2L, 0.0, true, "street", flat, asList("a", "b"), attributes},
+                    {1, 2L, 0.0, true, "street", house, asList("b", "a"), attributes},
+                    {1, 2L, 0.0, true, "street", house, null, attributes},
+                    {1, 2L, 0.0, true, "street", house, asList("a", "b"), singletonMap("floors", 2)},
+            };
+            for (Object[] arguments : different) {
+                assertEquals(Arrays.toString(arguments), false,
+                        areEqual.invoke(null, first, constructor.newInstance(arguments)));
+            }
+
+            otherAttributes.remove("garage");
+            otherAttributes.put("basement", null);
+            assertEquals(false, areEqual.invoke(null, first, second));
+        }
+    }
+
+    @Test
+    public void reportsUnknownProperties() throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile("test/Person.java", String.join("\n",
+                "package test;",
+                "",
+                "@net.arhipov.equalsbuilder.processor.GenerateEquals({\"id\", \"secret\"})",
+                "class Person {",
+                "    int id;",
+                "    private String secret;",
+                "}"));
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage(null).contains("'secret'"));
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String path, String source) throws Exception {
+        File file = new File(sources, path);
+        assertTrue(file.getParentFile().mkdirs());
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    asList("-d", classes.getPath(), "-s", sources.getPath(),
+                            "-classpath", System.getProperty("java.class.path")),
+                    null, fileManager.getJavaFileObjects(file));
+            task.setProcessors(singletonList(new EqualsProcessor()));
+            task.call();
+        }
+
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .collect(toList());
+    }
+
+}
@@ -0,0 +1,95 @@
+package net.arhipov.equalsbuilder.collections;
+
+import net.arhipov.equalsbuilder.EqualsBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+@Fork(warmups = 0, value = 1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ArrayComparisonBenchmark {
+
+    private static final class Samples {
+        private final int[] array;
+        private final List<Integer> list;
+
+        Samples(int size) {
+            array = new int[size];
+            list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                array[i] = i * 31;
+                list.add(i * 31);
+            }
+        }
+
+        int[] getArray() {
+            return array;
+        }
+
+        List<Integer> getList() {
+            return list;
+        }
+    }
+
+    @Param({"8", "128", "4096"})
+    private int size;
+
+    private Samples first;
+    private Samples second;
+
+    @Setup
+    public void setup() {
+        first = new Samples(size);
+        second = new Samples(size);
+    }
+
+    @Benchmark
+    public boolean intArrays() {
+        return EqualsBuilder.test(first, second)
+            .comparingIntArrays(Samples::getArray)
+            .areEqual();
+    }
+
+    @Benchmark
+    public boolean boxedArrayList() {
+        return EqualsBuilder.test(first, second)
+            .comparingCollections(Samples::getList, Objects::equals)
+            .areEqual();
+    }
+
+    /**
+     * The iterator loop used for every collection before random access lists got an indexed one.
+     */
+    @Benchmark
+    public boolean boxedArrayListIterator() {
+        List<Integer> a = first.getList();
+        List<Integer> b = second.getList();
+        if (a.size() != b.size()) {
+            return false;
+        }
+
+        Iterator<Integer> aIterator = a.iterator();
+        Iterator<Integer> bIterator = b.iterator();
+        while (aIterator.hasNext() && bIterator.hasNext()) {
+            if (!Objects.equals(aIterator.next(), bIterator.next())) {
+                return false;
+            }
+        }
+        return aIterator.hasNext() == bIterator.hasNext();
+    }
+
+}
@@ -0,0 +1,120 @@
+package net.arhipov.equalsbuilder.collections;
+
+import net.arhipov.equalsbuilder.EqualsBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares equal maps of different implementations, sizes and densities of {@code null} values.
+ * {@code doubleLookup} is the former generic loop, calling {@code get} and then {@code containsKey}
+ * for {@code null} values. Enum maps are keyed by {@link Character.UnicodeScript}, so their size is capped
+ * by the number of scripts.
+ */
+@Fork(warmups = 0, value = 1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapComparisonBenchmark {
+
+    private static final class Holder {
+        private final Map<Object, String> values;
+
+        Holder(Map<Object, String> values) {
+            this.values = values;
+        }
+
+        Map<Object, String> getValues() {
+            return values;
+        }
+    }
+
+    @Param({"hash", "linked", "enum", "identity"})
+    private String type;
+
+    @Param({"100", "10000"})
+    private int size;
+
+    @Param({"0", "0.5"})
+    private double nulls;
+
+    private Holder first;
+    private Holder second;
+
+    @Setup
+    public void setup() {
+        Map<Object, String> a = newMap();
+        Map<Object, String> b = newMap();
+        Character.UnicodeScript[] scripts = Character.UnicodeScript.values();
+        int count = type.equals("enum") ? Math.min(size, scripts.length) : size;
+        for (int i = 0; i < count; i++) {
+            Object key = type.equals("enum") ? scripts[i] : "key" + i;
+            boolean isNull = (i * 0.618034) % 1 < nulls;
+            a.put(key, isNull ? null : "value" + i);
+            b.put(key, isNull ? null : "value" + i);
+        }
+        first = new Holder(a);
+        second = new Holder(b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Object, String> newMap() {
+        switch (type) {
+            case "hash":
+                return new HashMap<>();
+            case "linked":
+                return new LinkedHashMap<>();
+            case "enum":
+                return (Map<Object, String>) (Map<?, String>) new EnumMap<Character.UnicodeScript, String>(
+                        Character.UnicodeScript.class);
+            case "identity":
+                return new IdentityHashMap<>();
+            default:
+                throw new IllegalArgumentException(type);
+        }
+    }
+
+    @Benchmark
+    public boolean mapEquals() {
+        return first.getValues().equals(second.getValues());
+    }
+
+    @Benchmark
+    public boolean doubleLookup() {
+        Map<Object, String> a = first.getValues();
+        Map<Object, String> b = second.getValues();
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (Map.Entry<Object, String> e : a.entrySet()) {
+            String value = e.getValue();
+            if (value == null ? !(b.get(e.getKey()) == null && b.containsKey(e.getKey()))
+                    : !Objects.equals(value, b.get(e.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    public boolean comparingMaps() {
+        return EqualsBuilder.test(first, second)
+            .comparingMaps(Holder::getValues, String::equals)
+            .areEqual();
+    }
+
+}
@@ -0,0 +1,97 @@
+package net.arhipov.equalsbuilder.collections;
+
+import net.arhipov.equalsbuilder.EqualsBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Fork(warmups = 0, value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelComparisonBenchmark {
+
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
+    private static final class Aggregate {
+        private final List<String> list;
+        private final Map<Integer, String> map;
+
+        Aggregate(List<String> list, Map<Integer, String> map) {
+            this.list = list;
+            this.map = map;
+        }
+
+        List<String> getList() {
+            return list;
+        }
+
+        Map<Integer, String> getMap() {
+            return map;
+        }
+    }
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Aggregate first;
+    private Aggregate second;
+
+    @Setup
+    public void setup() {
+        first = aggregate(size);
+        second = aggregate(size);
+    }
+
+    @Benchmark
+    public boolean serialList() {
+        return EqualsBuilder.test(first, second)
+            .comparingCollections(Aggregate::getList, String::equals)
+            .areEqual();
+    }
+
+    @Benchmark
+    public boolean parallelList() {
+        return EqualsBuilder.test(first, second)
+            .comparingCollections(Aggregate::getList, String::equals, PARALLEL_THRESHOLD)
+            .areEqual();
+    }
+
+    @Benchmark
+    public boolean serialMap() {
+        return EqualsBuilder.test(first, second)
+            .comparingMaps(Aggregate::getMap, String::equals)
+            .areEqual();
+    }
+
+    @Benchmark
+    public boolean parallelMap() {
+        return EqualsBuilder.test(first, second)
+            .comparingMaps(Aggregate::getMap, String::equals, PARALLEL_THRESHOLD)
+            .areEqual();
+    }
+
+    private static Aggregate aggregate(int size) {
+        List<String> list = new ArrayList<>(size);
+        Map<Integer, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String value = "value" + i;
+            list.add(value);
+            map.put(i, value);
+        }
+        return new Aggregate(list, map);
+    }
+
+}
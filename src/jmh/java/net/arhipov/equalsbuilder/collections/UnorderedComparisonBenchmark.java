@@ -0,0 +1,74 @@
+package net.arhipov.equalsbuilder.collections;
+
+import net.arhipov.equalsbuilder.EqualsBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Fork(warmups = 0, value = 1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UnorderedComparisonBenchmark {
+
+    private static final class Holder {
+        private final Collection<String> values;
+
+        Holder(Collection<String> values) {
+            this.values = values;
+        }
+
+        Collection<String> getValues() {
+            return values;
+        }
+    }
+
+    @Param({"100", "10000", "100000"})
+    private int size;
+
+    private Holder first;
+    private Holder second;
+
+    @Setup
+    public void setup() {
+        Set<String> a = new HashSet<>();
+        Set<String> b = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            a.add("value" + i);
+            b.add("value" + (size - i - 1));
+        }
+        first = new Holder(a);
+        second = new Holder(b);
+    }
+
+    @Benchmark
+    public boolean setEquals() {
+        return first.getValues().equals(second.getValues());
+    }
+
+    @Benchmark
+    public boolean comparingSets() {
+        return EqualsBuilder.test(first, second)
+            .comparingSets(Holder::getValues, String::equals, String::hashCode)
+            .areEqual();
+    }
+
+    @Benchmark
+    public boolean comparingBags() {
+        return EqualsBuilder.test(first, second)
+            .comparingBags(Holder::getValues, String::equals, String::hashCode)
+            .areEqual();
+    }
+
+}
@@ -0,0 +1,125 @@
+package net.arhipov.equalsbuilder.dirty;
+
+import net.arhipov.equalsbuilder.EqualsSpec;
+import net.arhipov.equalsbuilder.Fingerprinter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares two ways of a write-behind cache to tell if an entity has changed:
+ * keeping a deep copy and comparing to it, or keeping a fingerprint and recomputing it.
+ * Both the check and taking a snapshot after the entity has been persisted are measured.
+ */
+@Fork(warmups = 0, value = 1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DirtyCheckBenchmark {
+
+    private static final class Entity {
+        private final long id;
+        private final String name;
+        private final List<String> lines;
+        private final Map<String, String> attributes;
+
+        Entity(long id, String name, List<String> lines, Map<String, String> attributes) {
+            this.id = id;
+            this.name = name;
+            this.lines = lines;
+            this.attributes = attributes;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Collection<String> getLines() {
+            return lines;
+        }
+
+        Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        Entity deepCopy() {
+            return new Entity(id, new String(name), copy(lines), new HashMap<>(attributes));
+        }
+
+        private static List<String> copy(List<String> lines) {
+            List<String> copy = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                copy.add(new String(line));
+            }
+            return copy;
+        }
+    }
+
+    private static final EqualsSpec<Entity> SPEC = EqualsSpec.of(Entity.class)
+            .comparing(Entity::getId)
+            .comparing(Entity::getName, String.class)
+            .comparingCollections(Entity::getLines, String::equals)
+            .comparingMaps(Entity::getAttributes, String::equals);
+
+    private static final Fingerprinter<Entity> FINGERPRINTER = Fingerprinter.of(SPEC);
+
+    @Param({"10", "1000"})
+    private int size;
+
+    private Entity entity;
+    private Entity snapshot;
+    private long fingerprint;
+
+    @Setup
+    public void setup() {
+        List<String> lines = new ArrayList<>();
+        Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            lines.add("line number " + i);
+            attributes.put("key" + i, "value" + i);
+        }
+
+        entity = new Entity(42, "entity", lines, attributes);
+        snapshot = entity.deepCopy();
+        fingerprint = FINGERPRINTER.fingerprint(entity);
+    }
+
+    @Benchmark
+    public boolean deepCopyCompare() {
+        return !SPEC.test(entity, snapshot);
+    }
+
+    @Benchmark
+    public boolean fingerprintCompare() {
+        return FINGERPRINTER.fingerprint(entity) != fingerprint;
+    }
+
+    @Benchmark
+    public Entity deepCopySnapshot() {
+        return entity.deepCopy();
+    }
+
+    @Benchmark
+    public long fingerprintSnapshot() {
+        return FINGERPRINTER.fingerprint(entity);
+    }
+
+}
@@ -1,6 +1,7 @@
 package net.arhipov.equalsbuilder.dispatch;
 
 import net.arhipov.equalsbuilder.EqualsBuilder;
+import net.arhipov.equalsbuilder.EqualsSpec;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -19,6 +20,20 @@ import java.util.function.Function;
 @OutputTimeUnit(TimeUnit.NANOSECONDS)
 public class MegamorphicBenchamark {
 
+    private static final EqualsSpec<SpaceCoordinate> COORDINATE_SPEC = EqualsSpec.of(SpaceCoordinate.class)
+        .comparing(SpaceCoordinate::getX)
+        .comparing(SpaceCoordinate::getY)
+        .comparing(SpaceCoordinate::getZ);
+
+    private static final EqualsSpec<SpaceCoordinate> SPECIALIZED_COORDINATE_SPEC = COORDINATE_SPEC.specialize();
+
+    private static final EqualsSpec<Human> HUMAN_SPEC = EqualsSpec.of(Human.class)
+        .comparing(Human::getName)
+        .comparing(Human::getSurname)
+        .comparing(Human::getMiddleName);
+
+    private static final EqualsSpec<Human> SPECIALIZED_HUMAN_SPEC = HUMAN_SPEC.specialize();
+
     private SpaceCoordinate firstCoordinate;
     private SpaceCoordinate secondCoordinate;
 
@@ -92,4 +107,24 @@ public class MegamorphicBenchamark {
             .areEqual();
     }
 
+    @Benchmark
+    public boolean equalsSpecMegamorphic() {
+        return COORDINATE_SPEC.test(firstCoordinate, secondCoordinate);
+    }
+
+    @Benchmark
+    public boolean specializedEqualsSpecMegamorphic() {
+        return SPECIALIZED_COORDINATE_SPEC.test(firstCoordinate, secondCoordinate);
+    }
+
+    @Benchmark
+    public boolean equalsSpecMegamorphicStrings() {
+        return HUMAN_SPEC.test(firstHuman, secondHuman);
+    }
+
+    @Benchmark
+    public boolean specializedEqualsSpecMegamorphicStrings() {
+        return SPECIALIZED_HUMAN_SPEC.test(firstHuman, secondHuman);
+    }
+
 }
@@ -0,0 +1,14 @@
+package net.arhipov.equalsbuilder.multifield;
+
+import net.arhipov.equalsbuilder.EqualsBuilder;
+import net.arhipov.equalsbuilder.EqualsSpec;
+
+public class AutoEqualsSpecChecker {
+
+    private static final EqualsSpec<Human> SPEC = EqualsBuilder.auto(Human.class);
+
+    public static boolean areEqual(Human a, Object b) {
+        return SPEC.test(a, b);
+    }
+
+}
@@ -0,0 +1,53 @@
+package net.arhipov.equalsbuilder.multifield;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+@Fork(warmups = 0, value = 1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashCodeBenchmark {
+
+    private Human human;
+
+    @Setup
+    public void setup() {
+        human = new Human("super name", "super surname", 33);
+
+        HashMap<String, String> attitude = new HashMap<>();
+        attitude.put("food", "love");
+        attitude.put("alcohol", "dislike");
+        human.setAttitude(attitude);
+        human.setFovirteWords(Arrays.asList("mumble", "humble", "bundle"));
+        human.setHairColor(Human.Color.BLONDE);
+    }
+
+    @Benchmark
+    public int objectsHash() {
+        return Objects.hash(human.getAge(), human.getId(), human.isDead(), human.getName(), human.getSurname(),
+            human.getHairColor(), human.getFovirteWords(), human.getAttitude());
+    }
+
+    @Benchmark
+    public int equalsSpec() {
+        return EqualsSpecChecker.hashCode(human);
+    }
+
+    @Benchmark
+    public int generated() {
+        return HumanEquality.hashCode(human);
+    }
+
+}
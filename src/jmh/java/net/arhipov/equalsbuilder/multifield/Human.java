@@ -1,8 +1,11 @@
 package net.arhipov.equalsbuilder.multifield;
 
+import net.arhipov.equalsbuilder.processor.GenerateEquals;
+
 import java.util.List;
 import java.util.Map;
 
+@GenerateEquals({"age", "id", "dead", "name", "surname", "hairColor", "fovirteWords", "attitude"})
 public class Human {
 
     public enum Color {
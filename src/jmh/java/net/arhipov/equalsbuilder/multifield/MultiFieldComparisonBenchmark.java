@@ -37,11 +37,36 @@ public class MultiFieldComparisonBenchmark {
         return EqualsBuilderChecker.areEqual(first, second);
     }
 
+    @Benchmark
+    public boolean equalsSpec() {
+        return EqualsSpecChecker.areEqual(first, second);
+    }
+
+    @Benchmark
+    public boolean specializedEqualsSpec() {
+        return SpecializedEqualsSpecChecker.areEqual(first, second);
+    }
+
+    @Benchmark
+    public boolean typedEqualsSpec() {
+        return TypedEqualsSpecChecker.areEqual(first, second);
+    }
+
+    @Benchmark
+    public boolean autoEqualsSpec() {
+        return AutoEqualsSpecChecker.areEqual(first, second);
+    }
+
     @Benchmark
     public boolean classic() {
         return ClassicChecker.areEqual(first, second);
     }
 
+    @Benchmark
+    public boolean generated() {
+        return HumanEquality.areEqual(first, second);
+    }
+
     @Benchmark
     public boolean java7() {
         return Java7Checker.areEqual(first, second);
@@ -0,0 +1,22 @@
+package net.arhipov.equalsbuilder.multifield;
+
+import net.arhipov.equalsbuilder.EqualsSpec;
+
+public class SpecializedEqualsSpecChecker {
+
+    private static final EqualsSpec<Human> SPEC = EqualsSpec.of(Human.class)
+        .comparing(Human::getAge)
+        .comparing(Human::getId)
+        .comparing(Human::isDead)
+        .comparing(Human::getName)
+        .comparing(Human::getSurname)
+        .comparing(Human::getHairColor)
+        .comparing(Human::getFovirteWords)
+        .comparing(Human::getAttitude)
+        .specialize();
+
+    public static boolean areEqual(Human a, Object b) {
+        return SPEC.test(a, b);
+    }
+
+}
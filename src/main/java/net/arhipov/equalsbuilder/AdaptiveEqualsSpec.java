@@ -0,0 +1,238 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An {@link EqualsSpec} that learns in which order its comparisons should be evaluated.
+ * <p>
+ * A regular spec evaluates comparisons in declaration order and stops at the first mismatch.
+ * If the comparison that usually tells objects apart is declared last, every unequal pair
+ * pays for all the comparisons before it. An adaptive spec samples a small fraction of calls,
+ * measuring how often each comparison fails and how long it takes, and periodically reorders
+ * comparisons so that cheap, likely-to-fail ones go first.
+ * </p>
+ * <p>
+ * Reordering never changes the result, provided that comparisons are independent of each other:
+ * they have no side effects and do not rely on an earlier comparison having succeeded
+ * (e.g. to guard against {@code null}). Hash codes are always computed in declaration order.
+ * </p>
+ * <p>
+ * Sampling overhead is capped by the sample interval: on average only one call out of
+ * {@code sampleInterval} is measured, and calls that are not sampled evaluate comparisons
+ * exactly like a regular spec does. Once the learned order is good enough, it can be
+ * frozen into a regular spec with {@link #freeze()}.
+ * </p>
+ * <p>
+ * Every learned order is evaluated by a regular spec derived from the original one, so options like
+ * {@link EqualsSpec#cycleSafe()}, {@link EqualsSpec#cached(ComparisonCache)}, metrics, hash guards and
+ * {@link EqualsSpec#specialize()} keep working. A specialized or cached spec is specialized again
+ * and starts with no cached results whenever the learned order changes.
+ * </p>
+ * <p>
+ * AdaptiveEqualsSpec is thread-safe.
+ * </p>
+ *
+ * @param <T> common supertype of objects being compared
+ * @see EqualsSpec#adaptive()
+ */
+public final class AdaptiveEqualsSpec<T> {
+
+    private static final class Order<T> {
+        private final int[] indices;
+        private final EqualsSpec<T> spec;
+        private final EqualsSpec<T> sampled;
+
+        Order(int[] indices, EqualsSpec<T> spec, EqualsSpec<T> sampled) {
+            this.indices = indices;
+            this.spec = spec;
+            this.sampled = sampled;
+        }
+    }
+
+    /**
+     * Collects statistics of sampled calls, reported by the spec of the current order,
+     * and passes them on to the metrics of the original spec, if any.
+     */
+    private final class Sampler implements EqualsMetrics {
+        private final EqualsMetrics metrics;
+
+        Sampler(EqualsMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void compared(int evaluated, int stoppedAt) {
+            synchronized (lock) {
+                if (stoppedAt >= 0) {
+                    mismatches[stoppedAt]++;
+                }
+                if (++samples >= reorderInterval) {
+                    reorder();
+                }
+            }
+            if (metrics != null) {
+                metrics.compared(evaluated, stoppedAt);
+            }
+        }
+
+        @Override
+        public void evaluated(int step) {
+            synchronized (lock) {
+                evaluations[step]++;
+            }
+            if (metrics != null) {
+                metrics.evaluated(step);
+            }
+        }
+
+        @Override
+        public void sizes(int step, int first, int second) {
+            if (metrics != null) {
+                metrics.sizes(step, first, second);
+            }
+        }
+
+        @Override
+        public int sampleInterval() {
+            return 1;
+        }
+
+        @Override
+        public void timed(int step, long nanos) {
+            synchronized (lock) {
+                AdaptiveEqualsSpec.this.nanos[step] += nanos;
+            }
+            if (metrics != null && metrics.sampleInterval() > 0) {
+                metrics.timed(step, nanos);
+            }
+        }
+    }
+
+    private final EqualsSpec<T> spec;
+    private final int sampleInterval;
+    private final int reorderInterval;
+    private final Sampler sampler;
+
+    private final Object lock = new Object();
+    private final long[] evaluations;
+    private final long[] mismatches;
+    private final long[] nanos;
+    private int samples;
+
+    private volatile Order<T> order;
+
+    AdaptiveEqualsSpec(EqualsSpec<T> spec, int sampleInterval, int reorderInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be positive: " + sampleInterval);
+        } else if (reorderInterval < 1) {
+            throw new IllegalArgumentException("Reorder interval must be positive: " + reorderInterval);
+        }
+
+        int size = spec.comparisons().length;
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+
+        this.spec = spec;
+        this.sampleInterval = sampleInterval;
+        this.reorderInterval = reorderInterval;
+        this.evaluations = new long[size];
+        this.mismatches = new long[size];
+        this.nanos = new long[size];
+        this.sampler = new Sampler(spec.metrics());
+        this.order = new Order<>(indices, spec, spec.withMetrics(sampler));
+    }
+
+    /**
+     * Returns true if both objects are considered equal by this spec and false otherwise.
+     *
+     * @param a typed object to be compared
+     * @param b untyped object to be compared
+     * @return true if objects are equal and false otherwise
+     * @see EqualsSpec#test(Object, Object)
+     */
+    public boolean test(T a, Object b) {
+        Order<T> current = order;
+        if (sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0) {
+            return current.sampled.test(a, b);
+        }
+        return current.spec.test(a, b);
+    }
+
+    /**
+     * Returns a hash code of an object consistent with {@link #test(Object, Object)}.
+     * The result does not depend on the learned order.
+     *
+     * @param value an object to compute the hash code for
+     * @return hash code of the object, or 0 for {@code null}
+     * @see EqualsSpec#hashCode(Object)
+     */
+    public int hashCode(T value) {
+        return spec.hashCode(value);
+    }
+
+    /**
+     * Returns the current evaluation order as indices of comparisons in declaration order.
+     *
+     * @return a copy of the current evaluation order
+     */
+    public int[] currentOrder() {
+        return order.indices.clone();
+    }
+
+    /**
+     * Returns a regular immutable spec evaluating comparisons in the currently learned order.
+     * The returned spec does not sample anything and is not affected by further learning.
+     *
+     * @return EqualsSpec instance with the learned evaluation order
+     */
+    public EqualsSpec<T> freeze() {
+        return order.spec;
+    }
+
+    /**
+     * Sorts comparisons by mismatch probability per nanosecond, which minimizes the expected
+     * cost of evaluating a chain of independent checks. Statistics are halved afterwards,
+     * so that the order keeps adapting if the data changes. Specs for the new order are only derived
+     * if it differs from the current one.
+     */
+    private void reorder() {
+        int size = evaluations.length;
+        long totalNanos = 0;
+        long totalEvaluations = 0;
+        for (int i = 0; i < size; i++) {
+            totalNanos += nanos[i];
+            totalEvaluations += evaluations[i];
+        }
+
+        // Comparisons that are rarely evaluated are assumed to cost as much as an average one,
+        // otherwise a comparison that is never reached would look free and jump ahead
+        double averageCost = (totalNanos + 1.0) / (totalEvaluations + 1.0);
+        double[] scores = new double[size];
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            double probability = (mismatches[i] + 1.0) / (evaluations[i] + 2.0);
+            double cost = (nanos[i] + averageCost) / (evaluations[i] + 1.0);
+            scores[i] = probability / cost;
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (x, y) -> Double.compare(scores[y], scores[x]));
+
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = sorted[i];
+            evaluations[i] /= 2;
+            mismatches[i] /= 2;
+            nanos[i] /= 2;
+        }
+
+        samples = 0;
+        if (!Arrays.equals(indices, order.indices)) {
+            EqualsSpec<T> reordered = spec.reorder(indices);
+            order = new Order<>(indices, reordered, reordered.withMetrics(sampler));
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+final class ArrayComparison<T, A> implements Comparison<T> {
+
+    private final Function<T, A> getter;
+    private final BiPredicate<A, A> equalizer;
+    private final ToIntFunction<A> hasher;
+    private final ToIntBiFunction<A, A> mismatcher;
+
+    ArrayComparison(Function<T, A> getter, BiPredicate<A, A> equalizer, ToIntFunction<A> hasher,
+                    ToIntBiFunction<A, A> mismatcher) {
+        this.getter = getter;
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+        this.mismatcher = mismatcher;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return equalizer.test(getter.apply(a), getter.apply(b));
+    }
+
+    @Override
+    public int hash(T value) {
+        return hasher.applyAsInt(getter.apply(value));
+    }
+
+    @Override
+    public Mismatch mismatch(int step, String label, T a, T b) {
+        A first = getter.apply(a);
+        A second = getter.apply(b);
+        if (first == null || second == null) {
+            return Mismatch.of(step, label);
+        }
+        return Mismatch.atIndex(step, label, mismatcher.applyAsInt(first, second));
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putObject(getter.apply(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(ArrayComparison.class, this,
+                new Class<?>[]{Function.class, BiPredicate.class, ToIntFunction.class, ToIntBiFunction.class},
+                getter, equalizer, hasher, mismatcher);
+    }
+
+}
@@ -0,0 +1,67 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * Locates the first differing element of primitive arrays for {@link EqualsSpec#firstMismatch(Object, Object)}.
+ * <p>
+ * Every method returns the index of the first differing element, the length of the shorter array
+ * if it is a prefix of the other one, or -1 if both arrays are equal. This baseline version uses
+ * plain loops; the multi-release jar replaces it on Java 17 with one delegating to the vectorized
+ * {@code Arrays.mismatch}. Doubles are compared by their bits, like {@code Arrays.equals} does.
+ * </p>
+ */
+final class ArrayMismatch {
+
+    private ArrayMismatch() {
+    }
+
+    static int mismatch(int[] a, int[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : length;
+    }
+
+    static int mismatch(long[] a, long[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : length;
+    }
+
+    static int mismatch(double[] a, double[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (Double.doubleToLongBits(a[i]) != Double.doubleToLongBits(b[i])) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : length;
+    }
+
+    static int mismatch(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : length;
+    }
+
+    static int mismatch(char[] a, char[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return i;
+            }
+        }
+        return a.length == b.length ? -1 : length;
+    }
+
+}
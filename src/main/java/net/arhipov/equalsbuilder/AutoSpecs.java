@@ -0,0 +1,220 @@
+package net.arhipov.equalsbuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Builds specs comparing every instance field of a class, see {@link EqualsSpec#auto(Class)}.
+ * <p>
+ * Fields are introspected once per class and the resulting spec is cached in a {@link ClassValue}.
+ * Field values are read through method handles adapted to exact primitive types, so primitive
+ * fields go through the primitive comparisons without boxing.
+ * </p>
+ */
+final class AutoSpecs {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<EqualsSpec<?>> SPECS = new ClassValue<EqualsSpec<?>>() {
+        @Override
+        protected EqualsSpec<?> computeValue(Class<?> type) {
+            return build(type);
+        }
+    };
+
+    private AutoSpecs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> EqualsSpec<T> of(Class<T> type) {
+        return (EqualsSpec<T>) SPECS.get(type);
+    }
+
+    private static <T> EqualsSpec<T> build(Class<T> type) {
+        if (type.isInterface() || type.isArray() || type.isPrimitive()) {
+            throw new IllegalArgumentException("Cannot compare fields of " + type.getName());
+        }
+
+        EqualsSpec<T> spec = EqualsSpec.of(type);
+        for (Field field : fields(type)) {
+            spec = append(spec, field).named(field.getName());
+        }
+        return spec.specialize();
+    }
+
+    /**
+     * Returns instance fields of the class and its superclasses, superclass fields first.
+     */
+    private static List<Field> fields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    declared.add(field);
+                }
+            }
+            fields.addAll(0, declared);
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> EqualsSpec<T> append(EqualsSpec<T> spec, Field field) {
+        Class<?> type = field.getType();
+        MethodHandle getter = getter(field);
+
+        if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+            return spec.comparing((ToIntFunction<T>) new IntGetter(getter));
+        } else if (type == long.class) {
+            return spec.comparing((ToLongFunction<T>) new LongGetter(getter));
+        } else if (type == double.class || type == float.class) {
+            return spec.comparing((ToDoubleFunction<T>) new DoubleGetter(getter));
+        } else if (type == boolean.class) {
+            return spec.comparing((Predicate<T>) new BooleanGetter(getter));
+        }
+
+        Function<T, Object> objectGetter = (Function<T, Object>) new ObjectGetter(getter);
+        if (type == int[].class) {
+            return spec.comparingIntArrays((Function<T, int[]>) (Function<T, ?>) objectGetter);
+        } else if (type == long[].class) {
+            return spec.comparingLongArrays((Function<T, long[]>) (Function<T, ?>) objectGetter);
+        } else if (type == double[].class) {
+            return spec.comparingDoubleArrays((Function<T, double[]>) (Function<T, ?>) objectGetter);
+        } else if (type == byte[].class) {
+            return spec.comparingByteArrays((Function<T, byte[]>) (Function<T, ?>) objectGetter);
+        } else if (type == char[].class) {
+            return spec.comparingCharArrays((Function<T, char[]>) (Function<T, ?>) objectGetter);
+        } else if (type.isArray() || type == Object.class) {
+            // Fields of type Object might hold arrays as well
+            return spec.comparing(objectGetter, Objects::deepEquals, value -> Arrays.deepHashCode(new Object[]{value}));
+        }
+        return spec.comparing(objectGetter, (Class<Object>) type);
+    }
+
+    private static MethodHandle getter(Field field) {
+        try {
+            field.setAccessible(true);
+            MethodHandle getter = LOOKUP.unreflectGetter(field);
+            Class<?> type = field.getType();
+            if (type == short.class || type == byte.class || type == char.class) {
+                type = int.class;
+            } else if (type == float.class) {
+                type = double.class;
+            } else if (!type.isPrimitive()) {
+                type = Object.class;
+            }
+            return getter.asType(MethodType.methodType(type, Object.class));
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot access field " + field, e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+
+    private static final class IntGetter implements ToIntFunction<Object> {
+        private final MethodHandle getter;
+
+        IntGetter(MethodHandle getter) {
+            this.getter = getter;
+        }
+
+        @Override
+        public int applyAsInt(Object value) {
+            try {
+                return (int) getter.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class LongGetter implements ToLongFunction<Object> {
+        private final MethodHandle getter;
+
+        LongGetter(MethodHandle getter) {
+            this.getter = getter;
+        }
+
+        @Override
+        public long applyAsLong(Object value) {
+            try {
+                return (long) getter.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class DoubleGetter implements ToDoubleFunction<Object> {
+        private final MethodHandle getter;
+
+        DoubleGetter(MethodHandle getter) {
+            this.getter = getter;
+        }
+
+        @Override
+        public double applyAsDouble(Object value) {
+            try {
+                return (double) getter.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class BooleanGetter implements Predicate<Object> {
+        private final MethodHandle getter;
+
+        BooleanGetter(MethodHandle getter) {
+            this.getter = getter;
+        }
+
+        @Override
+        public boolean test(Object value) {
+            try {
+                return (boolean) getter.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+    private static final class ObjectGetter implements Function<Object, Object> {
+        private final MethodHandle getter;
+
+        ObjectGetter(MethodHandle getter) {
+            this.getter = getter;
+        }
+
+        @Override
+        public Object apply(Object value) {
+            try {
+                return (Object) getter.invokeExact(value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.function.Predicate;
+
+final class BooleanComparison<T> implements Comparison<T> {
+
+    private final Predicate<T> getter;
+
+    BooleanComparison(Predicate<T> getter) {
+        this.getter = getter;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return getter.test(a) == getter.test(b);
+    }
+
+    @Override
+    public int hash(T value) {
+        return Boolean.hashCode(getter.test(value));
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putBoolean(getter.test(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(BooleanComparison.class, this, new Class<?>[]{Predicate.class}, getter);
+    }
+
+}
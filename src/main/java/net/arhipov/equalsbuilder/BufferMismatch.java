@@ -0,0 +1,36 @@
+package net.arhipov.equalsbuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compares a region of a (usually memory-mapped) buffer with encoded bytes without copying the region.
+ * The Java 11 version of the class uses the vectorized {@link ByteBuffer#mismatch}.
+ */
+final class BufferMismatch {
+
+    private BufferMismatch() {
+    }
+
+    /**
+     * Returns true if {@code length} bytes of the buffer starting at {@code offset} equal the start of the array.
+     */
+    static boolean regionEquals(ByteBuffer buffer, int offset, byte[] bytes, int length) {
+        // Compares eight bytes at a time, the byte order only has to be the same for both buffers
+        ByteBuffer wrapped = ByteBuffer.wrap(bytes, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer region = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            if (region.getLong(offset + i) != wrapped.getLong(i)) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (region.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,191 @@
+package net.arhipov.equalsbuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.security.ProtectionDomain;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Defines private copies of template classes at runtime.
+ * <p>
+ * A copy has exactly the same bytecode as its template, but since it is a different class
+ * the JIT collects a separate type profile for each of its call sites. This way a getter
+ * invoked from a copy of {@link IntComparison} stays monomorphic and can be inlined,
+ * while the shared template would quickly become megamorphic.
+ * </p>
+ * <p>
+ * Copies are defined in the same class loader and package as the template, so package-private
+ * access keeps working. On Java 9+ {@code MethodHandles.Lookup#defineClass} is used, on Java 8
+ * {@code ClassLoader#defineClass} is invoked reflectively. If neither is available, the template
+ * itself is returned, which is always a correct, if slower, fallback. Copies are never unloaded,
+ * so specialization is meant to be done once per spec.
+ * </p>
+ */
+final class ClassSpecializer {
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final Method LOOKUP_DEFINE_CLASS = findLookupDefineClass();
+    private static final Method LOADER_DEFINE_CLASS = LOOKUP_DEFINE_CLASS == null ? findLoaderDefineClass() : null;
+
+    private ClassSpecializer() {
+    }
+
+    /**
+     * Creates an instance of a fresh copy of the template class.
+     *
+     * @param template       a class to copy
+     * @param fallback       an instance returned if the class can not be copied
+     * @param parameterTypes types of constructor parameters
+     * @param arguments      constructor arguments
+     * @param <C>            template type
+     * @return an instance of a template copy, or fallback
+     */
+    @SuppressWarnings("unchecked")
+    static <C> C newInstance(Class<?> template, C fallback, Class<?>[] parameterTypes, Object... arguments) {
+        Class<?> copy = copyOf(template);
+        if (copy == template) {
+            return fallback;
+        }
+
+        try {
+            Constructor<?> constructor = copy.getDeclaredConstructor(parameterTypes);
+            return (C) constructor.newInstance(arguments);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Defines a copy of the template class. Returns the template itself when copying is not possible.
+     *
+     * @param template a class to copy
+     * @return a copy of template class
+     */
+    static Class<?> copyOf(Class<?> template) {
+        if (LOOKUP_DEFINE_CLASS == null && LOADER_DEFINE_CLASS == null) {
+            return template;
+        }
+
+        try {
+            String name = template.getName().replace('.', '/');
+            String copyName = name + "$$Specialized" + COUNTER.incrementAndGet();
+            byte[] bytecode = rename(readBytecode(template), name, copyName);
+
+            if (LOOKUP_DEFINE_CLASS != null) {
+                return (Class<?>) LOOKUP_DEFINE_CLASS.invoke(MethodHandles.lookup(), (Object) bytecode);
+            }
+            return (Class<?>) LOADER_DEFINE_CLASS.invoke(template.getClassLoader(),
+                    copyName.replace('/', '.'), bytecode, 0, bytecode.length, template.getProtectionDomain());
+        } catch (IOException | ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return template;
+        }
+    }
+
+    private static byte[] readBytecode(Class<?> template) throws IOException {
+        String resource = template.getName().substring(template.getName().lastIndexOf('.') + 1) + ".class";
+        try (InputStream in = template.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Bytecode of " + template.getName() + " is not available");
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Rewrites every constant pool reference to a class name (both as a plain internal name and
+     * inside of type descriptors). The rest of the class file is copied verbatim.
+     */
+    private static byte[] rename(byte[] bytecode, String name, String newName) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytecode));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytecode.length + 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        out.writeInt(in.readInt());
+        out.writeShort(in.readUnsignedShort());
+        out.writeShort(in.readUnsignedShort());
+
+        String descriptor = 'L' + name + ';';
+        String newDescriptor = 'L' + newName + ';';
+
+        int constantCount = in.readUnsignedShort();
+        out.writeShort(constantCount);
+        for (int i = 1; i < constantCount; i++) {
+            int tag = in.readUnsignedByte();
+            out.writeByte(tag);
+            switch (tag) {
+                case 1: // Utf8
+                    String value = in.readUTF();
+                    out.writeUTF(value.equals(name) ? newName : value.replace(descriptor, newDescriptor));
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    out.writeShort(in.readUnsignedShort());
+                    break;
+                case 15: // MethodHandle
+                    out.writeByte(in.readUnsignedByte());
+                    out.writeShort(in.readUnsignedShort());
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    out.writeInt(in.readInt());
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    out.writeLong(in.readLong());
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unsupported constant pool tag " + tag);
+            }
+        }
+
+        byte[] rest = new byte[in.available()];
+        in.readFully(rest);
+        out.write(rest);
+        out.flush();
+
+        return buffer.toByteArray();
+    }
+
+    private static Method findLookupDefineClass() {
+        try {
+            return MethodHandles.Lookup.class.getMethod("defineClass", byte[].class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findLoaderDefineClass() {
+        try {
+            Method method = ClassLoader.class.getDeclaredMethod("defineClass",
+                    String.class, byte[].class, int.class, int.class, ProtectionDomain.class);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException | RuntimeException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Collection;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+final class CollectionComparison<T, R> implements Comparison<T> {
+
+    private final Function<T, Collection<R>> getter;
+    private final BiPredicate<R, R> equalizer;
+    private final ToIntFunction<R> hasher;
+    private final int parallelThreshold;
+
+    CollectionComparison(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher,
+                         int parallelThreshold) {
+        this.getter = getter;
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return EqualsUtils.collectionsEqual(getter.apply(a), getter.apply(b), equalizer, parallelThreshold);
+    }
+
+    @Override
+    public int hash(T value) {
+        Collection<R> collection = getter.apply(value);
+        if (collection == null) {
+            return 0;
+        }
+        return hasher == null ? collection.size() : EqualsUtils.hash(collection, hasher);
+    }
+
+    @Override
+    public Mismatch mismatch(int step, String label, T a, T b) {
+        Collection<R> first = getter.apply(a);
+        Collection<R> second = getter.apply(b);
+        if (first == null || second == null) {
+            return Mismatch.of(step, label);
+        }
+        return Mismatch.atIndex(step, label, EqualsUtils.mismatchIndex(first, second, equalizer));
+    }
+
+    @Override
+    public int size(T value) {
+        Collection<R> values = getter.apply(value);
+        return values == null ? -1 : values.size();
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putOrdered(getter.apply(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(CollectionComparison.class, this,
+                new Class<?>[]{Function.class, BiPredicate.class, ToIntFunction.class, int.class},
+                getter, equalizer, hasher, parallelThreshold);
+    }
+
+}
@@ -0,0 +1,53 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * A single precompiled step of an {@link EqualsSpec}. Implementations are immutable
+ * and compare one aspect (usually one field) of two non-null objects.
+ *
+ * @param <T> type of compared objects
+ */
+interface Comparison<T> {
+
+    boolean test(T a, T b);
+
+    /**
+     * Returns a hash code of the compared aspect of a non-null object, consistent with {@link #test(Object, Object)}:
+     * if two objects are considered equal, their hash codes are also equal.
+     */
+    int hash(T value);
+
+    /**
+     * Returns an equivalent comparison backed by a private copy of the implementing class,
+     * so that call sites inside of it get their own type profile.
+     *
+     * @see ClassSpecializer
+     */
+    Comparison<T> specialize();
+
+    /**
+     * Returns the size of the compared collection or map of an object, or -1 if the compared aspect
+     * is not a collection or map, or is {@code null}. Only used for metrics.
+     */
+    default int size(T value) {
+        return -1;
+    }
+
+    /**
+     * Puts the compared aspect of a non-null object into a sink, to be fingerprinted or encoded.
+     * Comparisons not knowing their values put the hash code.
+     *
+     * @see Fingerprinter
+     */
+    default void fold(T value, StructuredSink sink) {
+        sink.putInt(hash(value));
+    }
+
+    /**
+     * Describes how two objects differ in the compared aspect. Only invoked after {@link #test(Object, Object)}
+     * has returned false, so it may repeat the comparison in a slower, more detailed way.
+     */
+    default Mismatch mismatch(int step, String label, T a, T b) {
+        return Mismatch.of(step, label);
+    }
+
+}
@@ -0,0 +1,222 @@
+package net.arhipov.equalsbuilder;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of comparison results for immutable objects, shared by {@link EqualsSpec}s
+ * configured with {@link EqualsSpec#cached(ComparisonCache)}.
+ * <p>
+ * Results are keyed by the spec and the identities of both compared objects, so a cache
+ * must only be used with specs comparing immutable objects: if a compared object changes,
+ * a stale result is returned. Compared objects are only weakly referenced and never kept
+ * alive by the cache, while specs are referenced strongly.
+ * </p>
+ * <p>
+ * The cache is split into independently locked segments. Once a segment is full, entries are
+ * evicted with the clock algorithm, an approximation of LRU: every hit marks an entry as recently used,
+ * and the eviction hand skips marked entries once, clearing the mark. The hand does not skip entries
+ * which objects have been garbage collected, even if they are marked, but such entries are not looked for
+ * either: they stay in their segment, counted by {@link #size()}, until the hand reaches them.
+ * </p>
+ * <p>
+ * ComparisonCache is thread-safe.
+ * </p>
+ */
+public final class ComparisonCache {
+
+    static final int MISSING = -1;
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private static final class Entry extends WeakReference<Object> {
+        private final Object spec;
+        private final WeakReference<Object> second;
+        private final int hash;
+        private final boolean equal;
+        private Entry next;
+        private volatile boolean referenced;
+
+        Entry(Object spec, Object a, Object b, int hash, boolean equal) {
+            super(a);
+            this.spec = spec;
+            this.second = new WeakReference<>(b);
+            this.hash = hash;
+            this.equal = equal;
+        }
+
+        boolean matches(Object spec, Object a, Object b, int hash) {
+            return this.hash == hash && this.spec == spec && get() == a && second.get() == b;
+        }
+
+        boolean isCollected() {
+            return get() == null || second.get() == null;
+        }
+    }
+
+    private static final class Segment {
+        private final Entry[] buckets;
+        private final Entry[] ring;
+        private int hand;
+        private int size;
+
+        Segment(int capacity) {
+            this.buckets = new Entry[Integer.highestOneBit(capacity * 2 - 1) << 1];
+            this.ring = new Entry[capacity];
+        }
+
+        synchronized int lookup(Object spec, Object a, Object b, int hash) {
+            for (Entry e = buckets[hash & (buckets.length - 1)]; e != null; e = e.next) {
+                if (e.matches(spec, a, b, hash)) {
+                    e.referenced = true;
+                    return e.equal ? 1 : 0;
+                }
+            }
+            return MISSING;
+        }
+
+        synchronized void store(Object spec, Object a, Object b, int hash, boolean equal) {
+            int bucket = hash & (buckets.length - 1);
+            for (Entry e = buckets[bucket]; e != null; e = e.next) {
+                if (e.matches(spec, a, b, hash)) {
+                    return;
+                }
+            }
+
+            Entry entry = new Entry(spec, a, b, hash, equal);
+            if (size < ring.length) {
+                ring[size++] = entry;
+            } else {
+                while (ring[hand].referenced && !ring[hand].isCollected()) {
+                    ring[hand].referenced = false;
+                    hand = (hand + 1) % ring.length;
+                }
+                unlink(ring[hand]);
+                ring[hand] = entry;
+                hand = (hand + 1) % ring.length;
+            }
+
+            entry.next = buckets[bucket];
+            buckets[bucket] = entry;
+        }
+
+        synchronized void clear() {
+            Arrays.fill(buckets, null);
+            Arrays.fill(ring, null);
+            hand = 0;
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void unlink(Entry entry) {
+            int bucket = entry.hash & (buckets.length - 1);
+            if (buckets[bucket] == entry) {
+                buckets[bucket] = entry.next;
+                return;
+            }
+            for (Entry e = buckets[bucket]; e != null; e = e.next) {
+                if (e.next == entry) {
+                    e.next = entry.next;
+                    return;
+                }
+            }
+        }
+    }
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache holding at most the given number of comparison results.
+     *
+     * @param maximumSize maximal number of cached results
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public ComparisonCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maximumSize));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the remainder, so that the total capacity is exactly the maximum size
+            segments[i] = new Segment(maximumSize / count + (i < maximumSize % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the number of comparisons answered from the cache.
+     *
+     * @return number of cache hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of comparisons that had to be evaluated.
+     *
+     * @return number of cache misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of cached results, including ones which objects were garbage collected
+     * but have not been evicted yet.
+     *
+     * @return current number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes all cached results. Hit and miss counters are not reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns 1 or 0 if a result for the pair is cached, or {@link #MISSING} otherwise.
+     */
+    int lookup(Object spec, Object a, Object b) {
+        int hash = hash(spec, a, b);
+        int result = segmentFor(hash).lookup(spec, a, b, hash);
+        (result == MISSING ? misses : hits).increment();
+        return result;
+    }
+
+    void store(Object spec, Object a, Object b, boolean equal) {
+        int hash = hash(spec, a, b);
+        segmentFor(hash).store(spec, a, b, hash, equal);
+    }
+
+    private Segment segmentFor(int hash) {
+        // Buckets use the low bits, so segments are selected with the high ones
+        return segments[(hash >>> 24) & (segments.length - 1)];
+    }
+
+    private static int hash(Object spec, Object a, Object b) {
+        int hash = System.identityHashCode(spec);
+        hash = 31 * hash + System.identityHashCode(a);
+        hash = 31 * hash + System.identityHashCode(b);
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
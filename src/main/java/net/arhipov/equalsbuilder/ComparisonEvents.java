@@ -0,0 +1,58 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * Reports slow or large comparison steps to JDK Flight Recorder.
+ * <p>
+ * Flight Recorder is only available since Java 11, so this baseline version never reports anything
+ * and {@link #isRecording()} is a constant the JIT folds away. The multi-release jar replaces this class
+ * with a version from {@code META-INF/versions/11}, which commits {@code EqualsComparisonEvent}s
+ * while a recording has the event enabled.
+ * </p>
+ */
+final class ComparisonEvents {
+
+    private ComparisonEvents() {
+    }
+
+    /**
+     * Returns true if comparison steps should currently be reported.
+     */
+    static boolean isRecording() {
+        return false;
+    }
+
+    /**
+     * Starts timing a comparison step.
+     *
+     * @return an opaque event to pass to {@link #end}
+     */
+    static Object begin() {
+        return null;
+    }
+
+    /**
+     * Ends timing a comparison step.
+     *
+     * @param event an event returned by {@link #begin()}
+     * @return true if the step took long enough to be reported, so that sizes only need to be computed then
+     */
+    static boolean end(Object event) {
+        return false;
+    }
+
+    /**
+     * Reports a comparison step ended with {@link #end(Object)}, if it also crossed the size threshold.
+     *
+     * @param event an event returned by {@link #begin()}
+     * @param type the type of compared objects
+     * @param step index of the step in declaration order
+     * @param label name of the step, or {@code null}
+     * @param firstSize size of the first compared collection or map, or -1
+     * @param secondSize size of the second compared collection or map, or -1
+     * @param equal result of the step
+     */
+    static void commit(Object event, Class<?> type, int step, String label, int firstSize, int secondSize,
+                       boolean equal) {
+    }
+
+}
@@ -0,0 +1,63 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * Joins two comparisons with a short-circuiting AND. Specialized specs are evaluated
+ * as a balanced tree of private copies of this class, which keeps both call sites
+ * monomorphic and the inlining depth logarithmic in the number of comparisons.
+ *
+ * @param <T> type of compared objects
+ */
+final class ComparisonNode<T> implements Comparison<T> {
+
+    private final Comparison<T> left;
+    private final Comparison<T> right;
+
+    ComparisonNode(Comparison<T> left, Comparison<T> right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return left.test(a, b) && right.test(a, b);
+    }
+
+    @Override
+    public int hash(T value) {
+        return 31 * left.hash(value) + right.hash(value);
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        left.fold(value, sink);
+        right.fold(value, sink);
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(ComparisonNode.class, this,
+                new Class<?>[]{Comparison.class, Comparison.class}, left.specialize(), right.specialize());
+    }
+
+    /**
+     * Builds a balanced tree of specialized comparisons.
+     *
+     * @param comparisons a non-empty array of comparisons in evaluation order
+     * @param from        first index, inclusive
+     * @param to          last index, exclusive
+     * @param <T>         type of compared objects
+     * @return a root of the specialized tree
+     */
+    static <T> Comparison<T> specialize(Comparison<T>[] comparisons, int from, int to) {
+        if (to - from == 1) {
+            return comparisons[from].specialize();
+        }
+
+        int middle = (from + to) >>> 1;
+        Comparison<T> left = specialize(comparisons, from, middle);
+        Comparison<T> right = specialize(comparisons, middle, to);
+        return ClassSpecializer.newInstance(ComparisonNode.class, new ComparisonNode<>(left, right),
+                new Class<?>[]{Comparison.class, Comparison.class}, left, right);
+    }
+
+}
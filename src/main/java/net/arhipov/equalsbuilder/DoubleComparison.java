@@ -0,0 +1,33 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.function.ToDoubleFunction;
+
+final class DoubleComparison<T> implements Comparison<T> {
+
+    private final ToDoubleFunction<T> getter;
+
+    DoubleComparison(ToDoubleFunction<T> getter) {
+        this.getter = getter;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return getter.applyAsDouble(a) == getter.applyAsDouble(b);
+    }
+
+    @Override
+    public int hash(T value) {
+        return EqualsUtils.hash(getter.applyAsDouble(value));
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putDouble(getter.applyAsDouble(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(DoubleComparison.class, this, new Class<?>[]{ToDoubleFunction.class}, getter);
+    }
+
+}
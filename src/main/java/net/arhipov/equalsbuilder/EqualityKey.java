@@ -0,0 +1,116 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Objects;
+
+/**
+ * A hash key comparing the wrapped value with an {@link EqualsSpec}, for keying regular hash maps and sets
+ * by types which {@code equals} and {@code hashCode} can not be changed, e.g. third-party classes.
+ * <p>
+ * The hash code of the value is computed once, when the key is created, so the value must not change
+ * while the key is in use. Keys are only equal to keys created with the same spec instance.
+ * </p>
+ * <p>
+ * Looking up a map by a fresh key allocates it. Lookups on hot paths can reuse a single mutable
+ * {@link #probe(EqualsSpec) probe} key instead, pointing it at the value to look up before every lookup:
+ * </p>
+ * <pre>{@code
+ *  Map<EqualityKey<Point>, String> names = new HashMap<>();
+ *  names.put(EqualityKey.of(POINT, point), "origin");
+ *
+ *  EqualityKey<Point> probe = EqualityKey.probe(POINT);
+ *  String name = names.get(probe.set(otherPoint));
+ * }</pre>
+ * <p>
+ * A probe must never be stored in a map or set, as its hash code changes with every {@link #set(Object)},
+ * and it must not be shared between threads. Regular keys are immutable and thread-safe, as long as their
+ * values are. To avoid wrappers altogether, see {@link SpecHashMap} and {@link SpecHashSet}.
+ * </p>
+ *
+ * @param <T> type of the wrapped value
+ */
+public final class EqualityKey<T> {
+
+    private final EqualsSpec<T> spec;
+    private final boolean probe;
+    private T value;
+    private int hash;
+
+    private EqualityKey(EqualsSpec<T> spec, boolean probe, T value) {
+        this.spec = spec;
+        this.probe = probe;
+        this.value = value;
+        this.hash = spec.hashCode(value);
+    }
+
+    /**
+     * Creates an immutable key for the value.
+     *
+     * @param spec  a spec used to compare values and compute their hash codes
+     * @param value a wrapped value, might be {@code null}
+     * @param <T>   type of the wrapped value
+     * @return new EqualityKey instance
+     */
+    public static <T> EqualityKey<T> of(EqualsSpec<T> spec, T value) {
+        return new EqualityKey<>(Objects.requireNonNull(spec, "spec"), false, value);
+    }
+
+    /**
+     * Creates a reusable key for lookups, initially wrapping {@code null}.
+     *
+     * @param spec a spec used to compare values and compute their hash codes
+     * @param <T>  type of the wrapped value
+     * @return new mutable EqualityKey instance
+     */
+    public static <T> EqualityKey<T> probe(EqualsSpec<T> spec) {
+        return new EqualityKey<>(Objects.requireNonNull(spec, "spec"), true, null);
+    }
+
+    /**
+     * Points this probe at another value and computes its hash code.
+     *
+     * @param value a value to look up, might be {@code null}
+     * @return this probe
+     * @throws IllegalStateException if this key is not a probe
+     */
+    public EqualityKey<T> set(T value) {
+        if (!probe) {
+            throw new IllegalStateException("Only probe keys can be changed");
+        }
+
+        this.value = value;
+        this.hash = spec.hashCode(value);
+        return this;
+    }
+
+    /**
+     * Returns the wrapped value.
+     *
+     * @return the wrapped value, might be {@code null}
+     */
+    public T value() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof EqualityKey)) {
+            return false;
+        }
+
+        EqualityKey<?> other = (EqualityKey<?>) o;
+        return spec == other.spec && hash == other.hash && spec.test(value, other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "EqualityKey{" + value + '}';
+    }
+
+}
@@ -0,0 +1,177 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Equalizers and hashers chosen by the declared type of compared values, and equalizer decorators.
+ * <p>
+ * {@code Objects::equals} calls {@code equals} through a single call site shared by every field of every spec,
+ * which quickly becomes megamorphic, so the JIT can no longer inline it. The equalizers returned by
+ * {@link #forType(Class)} are separate classes with statically typed comparisons instead: enums are compared
+ * by reference, strings through the final {@code String.equals}, which the JIT inlines and vectorizes,
+ * boxed primitives by their primitive values and arrays with {@link Arrays}. Other types fall back
+ * to {@code Objects::equals}.
+ * </p>
+ * <p>
+ * Every equalizer gives the same result as {@code Objects::equals}, except for arrays, which are compared
+ * by content, and accepts {@code null} values. Hashers are consistent with equalizers of the same type.
+ * </p>
+ *
+ * @see EqualsSpec#comparing(java.util.function.Function, Class)
+ */
+public final class Equalizers {
+
+    private static final BiPredicate<Object, Object> REFERENCE = (a, b) -> a == b;
+    private static final BiPredicate<Object, Object> OBJECT = Objects::equals;
+    private static final BiPredicate<String, String> STRING = (a, b) -> a == b || (a != null && a.equals(b));
+    private static final BiPredicate<Integer, Integer> INTEGER =
+            (a, b) -> a == b || (a != null && b != null && a.intValue() == b.intValue());
+    private static final BiPredicate<Long, Long> LONG =
+            (a, b) -> a == b || (a != null && b != null && a.longValue() == b.longValue());
+    private static final BiPredicate<Short, Short> SHORT =
+            (a, b) -> a == b || (a != null && b != null && a.shortValue() == b.shortValue());
+    private static final BiPredicate<Byte, Byte> BYTE =
+            (a, b) -> a == b || (a != null && b != null && a.byteValue() == b.byteValue());
+    private static final BiPredicate<Character, Character> CHARACTER =
+            (a, b) -> a == b || (a != null && b != null && a.charValue() == b.charValue());
+    private static final BiPredicate<Boolean, Boolean> BOOLEAN =
+            (a, b) -> a == b || (a != null && b != null && a.booleanValue() == b.booleanValue());
+    // Like Double.equals, compares bits, so NaN equals itself and 0.0 does not equal -0.0
+    private static final BiPredicate<Double, Double> DOUBLE = (a, b) -> a == b
+            || (a != null && b != null && Double.doubleToLongBits(a) == Double.doubleToLongBits(b));
+    private static final BiPredicate<Float, Float> FLOAT = (a, b) -> a == b
+            || (a != null && b != null && Float.floatToIntBits(a) == Float.floatToIntBits(b));
+
+    private Equalizers() {
+    }
+
+    /**
+     * Returns the fastest equalizer for values of the given type, consistent with {@code Objects::equals}
+     * for everything but arrays. Arrays of primitives are compared with {@code Arrays.equals},
+     * other arrays with {@link Arrays#deepEquals(Object[], Object[])}.
+     *
+     * @param type declared type of compared values
+     * @param <R>  type of compared values
+     * @return an equalizer accepting {@code null} values
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> BiPredicate<R, R> forType(Class<R> type) {
+        return (BiPredicate<R, R>) equalizer(Objects.requireNonNull(type, "type"));
+    }
+
+    /**
+     * Returns a hasher for non-null values of the given type, consistent with {@link #forType(Class)}.
+     *
+     * @param type declared type of hashed values
+     * @param <R>  type of hashed values
+     * @return a hasher of non-null values
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> ToIntFunction<R> hasherFor(Class<R> type) {
+        return (ToIntFunction<R>) hasher(Objects.requireNonNull(type, "type"));
+    }
+
+    /**
+     * Wraps an equalizer, so that non-null values with different hash codes are rejected without invoking it.
+     * Meant for elements of {@code comparingCollections} and {@code comparingMaps}, which cache their hash codes
+     * and are expensive to compare, e.g. strings or objects compared by nested specs.
+     * The hasher must be consistent with the equalizer. If any of the values is {@code null},
+     * the equalizer is invoked directly.
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * EqualsSpec.of(Book.class)
+     *     .comparingCollections(Book::getChapters, Equalizers.hashGuarded(CHAPTER::test, Chapter::hashCode));
+     * }</pre>
+     *
+     * @param equalizer a method used to compare values with equal hash codes
+     * @param hasher    a method used to compute a hash code of a non-null value
+     * @param <R>       type of compared values
+     * @return an equalizer checking hash codes first
+     * @see EqualsSpec#withHashGuard(ToIntFunction)
+     */
+    public static <R> BiPredicate<R, R> hashGuarded(BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        Objects.requireNonNull(equalizer, "equalizer");
+        Objects.requireNonNull(hasher, "hasher");
+        return (a, b) -> a == null || b == null
+                ? equalizer.test(a, b)
+                : hasher.applyAsInt(a) == hasher.applyAsInt(b) && equalizer.test(a, b);
+    }
+
+    private static BiPredicate<?, ?> equalizer(Class<?> type) {
+        if (Enum.class.isAssignableFrom(type)) {
+            return REFERENCE;
+        } else if (type == String.class) {
+            return STRING;
+        } else if (type == Integer.class) {
+            return INTEGER;
+        } else if (type == Long.class) {
+            return LONG;
+        } else if (type == Double.class) {
+            return DOUBLE;
+        } else if (type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == Character.class) {
+            return CHARACTER;
+        } else if (type == Short.class) {
+            return SHORT;
+        } else if (type == Byte.class) {
+            return BYTE;
+        } else if (type == Float.class) {
+            return FLOAT;
+        } else if (type.isArray()) {
+            return arrayEqualizer(type.getComponentType());
+        }
+        return OBJECT;
+    }
+
+    private static BiPredicate<?, ?> arrayEqualizer(Class<?> component) {
+        if (component == int.class) {
+            return (BiPredicate<int[], int[]>) Arrays::equals;
+        } else if (component == long.class) {
+            return (BiPredicate<long[], long[]>) Arrays::equals;
+        } else if (component == double.class) {
+            return (BiPredicate<double[], double[]>) Arrays::equals;
+        } else if (component == byte.class) {
+            return (BiPredicate<byte[], byte[]>) Arrays::equals;
+        } else if (component == char.class) {
+            return (BiPredicate<char[], char[]>) Arrays::equals;
+        } else if (component == boolean.class) {
+            return (BiPredicate<boolean[], boolean[]>) Arrays::equals;
+        } else if (component == short.class) {
+            return (BiPredicate<short[], short[]>) Arrays::equals;
+        } else if (component == float.class) {
+            return (BiPredicate<float[], float[]>) Arrays::equals;
+        }
+        return (BiPredicate<Object[], Object[]>) Arrays::deepEquals;
+    }
+
+    private static ToIntFunction<?> hasher(Class<?> type) {
+        if (!type.isArray()) {
+            return (ToIntFunction<Object>) Object::hashCode;
+        }
+
+        Class<?> component = type.getComponentType();
+        if (component == int.class) {
+            return (ToIntFunction<int[]>) Arrays::hashCode;
+        } else if (component == long.class) {
+            return (ToIntFunction<long[]>) Arrays::hashCode;
+        } else if (component == double.class) {
+            return (ToIntFunction<double[]>) Arrays::hashCode;
+        } else if (component == byte.class) {
+            return (ToIntFunction<byte[]>) Arrays::hashCode;
+        } else if (component == char.class) {
+            return (ToIntFunction<char[]>) Arrays::hashCode;
+        } else if (component == boolean.class) {
+            return (ToIntFunction<boolean[]>) Arrays::hashCode;
+        } else if (component == short.class) {
+            return (ToIntFunction<short[]>) Arrays::hashCode;
+        } else if (component == float.class) {
+            return (ToIntFunction<float[]>) Arrays::hashCode;
+        }
+        return (ToIntFunction<Object[]>) Arrays::deepHashCode;
+    }
+
+}
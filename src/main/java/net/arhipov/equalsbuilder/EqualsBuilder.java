@@ -1,6 +1,8 @@
 package net.arhipov.equalsbuilder;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiPredicate;
@@ -112,6 +114,27 @@ public class EqualsBuilder<T> {
         return new EqualsBuilder<>(a, b, commonType);
     }
 
+    /**
+     * Returns a reusable spec comparing all instance fields of the given class, built once per class
+     * without reflection on the comparison path. Useful when objects should simply be compared
+     * field by field without listing every getter.
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * @Override
+     * public boolean equals(Object o) {
+     *     return EqualsBuilder.auto(Human.class).test(this, o);
+     * }
+     * }</pre>
+     *
+     * @param type a class which fields should be compared
+     * @param <T>  type of compared objects
+     * @return cached EqualsSpec instance comparing all fields of the class
+     * @see EqualsSpec#auto(Class)
+     */
+    public static <T> EqualsSpec<T> auto(Class<T> type) {
+        return EqualsSpec.auto(type);
+    }
+
     /**
      * Compare objects fields using getter.
      *
@@ -122,6 +145,21 @@ public class EqualsBuilder<T> {
         return comparing(getter, Objects::equals);
     }
 
+    /**
+     * Compare objects fields using getter and an equalizer picked by the declared type of the field.
+     * Enums are compared by reference, strings and boxed primitives without a megamorphic {@code equals} call,
+     * and arrays by content. The result is the same as with {@link #comparing(Function)} for all other types.
+     *
+     * @param getter a method applied to both objects to extract field (usually getter)
+     * @param type   declared type of the field
+     * @param <R>    a type of the extracted field
+     * @return EqualsBuilder instance
+     * @see Equalizers#forType(Class)
+     */
+    public <R> EqualsBuilder<T> comparing(Function<T, R> getter, Class<R> type) {
+        return comparing(getter, Equalizers.forType(type));
+    }
+
     /**
      * Compare objects fields using getter and a defined comparing function.
      * This method might be used to compare objects for equality deeply.
@@ -151,7 +189,8 @@ public class EqualsBuilder<T> {
      * Compares two collections of the same generic type extracted from objects with getter
      * using provided BiPredicate collections elements with each other. This method should
      * only be used for collections, where elements have order, such as List. Thus
-     * this method is not suitable for comparing sets.
+     * this method is not suitable for comparing sets, use
+     * {@link #comparingSets(Function, BiPredicate, ToIntFunction)} instead.
      * <p><b>Example:</b>
      * <pre>{@code
      * EqualsBuilder.test(first, second)
@@ -167,15 +206,83 @@ public class EqualsBuilder<T> {
      * @return EqualsBuilder instance
      */
     public <R> EqualsBuilder<T> comparingCollections(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer) {
-        if (skip) {
-            return this;
+        if (!skip && !EqualsUtils.collectionsEqual(getter.apply(a), getter.apply(b), equalizer)) {
+            skip = true;
+            equal = false;
         }
 
-        Collection<R> ca = getter.apply(a);
-        Collection<R> cb = getter.apply(b);
+        return this;
+    }
+
+    /**
+     * Compares two ordered collections like {@link #comparingCollections(Function, BiPredicate)} does,
+     * but splits random access lists having at least {@code parallelThreshold} elements into chunks compared
+     * in parallel on the common {@link java.util.concurrent.ForkJoinPool}. The first chunk that finds
+     * a mismatch cancels the remaining ones. Smaller lists and other collections are compared serially.
+     * The equalizer must be thread-safe.
+     *
+     * @param getter            a method applied to both objects to extract collections (usually getter)
+     * @param equalizer         a method used to compare two collection elements
+     * @param parallelThreshold a minimal size of lists compared in parallel
+     * @param <R>               a collection elements type
+     * @return EqualsBuilder instance
+     */
+    public <R> EqualsBuilder<T> comparingCollections(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer,
+                                                     int parallelThreshold) {
+        if (!skip && !EqualsUtils.collectionsEqual(getter.apply(a), getter.apply(b), equalizer, parallelThreshold)) {
+            skip = true;
+            equal = false;
+        }
 
-        if (ca != cb &&
-                (ca == null || cb == null || ca.size() != cb.size() || !EqualsUtils.areEqual(ca, cb, equalizer))) {
+        return this;
+    }
+
+    /**
+     * Compares two collections extracted with getter as sets, ignoring element order and multiplicity:
+     * every element of one collection must have an element considered equal by the equalizer
+     * in the other one. Elements are matched through a temporary hash table, so the comparison
+     * takes linear time. The hasher must be consistent with the equalizer and is never invoked
+     * with {@code null}.
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * EqualsBuilder.test(first, second)
+     *     .comparingSets(MyClass::getTags, String::equalsIgnoreCase, tag -> tag.toLowerCase().hashCode())
+     *     .areEqual();
+     * }</pre>
+     *
+     * @param getter    a method applied to both objects to extract collections (usually getter)
+     * @param equalizer a method used to compare two collection elements
+     * @param hasher    a method used to compute a hash code of non-null collection element
+     * @param <R>       a collection elements type
+     * @return EqualsBuilder instance
+     */
+    public <R> EqualsBuilder<T> comparingSets(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer,
+                                              ToIntFunction<R> hasher) {
+        if (!skip && !UnorderedEquality.setsEqual(getter.apply(a), getter.apply(b), equalizer, hasher)) {
+            skip = true;
+            equal = false;
+        }
+
+        return this;
+    }
+
+    /**
+     * Compares two collections extracted with getter as bags, ignoring element order:
+     * every group of elements considered equal by the equalizer must have the same size
+     * in both collections. Elements are matched through a temporary hash table, so the comparison
+     * takes linear time. The hasher must be consistent with the equalizer and is never invoked
+     * with {@code null}.
+     *
+     * @param getter    a method applied to both objects to extract collections (usually getter)
+     * @param equalizer a method used to compare two collection elements
+     * @param hasher    a method used to compute a hash code of non-null collection element
+     * @param <R>       a collection elements type
+     * @return EqualsBuilder instance
+     * @see #comparingSets(Function, BiPredicate, ToIntFunction)
+     */
+    public <R> EqualsBuilder<T> comparingBags(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer,
+                                              ToIntFunction<R> hasher) {
+        if (!skip && !UnorderedEquality.bagsEqual(getter.apply(a), getter.apply(b), equalizer, hasher)) {
             skip = true;
             equal = false;
         }
@@ -203,15 +310,34 @@ public class EqualsBuilder<T> {
      * @return EqualsBuilder instance
      */
     public <R> EqualsBuilder<T> comparingIterables(Function<T, Iterable<R>> getter, BiPredicate<R, R> equalizer) {
-        if (skip) {
-            return this;
+        if (!skip && !EqualsUtils.iterablesEqual(getter.apply(a), getter.apply(b), equalizer)) {
+            skip = true;
+            equal = false;
         }
 
-        Iterable<R> ca = getter.apply(a);
-        Iterable<R> cb = getter.apply(b);
+        return this;
+    }
 
-        if (ca != cb &&
-                (ca == null || cb == null || !EqualsUtils.areEqual(ca, cb, equalizer))) {
+    /**
+     * Compares two iterables extracted with getter, which are sorted by the comparator,
+     * with a single merge walk: elements at the same positions must be considered equal
+     * by the comparator and then by the equalizer. The equalizer is never invoked with {@code null}.
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * EqualsBuilder.test(first, second)
+     *     .comparingSorted(Ledger::getEntries, comparing(Entry::getId), (a, b) -> a.getAmount() == b.getAmount())
+     *     .areEqual();
+     * }</pre>
+     *
+     * @param getter     a method applied to both objects to extract sorted iterables (usually getter)
+     * @param comparator an order both iterables are sorted by
+     * @param equalizer  a method used to compare two elements matched by the comparator
+     * @param <R>        an iterable elements type
+     * @return EqualsBuilder instance
+     */
+    public <R> EqualsBuilder<T> comparingSorted(Function<T, Iterable<R>> getter, Comparator<? super R> comparator,
+                                                BiPredicate<R, R> equalizer) {
+        if (!skip && !EqualsUtils.sortedEqual(getter.apply(a), getter.apply(b), comparator, equalizer)) {
             skip = true;
             equal = false;
         }
@@ -245,35 +371,32 @@ public class EqualsBuilder<T> {
      * @return EqualsBuilder instance
      */
     public <K, R> EqualsBuilder<T> comparingMaps(Function<T, Map<K, R>> getter, BiPredicate<R, R> equalizer) {
-        if (skip) {
-            return this;
+        if (!skip && !EqualsUtils.mapsEqual(getter.apply(a), getter.apply(b), equalizer)) {
+            skip = true;
+            equal = false;
         }
 
-        Map<K, R> ma = getter.apply(a);
-        Map<K, R> mb = getter.apply(b);
+        return this;
+    }
 
-        if (ma == mb) {
-            return this;
-        } else if (ma == null || mb == null || ma.size() != mb.size()) {
+    /**
+     * Compares two maps like {@link #comparingMaps(Function, BiPredicate)} does, but splits entry sets
+     * of maps having at least {@code parallelThreshold} entries into chunks compared in parallel
+     * on the common {@link java.util.concurrent.ForkJoinPool}. The first chunk that finds a mismatch
+     * cancels the remaining ones. The equalizer must be thread-safe.
+     *
+     * @param getter            a method used to extract a map (usually a getter)
+     * @param equalizer         a method used to compare two map elements (values only)
+     * @param parallelThreshold a minimal size of maps compared in parallel
+     * @param <K>               a key type that is the same for both maps
+     * @param <R>               a value type for both maps
+     * @return EqualsBuilder instance
+     */
+    public <K, R> EqualsBuilder<T> comparingMaps(Function<T, Map<K, R>> getter, BiPredicate<R, R> equalizer,
+                                                 int parallelThreshold) {
+        if (!skip && !EqualsUtils.mapsEqual(getter.apply(a), getter.apply(b), equalizer, parallelThreshold)) {
             skip = true;
             equal = false;
-            return this;
-        }
-
-        for (Map.Entry<K, R> e : ma.entrySet()) {
-            K key = e.getKey();
-            R value = e.getValue();
-            if (value == null) {
-                if (mb.get(key) != null || !mb.containsKey(key)) {
-                    skip = true;
-                    equal = false;
-                    return this;
-                }
-            } else if (!equalizer.test(value, mb.get(key))) {
-                skip = true;
-                equal = false;
-                return this;
-            }
         }
 
         return this;
@@ -335,6 +458,58 @@ public class EqualsBuilder<T> {
         return this;
     }
 
+    /**
+     * Compare primitive int array fields of both objects using {@link Arrays#equals(int[], int[])}.
+     *
+     * @param getter a method applied to both objects to extract int array field (usually getter)
+     * @return EqualsBuilder instance
+     */
+    public EqualsBuilder<T> comparingIntArrays(Function<T, int[]> getter) {
+        return comparing(getter, Arrays::equals);
+    }
+
+    /**
+     * Compare primitive long array fields of both objects using {@link Arrays#equals(long[], long[])}.
+     *
+     * @param getter a method applied to both objects to extract long array field (usually getter)
+     * @return EqualsBuilder instance
+     */
+    public EqualsBuilder<T> comparingLongArrays(Function<T, long[]> getter) {
+        return comparing(getter, Arrays::equals);
+    }
+
+    /**
+     * Compare primitive double array fields of both objects using {@link Arrays#equals(double[], double[])}.
+     * Elements are compared by their bits, so {@code NaN} equals itself
+     * and {@code 0.0} does not equal {@code -0.0}, unlike {@link #comparing(ToDoubleFunction)}.
+     *
+     * @param getter a method applied to both objects to extract double array field (usually getter)
+     * @return EqualsBuilder instance
+     */
+    public EqualsBuilder<T> comparingDoubleArrays(Function<T, double[]> getter) {
+        return comparing(getter, Arrays::equals);
+    }
+
+    /**
+     * Compare primitive byte array fields of both objects using {@link Arrays#equals(byte[], byte[])}.
+     *
+     * @param getter a method applied to both objects to extract byte array field (usually getter)
+     * @return EqualsBuilder instance
+     */
+    public EqualsBuilder<T> comparingByteArrays(Function<T, byte[]> getter) {
+        return comparing(getter, Arrays::equals);
+    }
+
+    /**
+     * Compare primitive char array fields of both objects using {@link Arrays#equals(char[], char[])}.
+     *
+     * @param getter a method applied to both objects to extract char array field (usually getter)
+     * @return EqualsBuilder instance
+     */
+    public EqualsBuilder<T> comparingCharArrays(Function<T, char[]> getter) {
+        return comparing(getter, Arrays::equals);
+    }
+
     /**
      * Returns true if either objects are considered equal and false otherwise.
      * Objects are equal if they actually are references to the same object,
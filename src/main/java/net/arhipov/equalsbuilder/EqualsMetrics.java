@@ -0,0 +1,64 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * A listener notified about comparisons evaluated by an {@link EqualsSpec} configured
+ * with {@link EqualsSpec#withMetrics(EqualsMetrics)}.
+ * <p>
+ * Steps are identified by their index in declaration order, regardless of the order they are evaluated in.
+ * Only comparisons of two distinct, comparable objects are reported: comparing an object to itself,
+ * to {@code null} or to an object of another type does not evaluate any step.
+ * Implementations are invoked concurrently from all threads using the spec and must be thread-safe
+ * and cheap, e.g. backed by {@link java.util.concurrent.atomic.LongAdder}s.
+ * </p>
+ *
+ * @see LongAdderEqualsMetrics
+ */
+public interface EqualsMetrics {
+
+    /**
+     * Called after two objects were compared.
+     *
+     * @param evaluated number of steps evaluated before the result was known
+     * @param stoppedAt index of the step that found a mismatch, or -1 if objects are equal
+     */
+    void compared(int evaluated, int stoppedAt);
+
+    /**
+     * Called before a step is evaluated.
+     *
+     * @param step index of the step
+     */
+    default void evaluated(int step) {
+    }
+
+    /**
+     * Called before a collection or map step is evaluated with sizes of both compared values.
+     * A {@code null} value is reported with size -1.
+     *
+     * @param step   index of the step
+     * @param first  size of the value extracted from the first object
+     * @param second size of the value extracted from the second object
+     */
+    default void sizes(int step, int first, int second) {
+    }
+
+    /**
+     * Returns how often steps should be timed: on average one comparison out of the returned number
+     * is timed and reported with {@link #timed(int, long)}. Zero, the default, disables timing.
+     *
+     * @return sample interval for timings, or 0 to never time steps
+     */
+    default int sampleInterval() {
+        return 0;
+    }
+
+    /**
+     * Called with the duration of a sampled step evaluation.
+     *
+     * @param step  index of the step
+     * @param nanos duration of the step evaluation in nanoseconds
+     */
+    default void timed(int step, long nanos) {
+    }
+
+}
@@ -0,0 +1,932 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reusable, precompiled counterpart of {@link EqualsBuilder}.
+ * <p>
+ * EqualsSpec is declared once using the same {@code comparing} DSL as EqualsBuilder
+ * and is then evaluated any number of times with {@link #test(Object, Object)}.
+ * Unlike EqualsBuilder, evaluating a spec does not allocate anything, so it is best
+ * suited for {@code equals} methods on hot paths, e.g. objects used as hash keys.
+ * </p>
+ * <p>
+ * EqualsSpec instances are immutable and thread-safe. Every {@code comparing} call
+ * returns a new spec, leaving the original one untouched. The intended usage is
+ * to store the spec in a {@code static final} field:
+ * </p>
+ * <pre>{@code
+ *  class Human {
+ *      private static final EqualsSpec<Human> EQUALS = EqualsSpec.of(Human.class)
+ *          .comparing(Human::getName)
+ *          .comparing(Human::getSurname)
+ *          .comparing(Human::getAge);
+ *
+ *      @Override
+ *      public boolean equals(Object o) {
+ *          return EQUALS.test(this, o);
+ *      }
+ *
+ *      @Override
+ *      public int hashCode() {
+ *          return EQUALS.hashCode(this);
+ *      }
+ *  }
+ * }</pre>
+ * <p>
+ * The same field list drives both {@link #test(Object, Object)} and {@link #hashCode(Object)},
+ * so the two can never drift apart.
+ * </p>
+ * <p>
+ * On Java 11 and later, while a Flight Recorder recording has the {@code net.arhipov.equalsbuilder.EqualsComparison}
+ * event enabled, comparison steps slower than its threshold (20 ms by default) are reported with the compared type,
+ * step index and label, sizes of compared collections or maps and the result. The {@code minElements} setting
+ * restricts events to large collections and maps. Outside of recordings this costs nothing.
+ * </p>
+ *
+ * @param <T> common supertype of objects being compared
+ */
+public final class EqualsSpec<T> {
+
+    private final Class<T> commonType;
+    private final Comparison<T>[] comparisons;
+    private final Comparison<T>[] evaluationOrder;
+    private final String[] labels;
+    private final boolean cycleSafe;
+    private final ComparisonCache cache;
+    private final EqualsMetrics metrics;
+    private final ToIntFunction<T> hashGuard;
+    private final int[] evaluationIndices;
+    private final Comparison<T> specialized;
+
+    private EqualsSpec(Class<T> commonType, Comparison<T>[] comparisons, Comparison<T>[] evaluationOrder,
+                       String[] labels, boolean cycleSafe, ComparisonCache cache, EqualsMetrics metrics,
+                       ToIntFunction<T> hashGuard, Comparison<T> specialized) {
+        this.commonType = commonType;
+        this.comparisons = comparisons;
+        this.evaluationOrder = evaluationOrder;
+        this.labels = labels;
+        this.cycleSafe = cycleSafe;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.hashGuard = hashGuard;
+        this.evaluationIndices = indicesOf(evaluationOrder, comparisons);
+        this.specialized = specialized;
+    }
+
+    /**
+     * Creates an empty spec for objects of the given type. Like {@link EqualsBuilder#test(Object, Object)},
+     * the second object is only considered equal if it is an instance of the runtime class of the first one.
+     *
+     * @param type a class of compared objects, used mostly for type inference
+     * @param <T>  type of compared objects
+     * @return empty EqualsSpec instance
+     */
+    public static <T> EqualsSpec<T> of(Class<T> type) {
+        Objects.requireNonNull(type, "type");
+        Comparison<T>[] comparisons = newArray(0);
+        return new EqualsSpec<>(null, comparisons, comparisons, new String[0], false, null, null, null, null);
+    }
+
+    /**
+     * Creates an empty spec for objects sharing a common superclass.
+     * Like {@link EqualsBuilder#test(Object, Object, Class)}, the second object
+     * is only required to be an instance of a common type.
+     *
+     * @param commonType common super class for compared objects
+     * @param <T>        common superclass type
+     * @return empty EqualsSpec instance
+     */
+    public static <T> EqualsSpec<T> ofCommonType(Class<T> commonType) {
+        Objects.requireNonNull(commonType, "commonType");
+        Comparison<T>[] comparisons = newArray(0);
+        return new EqualsSpec<>(commonType, comparisons, comparisons, new String[0], false, null, null, null, null);
+    }
+
+    /**
+     * Returns a spec comparing all instance fields of the given class and its superclasses,
+     * except for static, transient and synthetic ones, in declaration order, superclass fields first.
+     * <p>
+     * Fields are introspected only once per class, and the resulting specialized spec is cached.
+     * Field values are read through method handles rather than reflection, primitive fields are
+     * compared without boxing, primitive arrays are compared with {@link Arrays#equals(int[], int[])}
+     * and its overloads, and other arrays with {@link Arrays#deepEquals(Object[], Object[])}.
+     * Other fields use the equalizer for their declared type, see {@link Equalizers#forType(Class)}.
+     * Every comparison is named after its field, see {@link #firstMismatch(Object, Object)}.
+     * Like {@link #of(Class)}, the second object must be an instance of the runtime class of the first one.
+     * </p>
+     *
+     * @param type a class which fields should be compared
+     * @param <T>  type of compared objects
+     * @return cached EqualsSpec instance comparing all fields of the class
+     * @throws IllegalArgumentException if the class is an interface, or its fields are not accessible
+     */
+    public static <T> EqualsSpec<T> auto(Class<T> type) {
+        return AutoSpecs.of(Objects.requireNonNull(type, "type"));
+    }
+
+    /**
+     * Compare objects fields using getter.
+     *
+     * @param getter a method applied to both objects to extract field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparing(Function<T, ?> getter) {
+        return comparing(getter, Objects::equals, Objects::hashCode);
+    }
+
+    /**
+     * Compare objects fields using getter and an equalizer picked by the declared type of the field.
+     * Enums are compared by reference, strings and boxed primitives without a megamorphic {@code equals} call,
+     * and arrays by content. The result is the same as with {@link #comparing(Function)} for all other types.
+     *
+     * @param getter a method applied to both objects to extract field (usually getter)
+     * @param type   declared type of the field
+     * @param <R>    a type of the extracted field
+     * @return new EqualsSpec instance
+     * @see Equalizers#forType(Class)
+     */
+    public <R> EqualsSpec<T> comparing(Function<T, R> getter, Class<R> type) {
+        return comparing(getter, Equalizers.forType(type), Equalizers.hasherFor(type));
+    }
+
+    /**
+     * Compare objects fields using getter and a defined comparing function.
+     * This method might be used to compare objects for equality deeply.
+     *
+     * @param getter    a method applied to both objects to extract field (usually getter)
+     * @param equalizer a method used to compare two objects
+     * @param <R>       a type of the extracted field
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparing(Function, BiPredicate)
+     */
+    public <R> EqualsSpec<T> comparing(Function<T, R> getter, BiPredicate<R, R> equalizer) {
+        return append(new ObjectComparison<>(getter, equalizer, null));
+    }
+
+    /**
+     * Compare objects fields using getter and a defined comparing function.
+     * The hasher is used by {@link #hashCode(Object)} and must be consistent with the equalizer.
+     * It is never invoked with {@code null}.
+     *
+     * @param getter    a method applied to both objects to extract field (usually getter)
+     * @param equalizer a method used to compare two objects
+     * @param hasher    a method used to compute a hash code of non-null field value
+     * @param <R>       a type of the extracted field
+     * @return new EqualsSpec instance
+     */
+    public <R> EqualsSpec<T> comparing(Function<T, R> getter, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        return append(new ObjectComparison<>(getter, equalizer, Objects.requireNonNull(hasher, "hasher")));
+    }
+
+    /**
+     * Compares two ordered collections extracted with getter element by element.
+     *
+     * @param getter    a method applied to both objects to extract collections (usually getter)
+     * @param equalizer a method used to compare two collection elements
+     * @param <R>       a collection elements type
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingCollections(Function, BiPredicate)
+     */
+    public <R> EqualsSpec<T> comparingCollections(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer) {
+        return append(new CollectionComparison<>(getter, equalizer, null, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Compares two ordered collections extracted with getter element by element.
+     * The hasher is used by {@link #hashCode(Object)} and must be consistent with the equalizer.
+     * It is never invoked with {@code null}.
+     *
+     * @param getter    a method applied to both objects to extract collections (usually getter)
+     * @param equalizer a method used to compare two collection elements
+     * @param hasher    a method used to compute a hash code of non-null collection element
+     * @param <R>       a collection elements type
+     * @return new EqualsSpec instance
+     */
+    public <R> EqualsSpec<T> comparingCollections(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer,
+                                                  ToIntFunction<R> hasher) {
+        return append(new CollectionComparison<>(getter, equalizer, Objects.requireNonNull(hasher, "hasher"),
+                Integer.MAX_VALUE));
+    }
+
+    /**
+     * Compares two ordered collections extracted with getter element by element,
+     * comparing random access lists having at least {@code parallelThreshold} elements in parallel.
+     * The equalizer must be thread-safe.
+     *
+     * @param getter            a method applied to both objects to extract collections (usually getter)
+     * @param equalizer         a method used to compare two collection elements
+     * @param parallelThreshold a minimal size of lists compared in parallel
+     * @param <R>               a collection elements type
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingCollections(Function, BiPredicate, int)
+     */
+    public <R> EqualsSpec<T> comparingCollections(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer,
+                                                  int parallelThreshold) {
+        return append(new CollectionComparison<>(getter, equalizer, null, parallelThreshold));
+    }
+
+    /**
+     * Compares two collections extracted with getter as sets, ignoring element order and multiplicity.
+     * The hasher must be consistent with the equalizer and is never invoked with {@code null}.
+     * Hashing a collection builds a temporary table to skip duplicate elements.
+     *
+     * @param getter    a method applied to both objects to extract collections (usually getter)
+     * @param equalizer a method used to compare two collection elements
+     * @param hasher    a method used to compute a hash code of non-null collection element
+     * @param <R>       a collection elements type
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingSets(Function, BiPredicate, ToIntFunction)
+     */
+    public <R> EqualsSpec<T> comparingSets(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer,
+                                           ToIntFunction<R> hasher) {
+        return append(new SetComparison<>(getter, equalizer, Objects.requireNonNull(hasher, "hasher")));
+    }
+
+    /**
+     * Compares two collections extracted with getter as bags, ignoring element order.
+     * The hasher must be consistent with the equalizer and is never invoked with {@code null}.
+     *
+     * @param getter    a method applied to both objects to extract collections (usually getter)
+     * @param equalizer a method used to compare two collection elements
+     * @param hasher    a method used to compute a hash code of non-null collection element
+     * @param <R>       a collection elements type
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingBags(Function, BiPredicate, ToIntFunction)
+     */
+    public <R> EqualsSpec<T> comparingBags(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer,
+                                           ToIntFunction<R> hasher) {
+        return append(new BagComparison<>(getter, equalizer, Objects.requireNonNull(hasher, "hasher")));
+    }
+
+    /**
+     * Compares two iterables extracted with getter element by element.
+     *
+     * @param getter    a method applied to both objects to extract iterables (usually getter)
+     * @param equalizer a method used to compare two iterable elements
+     * @param <R>       an iterable elements type
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingIterables(Function, BiPredicate)
+     */
+    public <R> EqualsSpec<T> comparingIterables(Function<T, Iterable<R>> getter, BiPredicate<R, R> equalizer) {
+        return append(new IterableComparison<>(getter, equalizer, null));
+    }
+
+    /**
+     * Compares two iterables extracted with getter element by element.
+     * The hasher is used by {@link #hashCode(Object)} and must be consistent with the equalizer.
+     * It is never invoked with {@code null}.
+     *
+     * @param getter    a method applied to both objects to extract iterables (usually getter)
+     * @param equalizer a method used to compare two iterable elements
+     * @param hasher    a method used to compute a hash code of non-null iterable element
+     * @param <R>       an iterable elements type
+     * @return new EqualsSpec instance
+     */
+    public <R> EqualsSpec<T> comparingIterables(Function<T, Iterable<R>> getter, BiPredicate<R, R> equalizer,
+                                                ToIntFunction<R> hasher) {
+        return append(new IterableComparison<>(getter, equalizer, Objects.requireNonNull(hasher, "hasher")));
+    }
+
+    /**
+     * Compares two iterables extracted with getter, which the caller guarantees to be sorted
+     * by the comparator, with a single merge walk. Elements are matched by the comparator
+     * and then compared with the equalizer, which is never invoked with {@code null}.
+     * {@link #firstMismatch(Object, Object)} reports the first added, removed or changed element as a key.
+     *
+     * @param getter     a method applied to both objects to extract sorted iterables (usually getter)
+     * @param comparator an order both iterables are sorted by
+     * @param equalizer  a method used to compare two elements matched by the comparator
+     * @param <R>        an iterable elements type
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingSorted(Function, Comparator, BiPredicate)
+     * @see SortedDiff#of(Iterable, Iterable, Comparator, BiPredicate)
+     */
+    public <R> EqualsSpec<T> comparingSorted(Function<T, Iterable<R>> getter, Comparator<? super R> comparator,
+                                             BiPredicate<R, R> equalizer) {
+        return append(new SortedComparison<>(getter, Objects.requireNonNull(comparator, "comparator"), equalizer,
+                null));
+    }
+
+    /**
+     * Compares two iterables extracted with getter, which the caller guarantees to be sorted
+     * by the comparator, with a single merge walk.
+     * The hasher is used by {@link #hashCode(Object)} and must be consistent with the equalizer.
+     * It is never invoked with {@code null}.
+     *
+     * @param getter     a method applied to both objects to extract sorted iterables (usually getter)
+     * @param comparator an order both iterables are sorted by
+     * @param equalizer  a method used to compare two elements matched by the comparator
+     * @param hasher     a method used to compute a hash code of non-null iterable element
+     * @param <R>        an iterable elements type
+     * @return new EqualsSpec instance
+     * @see #comparingSorted(Function, Comparator, BiPredicate)
+     */
+    public <R> EqualsSpec<T> comparingSorted(Function<T, Iterable<R>> getter, Comparator<? super R> comparator,
+                                             BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        return append(new SortedComparison<>(getter, Objects.requireNonNull(comparator, "comparator"), equalizer,
+                Objects.requireNonNull(hasher, "hasher")));
+    }
+
+    /**
+     * Compares two maps extracted with a getter by their <b>values</b>.
+     *
+     * @param getter    a method used to extract a map (usually a getter)
+     * @param equalizer a method used to compare two map elements (values only)
+     * @param <K>       a key type that is the same for both maps
+     * @param <R>       a value type for both maps
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingMaps(Function, BiPredicate)
+     */
+    public <K, R> EqualsSpec<T> comparingMaps(Function<T, Map<K, R>> getter, BiPredicate<R, R> equalizer) {
+        return append(new MapComparison<>(getter, equalizer, null, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Compares two maps extracted with a getter by their <b>values</b>.
+     * The hasher is used by {@link #hashCode(Object)} and must be consistent with the equalizer.
+     * It is never invoked with {@code null}. Keys are hashed with their own {@code hashCode}.
+     *
+     * @param getter    a method used to extract a map (usually a getter)
+     * @param equalizer a method used to compare two map elements (values only)
+     * @param hasher    a method used to compute a hash code of non-null map value
+     * @param <K>       a key type that is the same for both maps
+     * @param <R>       a value type for both maps
+     * @return new EqualsSpec instance
+     */
+    public <K, R> EqualsSpec<T> comparingMaps(Function<T, Map<K, R>> getter, BiPredicate<R, R> equalizer,
+                                              ToIntFunction<R> hasher) {
+        return append(new MapComparison<>(getter, equalizer, Objects.requireNonNull(hasher, "hasher"),
+                Integer.MAX_VALUE));
+    }
+
+    /**
+     * Compares two maps extracted with a getter by their <b>values</b>,
+     * comparing maps having at least {@code parallelThreshold} entries in parallel.
+     * The equalizer must be thread-safe.
+     *
+     * @param getter            a method used to extract a map (usually a getter)
+     * @param equalizer         a method used to compare two map elements (values only)
+     * @param parallelThreshold a minimal size of maps compared in parallel
+     * @param <K>               a key type that is the same for both maps
+     * @param <R>               a value type for both maps
+     * @return new EqualsSpec instance
+     * @see EqualsBuilder#comparingMaps(Function, BiPredicate, int)
+     */
+    public <K, R> EqualsSpec<T> comparingMaps(Function<T, Map<K, R>> getter, BiPredicate<R, R> equalizer,
+                                              int parallelThreshold) {
+        return append(new MapComparison<>(getter, equalizer, null, parallelThreshold));
+    }
+
+    /**
+     * Compare primitive int fields of both objects.
+     *
+     * @param getter a method applied to both objects to extract int field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparing(ToIntFunction<T> getter) {
+        return append(new IntComparison<>(getter));
+    }
+
+    /**
+     * Compare primitive long fields of both objects.
+     *
+     * @param getter a method applied to both objects to extract long field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparing(ToLongFunction<T> getter) {
+        return append(new LongComparison<>(getter));
+    }
+
+    /**
+     * Compare primitive double fields of both objects.
+     *
+     * @param getter a method applied to both objects to extract double field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparing(ToDoubleFunction<T> getter) {
+        return append(new DoubleComparison<>(getter));
+    }
+
+    /**
+     * Compare primitive boolean fields of both objects.
+     *
+     * @param getter a method applied to both objects to extract boolean field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparing(Predicate<T> getter) {
+        return append(new BooleanComparison<>(getter));
+    }
+
+    /**
+     * Compare primitive int array fields of both objects using {@link Arrays#equals(int[], int[])}.
+     *
+     * @param getter a method applied to both objects to extract int array field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparingIntArrays(Function<T, int[]> getter) {
+        return append(new ArrayComparison<>(getter, Arrays::equals, Arrays::hashCode, ArrayMismatch::mismatch));
+    }
+
+    /**
+     * Compare primitive long array fields of both objects using {@link Arrays#equals(long[], long[])}.
+     *
+     * @param getter a method applied to both objects to extract long array field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparingLongArrays(Function<T, long[]> getter) {
+        return append(new ArrayComparison<>(getter, Arrays::equals, Arrays::hashCode, ArrayMismatch::mismatch));
+    }
+
+    /**
+     * Compare primitive double array fields of both objects using {@link Arrays#equals(double[], double[])}.
+     * Elements are compared by their bits, so {@code NaN} equals itself
+     * and {@code 0.0} does not equal {@code -0.0}, unlike {@link #comparing(ToDoubleFunction)}.
+     *
+     * @param getter a method applied to both objects to extract double array field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparingDoubleArrays(Function<T, double[]> getter) {
+        return append(new ArrayComparison<>(getter, Arrays::equals, Arrays::hashCode, ArrayMismatch::mismatch));
+    }
+
+    /**
+     * Compare primitive byte array fields of both objects using {@link Arrays#equals(byte[], byte[])}.
+     *
+     * @param getter a method applied to both objects to extract byte array field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparingByteArrays(Function<T, byte[]> getter) {
+        return append(new ArrayComparison<>(getter, Arrays::equals, Arrays::hashCode, ArrayMismatch::mismatch));
+    }
+
+    /**
+     * Compare primitive char array fields of both objects using {@link Arrays#equals(char[], char[])}.
+     *
+     * @param getter a method applied to both objects to extract char array field (usually getter)
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> comparingCharArrays(Function<T, char[]> getter) {
+        return append(new ArrayComparison<>(getter, Arrays::equals, Arrays::hashCode, ArrayMismatch::mismatch));
+    }
+
+    /**
+     * Returns an equivalent spec that is safe to use for object graphs with cycles and shared subgraphs.
+     * <p>
+     * Deep comparisons are expressed by nesting specs, e.g. {@code .comparing(Node::getParent, NODE::test)}.
+     * With back-references, such as parent and child pointing to each other, plain specs recurse until
+     * the stack overflows, and subgraphs reachable through several paths are compared once per path.
+     * A cycle-safe spec remembers object pairs it has visited during a top-level comparison: a pair
+     * reached again while its comparison is still in progress is assumed to be equal, which resolves
+     * the cycle, and a pair that was already compared reuses its result.
+     * </p>
+     * <p>
+     * Every spec taking part in the recursion must be cycle-safe. Visited pairs are kept in a reusable
+     * per-thread identity table, which is cleared when the top-level comparison ends. Cycle safety only
+     * applies to {@link #test(Object, Object)}: hashers must not follow back-references.
+     * Specs derived from this one with {@code comparing}, {@link #named(String)} or {@link #specialize()}
+     * remain cycle-safe.
+     * </p>
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * class Node {
+     *     private static final EqualsSpec<Node> EQUALS = EqualsSpec.of(Node.class)
+     *         .comparing(Node::getName)
+     *         .comparing(Node::getParent, (a, b) -> Node.EQUALS.test(a, b))
+     *         .comparingCollections(Node::getChildren, (a, b) -> Node.EQUALS.test(a, b))
+     *         .cycleSafe();
+     * }
+     * }</pre>
+     *
+     * @return new cycle-safe EqualsSpec instance
+     */
+    public EqualsSpec<T> cycleSafe() {
+        return new EqualsSpec<>(commonType, comparisons, evaluationOrder, labels, true, cache, metrics,
+                hashGuard, specialized);
+    }
+
+    /**
+     * Returns an equivalent spec memoizing results of {@link #test(Object, Object)} in the given cache.
+     * <p>
+     * Caching pays off when the same deep object graphs are compared over and over, e.g. every request
+     * is compared to the current configuration snapshot. Results are keyed by object identities,
+     * so this is only correct for <b>immutable</b> objects. The cache only holds weak references
+     * to compared objects, has a bounded size and can be shared by several specs and threads.
+     * Specs derived from this one with {@code comparing} or {@link #specialize()} use the same cache
+     * under their own keys.
+     * </p>
+     *
+     * @param cache a cache for comparison results
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> cached(ComparisonCache cache) {
+        Objects.requireNonNull(cache, "cache");
+        return new EqualsSpec<>(commonType, comparisons, evaluationOrder, labels, cycleSafe, cache, metrics,
+                hashGuard, specialized);
+    }
+
+    /**
+     * Returns an equivalent spec reporting evaluated steps, early exits, collection sizes and,
+     * optionally, sampled step timings to the given listener. Steps are identified by their index
+     * in declaration order. Specs without metrics do not pay anything for this feature.
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * LongAdderEqualsMetrics metrics = new LongAdderEqualsMetrics(3, 1024);
+     * EqualsSpec<Human> spec = EqualsSpec.of(Human.class)
+     *     .comparing(Human::getName)
+     *     .comparing(Human::getSurname)
+     *     .comparingCollections(Human::getFavoriteWords, Objects::equals)
+     *     .withMetrics(metrics);
+     * }</pre>
+     *
+     * @param metrics a listener notified about comparisons
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> withMetrics(EqualsMetrics metrics) {
+        Objects.requireNonNull(metrics, "metrics");
+        return new EqualsSpec<>(commonType, comparisons, evaluationOrder, labels, cycleSafe, cache, metrics,
+                hashGuard, specialized);
+    }
+
+    /**
+     * Returns an equivalent spec comparing hash codes of both objects before any of its comparisons.
+     * If hash codes differ, objects are not equal and the comparisons are skipped.
+     * <p>
+     * This only pays off if hash codes are cheap, usually because they are cached in a field,
+     * as {@code String} does, and the comparisons are expensive, e.g. walk nested specs or collections.
+     * The hasher must be consistent with the comparisons: equal objects must have equal hash codes.
+     * For guarding elements of collections and maps, see {@link Equalizers#hashGuarded(BiPredicate, ToIntFunction)}.
+     * </p>
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * EqualsSpec<Document> spec = EqualsSpec.of(Document.class)
+     *     .comparing(Document::getTitle)
+     *     .comparingCollections(Document::getParagraphs, PARAGRAPH::test)
+     *     .withHashGuard(Document::cachedHashCode);
+     * }</pre>
+     *
+     * @param hasher a function returning a hash code of a non-null object
+     * @return new EqualsSpec instance
+     */
+    public EqualsSpec<T> withHashGuard(ToIntFunction<T> hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        return new EqualsSpec<>(commonType, comparisons, evaluationOrder, labels, cycleSafe, cache, metrics,
+                hasher, specialized);
+    }
+
+    /**
+     * Labels the most recently added comparison. Labels do not affect equality and are only
+     * reported by {@link #firstMismatch(Object, Object)}.
+     * <p><b>Example:</b>
+     * <pre>{@code
+     * EqualsSpec.of(Human.class)
+     *     .comparing(Human::getName).named("name")
+     *     .comparing(Human::getAge).named("age");
+     * }</pre>
+     *
+     * @param label a label of the most recently added comparison
+     * @return new EqualsSpec instance
+     * @throws IllegalStateException if no comparison was added yet
+     */
+    public EqualsSpec<T> named(String label) {
+        Objects.requireNonNull(label, "label");
+        if (comparisons.length == 0) {
+            throw new IllegalStateException("There is no comparison to name");
+        }
+
+        String[] renamed = labels.clone();
+        renamed[renamed.length - 1] = label;
+        return derive(comparisons, evaluationOrder, renamed, specialized);
+    }
+
+    /**
+     * Returns an equivalent spec compiled into classes generated specifically for it.
+     * <p>
+     * A plain spec evaluates every comparison through shared library code, so once
+     * several getters pass through the same call site it becomes megamorphic
+     * and getters can no longer be inlined. A specialized spec gets private copies
+     * of comparison classes for each of its getters, so the JIT sees every getter
+     * call as monomorphic and can compile the spec down to the equivalent of
+     * a hand-written {@code equals}.
+     * </p>
+     * <p>
+     * Generated classes are never unloaded, so this method is intended to be called once,
+     * when the spec is stored into a {@code static final} field. Further {@code comparing}
+     * calls on a specialized spec return a regular spec. If classes can not be generated
+     * in the current environment, an equivalent non-specialized spec is returned.
+     * </p>
+     *
+     * @return specialized EqualsSpec instance
+     */
+    public EqualsSpec<T> specialize() {
+        if (comparisons.length == 0) {
+            return this;
+        }
+        return derive(comparisons, evaluationOrder, labels,
+                ComparisonNode.specialize(evaluationOrder, 0, evaluationOrder.length));
+    }
+
+    /**
+     * Returns an adaptive spec that learns a faster evaluation order for these comparisons,
+     * sampling one call out of 64 on average and reordering after every 1024 samples.
+     *
+     * @return new AdaptiveEqualsSpec instance
+     * @see AdaptiveEqualsSpec
+     */
+    public AdaptiveEqualsSpec<T> adaptive() {
+        return adaptive(64, 1024);
+    }
+
+    /**
+     * Returns an adaptive spec that learns a faster evaluation order for these comparisons.
+     *
+     * @param sampleInterval  on average one call out of sampleInterval is measured
+     * @param reorderInterval a number of measured calls after which comparisons are reordered
+     * @return new AdaptiveEqualsSpec instance
+     * @see AdaptiveEqualsSpec
+     */
+    public AdaptiveEqualsSpec<T> adaptive(int sampleInterval, int reorderInterval) {
+        return new AdaptiveEqualsSpec<>(this, sampleInterval, reorderInterval);
+    }
+
+    /**
+     * Returns true if both objects are considered equal by this spec and false otherwise.
+     * Objects are equal if they actually are references to the same object, both objects are null,
+     * or the second object has a compatible type and every declared comparison succeeds.
+     * Comparisons are evaluated in declaration order and stop at the first mismatch.
+     *
+     * @param a typed object to be compared
+     * @param b untyped object to be compared
+     * @return true if objects are equal and false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public boolean test(T a, Object b) {
+        if (a == b) {
+            return true;
+        } else if (!isComparable(a, b)) {
+            return false;
+        }
+
+        T tb = (T) b;
+        if (hashesDiffer(a, tb)) {
+            return false;
+        } else if (cache == null) {
+            return compare(a, tb);
+        }
+
+        int cached = cache.lookup(this, a, tb);
+        if (cached != ComparisonCache.MISSING) {
+            return cached == 1;
+        }
+
+        // Results relying on a cycle assumed equal are only final for the top-level comparison
+        boolean nested = cycleSafe && IdentityPairs.inProgress();
+        boolean equal = compare(a, tb);
+        if (!nested) {
+            cache.store(this, a, tb, equal);
+        }
+        return equal;
+    }
+
+    private boolean compare(T a, T b) {
+        return cycleSafe ? IdentityPairs.test(this, a, b) : evaluate(a, b);
+    }
+
+    /**
+     * Finds the first comparison, in declaration order, considering objects not equal.
+     * <p>
+     * This is a diagnostic counterpart of {@link #test(Object, Object)}: it returns {@code null}
+     * exactly when {@code test} returns true, and otherwise describes the mismatch, including
+     * the index of the first differing element of collections or the key of the first differing
+     * map entry. Locating elements and entries takes a second, slower pass over the failing step,
+     * so this method should only be called once {@code test} has returned false, e.g. for logging.
+     * {@code test} itself does not pay anything for labels or diagnostics.
+     * </p>
+     *
+     * @param a typed object to be compared
+     * @param b untyped object to be compared
+     * @return the first mismatch, or {@code null} if objects are equal
+     */
+    @SuppressWarnings("unchecked")
+    public Mismatch firstMismatch(T a, Object b) {
+        if (a == b) {
+            return null;
+        } else if (!isComparable(a, b)) {
+            return Mismatch.of(-1, null);
+        }
+
+        T tb = (T) b;
+        for (int i = 0; i < comparisons.length; i++) {
+            if (!comparisons[i].test(a, tb)) {
+                return comparisons[i].mismatch(i, labels[i], a, tb);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns a hash code of an object computed from the same fields this spec compares,
+     * so that objects equal according to {@link #test(Object, Object)} always have equal hash codes.
+     * <p>
+     * Field hashes are combined as {@code 31 * result + hash}, starting with 1. For primitives and
+     * fields compared with {@link #comparing(Function)} this gives the same result as {@code Objects.hash}
+     * (except for {@code -0.0}, which hashes like {@code 0.0}), but without boxing or allocating
+     * a varargs array. Fields compared with a custom equalizer only contribute to the hash code
+     * if a hasher was provided for them. Collections and maps without a hasher contribute their size.
+     * </p>
+     *
+     * @param value an object to compute the hash code for
+     * @return hash code of the object, or 0 for {@code null}
+     */
+    public int hashCode(T value) {
+        if (value == null) {
+            return 0;
+        }
+
+        int result = 1;
+        for (Comparison<T> comparison : comparisons) {
+            result = 31 * result + comparison.hash(value);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates comparisons for two distinct, comparable objects.
+     */
+    boolean evaluate(T a, T b) {
+        if (metrics != null || ComparisonEvents.isRecording()) {
+            return evaluateObserved(a, b);
+        } else if (specialized != null) {
+            return specialized.test(a, b);
+        }
+
+        for (Comparison<T> comparison : evaluationOrder) {
+            if (!comparison.test(a, b)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Evaluates comparisons one by one, reporting them to the metrics, to Flight Recorder, or to both.
+     */
+    private boolean evaluateObserved(T a, T b) {
+        boolean recording = ComparisonEvents.isRecording();
+        int interval = metrics == null ? 0 : metrics.sampleInterval();
+        boolean timed = interval > 0 && (interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0);
+
+        for (int i = 0; i < evaluationOrder.length; i++) {
+            Comparison<T> comparison = evaluationOrder[i];
+            int step = evaluationIndices[i];
+            int firstSize = -1;
+            int secondSize = -1;
+            if (metrics != null) {
+                firstSize = comparison.size(a);
+                secondSize = comparison.size(b);
+                if (firstSize >= 0 || secondSize >= 0) {
+                    metrics.sizes(step, firstSize, secondSize);
+                }
+                metrics.evaluated(step);
+            }
+
+            Object event = recording ? ComparisonEvents.begin() : null;
+            long start = timed ? System.nanoTime() : 0;
+            boolean equal = comparison.test(a, b);
+            if (timed) {
+                metrics.timed(step, System.nanoTime() - start);
+            }
+            if (recording && ComparisonEvents.end(event)) {
+                // Without metrics, sizes are only computed for steps slow enough to be reported
+                if (metrics == null) {
+                    firstSize = comparison.size(a);
+                    secondSize = comparison.size(b);
+                }
+                ComparisonEvents.commit(event, a.getClass(), step, labels[step], firstSize, secondSize, equal);
+            }
+
+            if (!equal) {
+                if (metrics != null) {
+                    metrics.compared(i + 1, step);
+                }
+                return false;
+            }
+        }
+
+        if (metrics != null) {
+            metrics.compared(evaluationOrder.length, -1);
+        }
+        return true;
+    }
+
+    /**
+     * Returns a spec with the same comparisons, evaluated in a different order.
+     * Hash codes are not affected, as they are always computed in declaration order.
+     * Other options, like cycle safety, the cache and metrics, are kept.
+     *
+     * @param order indices of comparisons in declaration order, in the order they should be evaluated
+     */
+    EqualsSpec<T> reorder(int[] order) {
+        Comparison<T>[] reordered = newArray(order.length);
+        for (int i = 0; i < order.length; i++) {
+            reordered[i] = comparisons[order[i]];
+        }
+        // A specialized spec stays specialized, as a tree built for the new order
+        Comparison<T> tree = specialized == null ? null : ComparisonNode.specialize(reordered, 0, reordered.length);
+        return derive(comparisons, reordered, labels, tree);
+    }
+
+    /**
+     * Returns true if the hash guard tells that two distinct, comparable objects are not equal.
+     */
+    boolean hashesDiffer(T a, T b) {
+        return hashGuard != null && hashGuard.applyAsInt(a) != hashGuard.applyAsInt(b);
+    }
+
+    /**
+     * Checks that two distinct objects may be compared field by field: both are non-null
+     * and the second object is an instance of a common type.
+     */
+    boolean isComparable(T a, Object b) {
+        return a != null && b != null && (commonType == null ? a.getClass() : commonType).isInstance(b);
+    }
+
+    /**
+     * Returns the metrics listener of this spec, or {@code null}.
+     */
+    EqualsMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns comparisons in declaration order. The returned array must not be modified.
+     */
+    Comparison<T>[] comparisons() {
+        return comparisons;
+    }
+
+    private EqualsSpec<T> append(Comparison<T> comparison) {
+        Comparison<T>[] extended = Arrays.copyOf(comparisons, comparisons.length + 1);
+        extended[comparisons.length] = comparison;
+
+        Comparison<T>[] extendedOrder = extended;
+        if (evaluationOrder != comparisons) {
+            extendedOrder = Arrays.copyOf(evaluationOrder, evaluationOrder.length + 1);
+            extendedOrder[evaluationOrder.length] = comparison;
+        }
+        String[] extendedLabels = Arrays.copyOf(labels, extended.length);
+        return derive(extended, extendedOrder, extendedLabels, null);
+    }
+
+    /**
+     * Creates a spec with different comparisons and the same options as this one.
+     */
+    private EqualsSpec<T> derive(Comparison<T>[] comparisons, Comparison<T>[] evaluationOrder, String[] labels,
+                                 Comparison<T> specialized) {
+        return new EqualsSpec<>(commonType, comparisons, evaluationOrder, labels, cycleSafe, cache, metrics,
+                hashGuard, specialized);
+    }
+
+    /**
+     * Returns declaration indices of comparisons in evaluation order, in linear time, as specs are derived
+     * on every builder call.
+     */
+    private static <T> int[] indicesOf(Comparison<T>[] evaluationOrder, Comparison<T>[] comparisons) {
+        int[] indices = new int[evaluationOrder.length];
+        if (evaluationOrder == comparisons) {
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = i;
+            }
+            return indices;
+        }
+
+        Map<Comparison<T>, Integer> positions = new IdentityHashMap<>(comparisons.length);
+        for (int j = 0; j < comparisons.length; j++) {
+            positions.putIfAbsent(comparisons[j], j);
+        }
+        for (int i = 0; i < evaluationOrder.length; i++) {
+            indices[i] = positions.get(evaluationOrder[i]);
+        }
+        return indices;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Comparison<T>[] newArray(int length) {
+        return (Comparison<T>[]) new Comparison<?>[length];
+    }
+
+}
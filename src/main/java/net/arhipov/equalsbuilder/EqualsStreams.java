@@ -0,0 +1,223 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Stream operations using an {@link EqualsSpec} instead of {@code equals} and {@code hashCode} of elements.
+ * <p>
+ * Unlike {@link Stream#distinct()}, {@link #distinctBy(Stream, EqualsSpec)} removes elements equal
+ * by a spec, so records can be deduplicated by a subset of their fields without wrapping them into key
+ * objects or sorting them first. Seen elements are indexed by their hash codes in open-addressing
+ * tables (see {@link SpecHashMap}), which hold the elements themselves and no per-element nodes.
+ * The spec is never invoked with {@code null}: {@code null} elements are deduplicated among themselves.
+ * </p>
+ * <pre>{@code
+ * List<Order> unique = orders.stream()
+ *         .collect(EqualsStreams.distinctBy(BY_CUSTOMER_AND_DATE));
+ *
+ * Stream<Event> deduplicated = EqualsStreams.distinctBy(events, BY_ID, 100_000);
+ * }</pre>
+ */
+public final class EqualsStreams {
+
+    private static final int STRIPES = 16;
+
+    private EqualsStreams() {
+    }
+
+    /**
+     * Returns a collector of distinct elements into a list in encounter order, keeping the first one
+     * of equal elements. Parallel streams are collected into independent indices, which are then merged.
+     *
+     * @param spec a spec elements are compared with
+     * @param <T>  type of elements
+     * @return a collector of distinct elements
+     */
+    public static <T> Collector<T, ?, List<T>> distinctBy(EqualsSpec<T> spec) {
+        Objects.requireNonNull(spec, "spec");
+        return Collector.of(
+                () -> new DistinctList<>(spec),
+                DistinctList::add,
+                DistinctList::addAll,
+                list -> list.elements);
+    }
+
+    /**
+     * Returns a lazy stream of distinct elements of the stream, which is a stateful intermediate operation
+     * like {@link Stream#distinct()}. Elements are remembered in a concurrent, lock-striped index, since
+     * the pipeline might be made parallel after this call. Sequential streams keep the first one of equal
+     * elements, parallel streams keep an arbitrary one. All distinct elements are remembered, so for unbounded
+     * streams use {@link #distinctBy(Stream, EqualsSpec, int)}.
+     *
+     * @param stream a stream to be deduplicated
+     * @param spec   a spec elements are compared with
+     * @param <T>    type of elements
+     * @return a stream of distinct elements
+     */
+    public static <T> Stream<T> distinctBy(Stream<T> stream, EqualsSpec<T> spec) {
+        Objects.requireNonNull(spec, "spec");
+        return stream.filter(new StripedIndex<>(spec));
+    }
+
+    /**
+     * Returns a lazy stream of elements of the stream that are distinct within a recent window.
+     * An element is dropped if it is equal to one of the last {@code window} elements passed on,
+     * so memory stays bounded on unbounded streams, while duplicates further apart pass again.
+     * The window is evaluated under a lock, since the pipeline might be made parallel after this call.
+     *
+     * @param stream a stream to be deduplicated
+     * @param spec   a spec elements are compared with
+     * @param window number of recently passed elements to remember
+     * @param <T>    type of elements
+     * @return a stream of elements distinct within the window
+     * @throws IllegalArgumentException if the window is not positive
+     */
+    public static <T> Stream<T> distinctBy(Stream<T> stream, EqualsSpec<T> spec, int window) {
+        Objects.requireNonNull(spec, "spec");
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+
+        WindowIndex<T> index = new WindowIndex<>(spec, window);
+        return stream.filter(element -> {
+            synchronized (index) {
+                return index.test(element);
+            }
+        });
+    }
+
+    /**
+     * Remembers every distinct element, accepting only the ones not seen before.
+     */
+    private static final class Index<T> implements Predicate<T> {
+        private final SpecHashMap<T, Object> seen;
+        private boolean nullSeen;
+
+        Index(EqualsSpec<T> spec) {
+            this.seen = new SpecHashMap<>(spec);
+        }
+
+        @Override
+        public boolean test(T element) {
+            if (element == null) {
+                return !nullSeen && (nullSeen = true);
+            }
+            return seen.add(element, seen.hash(element));
+        }
+    }
+
+    /**
+     * A concurrent index: elements are spread over independently locked tables by the high bits
+     * of their hashes. Hashes are computed outside of the locks, which are uncontended in sequential streams.
+     */
+    private static final class StripedIndex<T> implements Predicate<T> {
+        private final SpecHashMap<T, Object>[] stripes;
+        private final Index<T> nulls;
+
+        @SuppressWarnings("unchecked")
+        StripedIndex(EqualsSpec<T> spec) {
+            this.stripes = (SpecHashMap<T, Object>[]) new SpecHashMap<?, ?>[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new SpecHashMap<>(spec);
+            }
+            this.nulls = new Index<>(spec);
+        }
+
+        @Override
+        public boolean test(T element) {
+            if (element == null) {
+                synchronized (nulls) {
+                    return nulls.test(null);
+                }
+            }
+
+            // Tables use the low bits, so stripes are selected with the high ones
+            int hash = stripes[0].hash(element);
+            SpecHashMap<T, Object> stripe = stripes[(hash >>> 24) & (STRIPES - 1)];
+            synchronized (stripe) {
+                return stripe.add(element, hash);
+            }
+        }
+    }
+
+    /**
+     * Remembers the last accepted elements in a ring buffer, evicting the oldest one from the table
+     * when the window is full.
+     */
+    private static final class WindowIndex<T> implements Predicate<T> {
+        private final SpecHashMap<T, Object> seen;
+        private final Object[] ring;
+        private final int[] hashes;
+        private int next;
+        private int size;
+        private boolean nullSeen;
+
+        WindowIndex(EqualsSpec<T> spec, int window) {
+            this.seen = new SpecHashMap<>(spec, window);
+            this.ring = new Object[window];
+            this.hashes = new int[window];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean test(T element) {
+            int hash = 0;
+            if (element == null) {
+                if (nullSeen) {
+                    return false;
+                }
+                nullSeen = true;
+            } else if (!seen.add(element, hash = seen.hash(element))) {
+                return false;
+            }
+
+            // Once the window is full, every slot holds an accepted element, including null
+            if (size == ring.length) {
+                T oldest = (T) ring[next];
+                if (oldest == null) {
+                    nullSeen = false;
+                } else {
+                    seen.remove(oldest, hashes[next]);
+                }
+            } else {
+                size++;
+            }
+
+            ring[next] = element;
+            hashes[next] = hash;
+            next = (next + 1) % ring.length;
+            return true;
+        }
+    }
+
+    /**
+     * A mutable container of the distinct list collector.
+     */
+    private static final class DistinctList<T> {
+        private final Index<T> index;
+        private final List<T> elements = new ArrayList<>();
+
+        DistinctList(EqualsSpec<T> spec) {
+            this.index = new Index<>(spec);
+        }
+
+        void add(T element) {
+            if (index.test(element)) {
+                elements.add(element);
+            }
+        }
+
+        DistinctList<T> addAll(DistinctList<T> other) {
+            for (T element : other.elements) {
+                add(element);
+            }
+            return this;
+        }
+    }
+
+}
@@ -1,11 +1,34 @@
 package net.arhipov.equalsbuilder;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
 
 final class EqualsUtils {
 
+    /**
+     * A default value of map lookups telling absent keys from {@code null} values.
+     */
+    private static final Object ABSENT = new Object();
+
     static <T> boolean areEqual(Iterable<T> a, Iterable<T> b, BiPredicate<T, T> equalizer) {
+        if (a instanceof RandomAccess && b instanceof RandomAccess && a instanceof List && b instanceof List) {
+            return randomAccessListsEqual((List<T>) a, (List<T>) b, equalizer);
+        }
+
         Iterator<T> aIterator = a.iterator();
         Iterator<T> bIterator = b.iterator();
         while (aIterator.hasNext() && bIterator.hasNext()) {
@@ -18,4 +41,332 @@ final class EqualsUtils {
         return aIterator.hasNext() == bIterator.hasNext();
     }
 
+    /**
+     * Compares random access lists with an indexed loop, avoiding iterator allocation and hasNext calls.
+     */
+    private static <T> boolean randomAccessListsEqual(List<T> a, List<T> b, BiPredicate<T, T> equalizer) {
+        int size = a.size();
+        if (size != b.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!equalizer.test(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static <R> boolean collectionsEqual(Collection<R> ca, Collection<R> cb, BiPredicate<R, R> equalizer) {
+        return ca == cb ||
+                (ca != null && cb != null && ca.size() == cb.size() && areEqual(ca, cb, equalizer));
+    }
+
+    /**
+     * Compares random access lists of at least {@code parallelThreshold} elements in parallel.
+     * Other collections are always compared serially.
+     */
+    static <R> boolean collectionsEqual(Collection<R> ca, Collection<R> cb, BiPredicate<R, R> equalizer,
+                                        int parallelThreshold) {
+        if (ca != cb && ca != null && cb != null && ca.size() == cb.size() && ca.size() >= parallelThreshold
+                && ca instanceof List && ca instanceof RandomAccess
+                && cb instanceof List && cb instanceof RandomAccess) {
+            return ParallelEquality.listsEqual((List<R>) ca, (List<R>) cb, equalizer);
+        }
+        return collectionsEqual(ca, cb, equalizer);
+    }
+
+    static <R> boolean iterablesEqual(Iterable<R> ca, Iterable<R> cb, BiPredicate<R, R> equalizer) {
+        return ca == cb || (ca != null && cb != null && areEqual(ca, cb, equalizer));
+    }
+
+    static <K, R> boolean mapsEqual(Map<K, R> ma, Map<K, R> mb, BiPredicate<R, R> equalizer) {
+        if (ma == mb) {
+            return true;
+        } else if (ma == null || mb == null || ma.size() != mb.size()) {
+            return false;
+        } else if (isPlainSortedMap(ma) && isPlainSortedMap(mb)
+                && Objects.equals(((SortedMap<K, R>) ma).comparator(), ((SortedMap<K, R>) mb).comparator())) {
+            return sortedMapsEqual((SortedMap<K, R>) ma, (SortedMap<K, R>) mb, equalizer);
+        } else if (ma.getClass() == EnumMap.class && mb.getClass() == EnumMap.class) {
+            return enumMapsEqual(ma, mb, equalizer);
+        } else if (mb.getClass() == IdentityHashMap.class) {
+            return identityMapsEqual(ma, (IdentityHashMap<K, R>) mb, equalizer);
+        } else if (isPlainHashMap(mb)) {
+            return hashMapsEqual(ma, (HashMap<K, R>) mb, equalizer);
+        }
+        return lookupsEqual(ma, mb, equalizer);
+    }
+
+    /**
+     * The generic loop, looking every key of the first map up in the second one. Absent keys are passed
+     * to the equalizer as {@code null}, so the equalizer decides whether they match.
+     */
+    private static <K, R> boolean lookupsEqual(Map<K, R> ma, Map<K, R> mb, BiPredicate<R, R> equalizer) {
+        for (Map.Entry<K, R> e : ma.entrySet()) {
+            if (!valueEqual(mb, e.getKey(), e.getValue(), equalizer)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Fast paths only apply to exact JDK classes: subclasses might override {@code get} or
+     * {@code containsKey}, e.g. to ignore case of keys, which {@code getOrDefault} and iteration bypass.
+     */
+    private static boolean isPlainHashMap(Map<?, ?> map) {
+        return map.getClass() == HashMap.class || map.getClass() == LinkedHashMap.class;
+    }
+
+    private static boolean isPlainSortedMap(Map<?, ?> map) {
+        return map.getClass() == TreeMap.class || map.getClass() == ConcurrentSkipListMap.class;
+    }
+
+    /**
+     * The generic loop with lookups bound to {@link HashMap} or {@link LinkedHashMap}.
+     * This call site only ever sees these two classes, so lookups are inlined, however many other
+     * map types the generic loop is used with.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, R> boolean hashMapsEqual(Map<K, R> ma, HashMap<K, R> mb, BiPredicate<R, R> equalizer) {
+        HashMap<K, Object> lookup = (HashMap<K, Object>) (HashMap<K, ?>) mb;
+        for (Map.Entry<K, R> e : ma.entrySet()) {
+            if (!foundEqual(e.getValue(), lookup.getOrDefault(e.getKey(), ABSENT), equalizer)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares enum maps of the same size by walking both key sets in lockstep. Keys come in ordinal order,
+     * so maps with the same keys have the same key at every position, and values are read from the backing
+     * arrays by ordinal. Unlike entry set iterators, key set iterators do not allocate an entry per element.
+     * Maps with different keys are left to the generic loop, since an equalizer may accept an absent value.
+     */
+    private static <K, R> boolean enumMapsEqual(Map<K, R> ma, Map<K, R> mb, BiPredicate<R, R> equalizer) {
+        Iterator<K> bKeys = mb.keySet().iterator();
+        for (K key : ma.keySet()) {
+            if (key != bKeys.next()) {
+                return lookupsEqual(ma, mb, equalizer);
+            }
+
+            R value = ma.get(key);
+            if (value == null ? mb.get(key) != null : !equalizer.test(value, mb.get(key))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The generic loop with lookups bound to {@link IdentityHashMap}. It does not override
+     * {@link Map#getOrDefault}, which by default calls {@code get} and {@code containsKey} anyway,
+     * so both are called directly, without a sentinel.
+     */
+    private static <K, R> boolean identityMapsEqual(Map<K, R> ma, IdentityHashMap<K, R> mb,
+                                                    BiPredicate<R, R> equalizer) {
+        for (Map.Entry<K, R> e : ma.entrySet()) {
+            K key = e.getKey();
+            R value = e.getValue();
+            R found = mb.get(key);
+            if (value == null ? found != null || !mb.containsKey(key) : !equalizer.test(value, found)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares sorted maps of the same size and order with a single merge walk over both entry sets,
+     * instead of looking every key up in the other map. Keys of maps with the same keys appear in the same order.
+     * On the first pair of keys the comparator does not consider equal, the maps are left to the generic loop,
+     * since an equalizer may accept an absent value.
+     */
+    private static <K, R> boolean sortedMapsEqual(SortedMap<K, R> ma, SortedMap<K, R> mb,
+                                                  BiPredicate<R, R> equalizer) {
+        Comparator<? super K> comparator = ma.comparator();
+        Iterator<Map.Entry<K, R>> bIterator = mb.entrySet().iterator();
+        for (Map.Entry<K, R> ea : ma.entrySet()) {
+            Map.Entry<K, R> eb = bIterator.next();
+            if (compare(comparator, ea.getKey(), eb.getKey()) != 0) {
+                return lookupsEqual(ma, mb, equalizer);
+            }
+
+            R value = ea.getValue();
+            if (value == null ? eb.getValue() != null : !equalizer.test(value, eb.getValue())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares iterables sorted by the comparator with a merge walk: elements are matched by the comparator
+     * and then compared with the equalizer, which is never invoked with {@code null}.
+     * Both iterables are sorted, so they are equal only if matching elements are at the same positions.
+     */
+    static <R> boolean sortedEqual(Iterable<R> a, Iterable<R> b, Comparator<? super R> comparator,
+                                   BiPredicate<R, R> equalizer) {
+        if (a == b) {
+            return true;
+        } else if (a == null || b == null) {
+            return false;
+        }
+
+        Iterator<R> aIterator = a.iterator();
+        Iterator<R> bIterator = b.iterator();
+        while (aIterator.hasNext() && bIterator.hasNext()) {
+            R ea = aIterator.next();
+            R eb = bIterator.next();
+            if (comparator.compare(ea, eb) != 0 || !nullSafeEqual(ea, eb, equalizer)) {
+                return false;
+            }
+        }
+
+        return aIterator.hasNext() == bIterator.hasNext();
+    }
+
+    /**
+     * Compares with the comparator, or by natural ordering if it is {@code null}, as sorted maps and sets do.
+     */
+    @SuppressWarnings("unchecked")
+    static <K> int compare(Comparator<? super K> comparator, K a, K b) {
+        return comparator == null ? ((Comparable<Object>) a).compareTo(b) : comparator.compare(a, b);
+    }
+
+    static <R> boolean nullSafeEqual(R a, R b, BiPredicate<R, R> equalizer) {
+        return a == null ? b == null : b != null && equalizer.test(a, b);
+    }
+
+    static <K, R> boolean mapsEqual(Map<K, R> ma, Map<K, R> mb, BiPredicate<R, R> equalizer, int parallelThreshold) {
+        if (ma != mb && ma != null && mb != null && ma.size() == mb.size() && ma.size() >= parallelThreshold) {
+            return ParallelEquality.mapsEqual(ma, mb, equalizer);
+        }
+        return mapsEqual(ma, mb, equalizer);
+    }
+
+    /**
+     * Checks that the map has an equal value for the key, telling {@code null} values from absent keys.
+     * In plain hash maps absent keys are found with a sentinel default, so {@code null} values take
+     * a single lookup. Other maps are asked with {@code get}, followed by {@code containsKey} for {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    static <K, R> boolean valueEqual(Map<K, R> map, K key, R value, BiPredicate<R, R> equalizer) {
+        if (isPlainHashMap(map)) {
+            return foundEqual(value, ((Map<K, Object>) map).getOrDefault(key, ABSENT), equalizer);
+        } else if (value == null) {
+            return map.get(key) == null && map.containsKey(key);
+        }
+        return equalizer.test(value, map.get(key));
+    }
+
+    /**
+     * Compares a value with the result of a sentinel lookup. Absent keys are passed to the equalizer
+     * as {@code null}, like {@code get} returns them.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> boolean foundEqual(R value, Object found, BiPredicate<R, R> equalizer) {
+        if (value == null) {
+            return found == null;
+        }
+        return equalizer.test(value, found == ABSENT ? null : (R) found);
+    }
+
+    /**
+     * Returns the index of the first pair of elements not considered equal, or the length of the shorter
+     * iterable if one of them is a prefix of the other one, or -1 if both iterables are equal.
+     */
+    static <R> int mismatchIndex(Iterable<R> a, Iterable<R> b, BiPredicate<R, R> equalizer) {
+        Iterator<R> aIterator = a.iterator();
+        Iterator<R> bIterator = b.iterator();
+        int index = 0;
+        while (aIterator.hasNext() && bIterator.hasNext()) {
+            if (!equalizer.test(aIterator.next(), bIterator.next())) {
+                return index;
+            }
+            index++;
+        }
+        return aIterator.hasNext() == bIterator.hasNext() ? -1 : index;
+    }
+
+    /**
+     * Returns a mismatch at the key of the first entry, which value differs or which is missing
+     * in one of the maps, or a mismatch without a key if no such entry was found.
+     */
+    static <K, R> Mismatch mismatch(int step, String label, Map<K, R> ma, Map<K, R> mb,
+                                    BiPredicate<R, R> equalizer) {
+        if (ma != null && mb != null) {
+            for (Map.Entry<K, R> e : ma.entrySet()) {
+                if (!valueEqual(mb, e.getKey(), e.getValue(), equalizer)) {
+                    return Mismatch.atKey(step, label, e.getKey());
+                }
+            }
+            for (K key : mb.keySet()) {
+                if (!ma.containsKey(key)) {
+                    return Mismatch.atKey(step, label, key);
+                }
+            }
+        }
+        return Mismatch.of(step, label);
+    }
+
+    /**
+     * Spreads poor hashes, such as sums or small integers, over all bits with the Murmur3 finalizer,
+     * so that they can be masked into an open-addressing table.
+     */
+    static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The 64-bit Murmur3 finalizer, used to finalize fingerprints.
+     */
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Hashes a double consistently with {@code ==}, which considers {@code 0.0} and {@code -0.0} equal.
+     */
+    static int hash(double value) {
+        return value == 0 ? 0 : Double.hashCode(value);
+    }
+
+    static <R> int hash(Iterable<R> iterable, ToIntFunction<R> hasher) {
+        int result = 1;
+        for (R element : iterable) {
+            result = 31 * result + (element == null ? 0 : hasher.applyAsInt(element));
+        }
+        return result;
+    }
+
+    /**
+     * Hashes a map independently of iteration order, like {@link Map#hashCode()} does.
+     */
+    static <K, R> int hash(Map<K, R> map, ToIntFunction<R> hasher) {
+        int result = 0;
+        for (Map.Entry<K, R> e : map.entrySet()) {
+            R value = e.getValue();
+            result += Objects.hashCode(e.getKey()) ^ (value == null ? 0 : hasher.applyAsInt(value));
+        }
+        return result;
+    }
+
 }
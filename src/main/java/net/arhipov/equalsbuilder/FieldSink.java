@@ -0,0 +1,39 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * Receives field values folded into a fingerprint by a {@link Fingerprinter}.
+ * Custom types registered with {@link Fingerprinter#withType(Class, java.util.function.BiConsumer)}
+ * describe themselves by putting their fields into a sink in a fixed order.
+ *
+ * @see Fingerprinter
+ */
+public interface FieldSink {
+
+    void putInt(int value);
+
+    void putLong(long value);
+
+    /**
+     * Puts a double compared with {@code ==}, so {@code 0.0} and {@code -0.0} are folded the same way.
+     */
+    void putDouble(double value);
+
+    void putBoolean(boolean value);
+
+    /**
+     * Puts characters of a string, or a marker for {@code null}.
+     */
+    void putString(CharSequence value);
+
+    /**
+     * Puts any value, or a marker for {@code null}. Strings, boxed primitives, enums, arrays,
+     * collections, maps and registered types are folded by their contents, recursively.
+     * Lists and other collections are folded in iteration order, sets and maps independently of it.
+     * Other objects are folded by their {@code hashCode}, except in records of a {@link SnapshotStore},
+     * which outlive the JVM.
+     *
+     * @throws IllegalArgumentException if the value has an unregistered type and is put into a snapshot record
+     */
+    void putObject(Object value);
+
+}
@@ -0,0 +1,200 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A streaming 64-bit digest in the style of MurmurHash3 (x64): every folded value is mixed into
+ * the state as one or more 64-bit words, and the state is finalized with the Murmur3 finalizer.
+ * <p>
+ * Unordered collections and maps are folded as a sum of independently finalized element digests,
+ * computed by saving and restoring the state on the call stack, so that no intermediate objects are allocated.
+ * A digest is reused for every fingerprint computed by a thread.
+ * </p>
+ */
+final class FingerprintDigest extends StructuredSink {
+
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long state = SEED;
+    private long words;
+    private boolean busy;
+
+    FingerprintDigest(Class<?>[] types, BiConsumer<Object, FieldSink>[] folders, boolean persistent) {
+        super(types, folders, persistent);
+    }
+
+    @Override
+    public void putInt(int value) {
+        word(value);
+    }
+
+    @Override
+    public void putLong(long value) {
+        word(value);
+    }
+
+    @Override
+    public void putDouble(double value) {
+        word(value == 0 ? 0 : Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void putBoolean(boolean value) {
+        word(value ? 1 : 0);
+    }
+
+    @Override
+    public void putString(CharSequence value) {
+        if (value == null) {
+            tagged(NULL, 0);
+        } else if (value instanceof String) {
+            putChars((String) value);
+        } else {
+            int length = value.length();
+            tagged(STRING, length);
+            int i = 0;
+            for (; i + 4 <= length; i += 4) {
+                word((long) value.charAt(i) | (long) value.charAt(i + 1) << 16
+                        | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+            }
+            if (i < length) {
+                long tail = 0;
+                for (int shift = 0; i < length; i++, shift += 16) {
+                    tail |= (long) value.charAt(i) << shift;
+                }
+                word(tail);
+            }
+        }
+    }
+
+    @Override
+    void putUnordered(Collection<?> collection) {
+        if (collection == null) {
+            tagged(NULL, 0);
+            return;
+        }
+
+        long sum = elementSum(collection);
+        tagged(UNORDERED, collection.size());
+        word(sum);
+    }
+
+    @Override
+    void putMap(Map<?, ?> map) {
+        if (map == null) {
+            tagged(NULL, 0);
+            return;
+        }
+
+        long sum = entrySum(map);
+        tagged(MAP, map.size());
+        word(sum);
+    }
+
+    /**
+     * Returns the sum of digests of the elements, which does not depend on iteration order.
+     */
+    long elementSum(Collection<?> collection) {
+        long savedState = state;
+        long savedWords = words;
+        long sum = 0;
+        for (Object element : collection) {
+            state = SEED;
+            words = 0;
+            putObject(element);
+            sum += finish();
+        }
+        state = savedState;
+        words = savedWords;
+        return sum;
+    }
+
+    /**
+     * Returns the sum of digests of the entries, which does not depend on iteration order.
+     */
+    long entrySum(Map<?, ?> map) {
+        long savedState = state;
+        long savedWords = words;
+        long sum = 0;
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            state = SEED;
+            words = 0;
+            putObject(e.getKey());
+            putObject(e.getValue());
+            sum += finish();
+        }
+        state = savedState;
+        words = savedWords;
+        return sum;
+    }
+
+    /**
+     * Starts a new digest, unless this one is still being computed, e.g. by a folder that fingerprints
+     * a value with the same fingerprinter. Then it must not be reset, and a new digest is needed.
+     */
+    boolean start() {
+        if (busy) {
+            return false;
+        }
+
+        busy = true;
+        state = SEED;
+        words = 0;
+        return true;
+    }
+
+    void release() {
+        busy = false;
+    }
+
+    long finish() {
+        return EqualsUtils.mix(state ^ words);
+    }
+
+    @Override
+    void tagged(int tag, long value) {
+        word((long) tag << 56 ^ value);
+    }
+
+    /**
+     * Same as {@link #putString(CharSequence)}, but with monomorphic {@code charAt} calls
+     * and the state kept in a local variable.
+     */
+    private void putChars(String value) {
+        int length = value.length();
+        tagged(STRING, length);
+        long h = state;
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            h = round(h, (long) value.charAt(i) | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+        }
+        if (i < length) {
+            long tail = 0;
+            for (int shift = 0; i < length; i++, shift += 16) {
+                tail |= (long) value.charAt(i) << shift;
+            }
+            h = round(h, tail);
+        }
+        state = h;
+        words += (length + 3) >>> 2;
+    }
+
+    /**
+     * Mixes a word into the state. Only the xor, rotation and multiplication depend on the previous state,
+     * which keeps the latency per word low, while the finalizer provides avalanche.
+     */
+    private void word(long k) {
+        state = round(state, k);
+        words++;
+    }
+
+    private static long round(long state, long k) {
+        return Long.rotateLeft(state ^ k * C1, 31) * C2;
+    }
+
+}
@@ -0,0 +1,147 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Folds the fields declared in an {@link EqualsSpec} into a 64-bit fingerprint, so that checking whether
+ * an object has changed takes one {@code long} comparison instead of keeping a deep copy and comparing to it.
+ * <p>
+ * Primitives, strings, boxed primitives, enums, arrays, collections and maps are streamed into the digest
+ * by their contents, recursively, without allocating intermediate objects. Ordered collections are
+ * folded in iteration order, while sets, bags and maps are folded independently of it. Boxed primitives
+ * are folded along with their type, so {@code 1} and {@code 1L}, or {@code 'A'} and {@code 65}, differ.
+ * Other objects only contribute their {@code hashCode}, unless their type is registered with
+ * {@link #withType(Class, BiConsumer)} or {@link #withType(Class, Fingerprinter)}.
+ * </p>
+ * <p>
+ * So a fingerprint detects every change of a spec whose field values, and everything they contain, are
+ * of the types above or of registered types. Values of other types are only as safe as their {@code hashCode}:
+ * an object inheriting {@code Object.hashCode} that is modified in place keeps the fingerprint unchanged.
+ * Such types, typically compared with a custom equalizer, should be registered.
+ * </p>
+ * <p>
+ * Fingerprints follow field values, not the equalizers of the spec: unchanged objects always have
+ * the same fingerprint, and different values have different fingerprints with overwhelming probability,
+ * even if a custom equalizer considers them equal (e.g. strings differing in case). This makes a fingerprint
+ * a conservative dirty check. Fingerprints are stable within a JVM, but not meant to be persisted,
+ * since {@code hashCode} of unregistered types might change between runs.
+ * </p>
+ * <p><b>Example:</b>
+ * <pre>{@code
+ * private static final Fingerprinter<Account> FINGERPRINT = Fingerprinter.of(ACCOUNT_SPEC)
+ *     .withType(Address.class, Fingerprinter.of(ADDRESS_SPEC));
+ *
+ * long stored = FINGERPRINT.fingerprint(account);
+ * ...
+ * if (FINGERPRINT.fingerprint(account) != stored) {
+ *     repository.save(account);
+ * }
+ * }</pre>
+ * <p>
+ * Fingerprinter is immutable and thread-safe.
+ * </p>
+ *
+ * @param <T> type of objects being fingerprinted
+ */
+public final class Fingerprinter<T> {
+
+    private final Comparison<T>[] comparisons;
+    private final Class<?>[] types;
+    private final BiConsumer<Object, FieldSink>[] folders;
+    private final ThreadLocal<FingerprintDigest> digests;
+
+    private Fingerprinter(Comparison<T>[] comparisons, Class<?>[] types, BiConsumer<Object, FieldSink>[] folders) {
+        this.comparisons = comparisons;
+        this.types = types;
+        this.folders = folders;
+        this.digests = ThreadLocal.withInitial(() -> new FingerprintDigest(types, folders, false));
+    }
+
+    /**
+     * Creates a fingerprinter folding fields compared by the spec, in declaration order.
+     *
+     * @param spec a spec declaring fields
+     * @param <T>  type of objects being fingerprinted
+     * @return new Fingerprinter instance
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Fingerprinter<T> of(EqualsSpec<T> spec) {
+        return new Fingerprinter<>(spec.comparisons(), new Class<?>[0],
+                (BiConsumer<Object, FieldSink>[]) new BiConsumer<?, ?>[0]);
+    }
+
+    /**
+     * Returns a fingerprinter folding values of the type, wherever they occur, with the folder.
+     * Types are matched with {@code instanceof} in registration order.
+     *
+     * @param type   a type of values
+     * @param folder a method putting fields of a non-null value into the sink in a fixed order
+     * @param <R>    a type of values
+     * @return new Fingerprinter instance
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Fingerprinter<T> withType(Class<R> type, BiConsumer<? super R, FieldSink> folder) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(folder, "folder");
+
+        Class<?>[] newTypes = Arrays.copyOf(types, types.length + 1);
+        BiConsumer<Object, FieldSink>[] newFolders = Arrays.copyOf(folders, folders.length + 1);
+        newTypes[types.length] = type;
+        newFolders[folders.length] = (value, sink) -> folder.accept((R) value, sink);
+        return new Fingerprinter<>(comparisons, newTypes, newFolders);
+    }
+
+    /**
+     * Returns a fingerprinter folding values of the type, wherever they occur, with a nested fingerprinter.
+     *
+     * @param type          a type of values
+     * @param fingerprinter a fingerprinter of values
+     * @param <R>           a type of values
+     * @return new Fingerprinter instance
+     */
+    public <R> Fingerprinter<T> withType(Class<R> type, Fingerprinter<R> fingerprinter) {
+        Objects.requireNonNull(fingerprinter, "fingerprinter");
+        return withType(type, (R value, FieldSink sink) -> ((StructuredSink) sink).putNested(value, fingerprinter));
+    }
+
+    /**
+     * Returns a 64-bit fingerprint of the declared fields of an object.
+     *
+     * @param value an object to fingerprint
+     * @return fingerprint of the object, or 0 for {@code null}
+     */
+    public long fingerprint(T value) {
+        if (value == null) {
+            return 0;
+        }
+
+        FingerprintDigest digest = digests.get();
+        if (!digest.start()) {
+            digest = new FingerprintDigest(types, folders, false);
+            digest.start();
+        }
+        try {
+            fold(value, digest);
+            return digest.finish();
+        } finally {
+            digest.release();
+        }
+    }
+
+    void fold(T value, StructuredSink sink) {
+        for (Comparison<T> comparison : comparisons) {
+            comparison.fold(value, sink);
+        }
+    }
+
+    Class<?>[] types() {
+        return types;
+    }
+
+    BiConsumer<Object, FieldSink>[] folders() {
+        return folders;
+    }
+
+}
@@ -0,0 +1,169 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * Per-thread table of object pairs being compared by cycle-safe specs during a single top-level comparison.
+ * <p>
+ * Pairs are keyed by the identity of the spec and both objects and stored in a flat open-addressing
+ * table with linear probing, without boxing or per-entry allocation. A pair is marked as in progress
+ * when its comparison starts and gets its result when the comparison ends, so reaching a pair
+ * that is still in progress means there is a cycle, which is assumed to be equal, and reaching a pair
+ * that has already been compared reuses the result instead of walking a shared subgraph again.
+ * </p>
+ * <p>
+ * The assumption only holds while the pair it was made for is still in progress: comparisons of sets,
+ * bags and maps try several candidates, so a pair assumed equal might fail without failing the whole
+ * comparison. Results of pairs are therefore only kept if they are not equal, or if they do not rely
+ * on an assumption about a pair deeper in the stack than the pair itself, similarly to the low-link
+ * values of Tarjan's algorithm. Other equal results are dropped and computed again when reached later.
+ * </p>
+ * <p>
+ * The table is cleared once the top-level comparison ends and is then reused by the next one.
+ * </p>
+ */
+final class IdentityPairs {
+
+    private static final byte IN_PROGRESS = 1;
+    private static final byte EQUAL = 2;
+    private static final byte NOT_EQUAL = 3;
+    private static final byte UNKNOWN = 4;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+    private static final ThreadLocal<IdentityPairs> CURRENT = ThreadLocal.withInitial(IdentityPairs::new);
+
+    private Object[] keys;
+    private byte[] states;
+    private int[] depths;
+    private int[] used;
+    private int size;
+    private int depth;
+    // The lowest depth of a pair in progress the current comparison has assumed equal
+    private int lowest = Integer.MAX_VALUE;
+
+    private IdentityPairs() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Compares two distinct, comparable objects with the spec, unless the pair is already being compared
+     * or has already been compared during the current top-level comparison.
+     */
+    static <T> boolean test(EqualsSpec<T> spec, T a, T b) {
+        IdentityPairs pairs = CURRENT.get();
+        int slot = pairs.slot(spec, a, b);
+        byte state = pairs.states[slot];
+        if (state == IN_PROGRESS) {
+            pairs.lowest = Math.min(pairs.lowest, pairs.depths[slot]);
+            return true;
+        } else if (state == EQUAL || state == NOT_EQUAL) {
+            return state == EQUAL;
+        }
+
+        int outerLowest = pairs.lowest;
+        int pairDepth = ++pairs.depth;
+        pairs.states[slot] = IN_PROGRESS;
+        pairs.depths[slot] = pairDepth;
+        pairs.lowest = Integer.MAX_VALUE;
+        boolean equal = false;
+        try {
+            equal = spec.evaluate(a, b);
+        } finally {
+            boolean assumed = pairs.lowest < pairDepth;
+            if (--pairs.depth == 0) {
+                pairs.clear();
+            } else {
+                // Nested comparisons might have resized the table, so the slot has to be looked up again
+                pairs.states[pairs.slot(spec, a, b)] = !equal ? NOT_EQUAL : assumed ? UNKNOWN : EQUAL;
+                // An equal result relying on an outer pair makes everything it is part of rely on it too
+                pairs.lowest = equal && assumed ? Math.min(outerLowest, pairs.lowest) : outerLowest;
+            }
+        }
+        return equal;
+    }
+
+    /**
+     * Returns true if the current thread is in the middle of a top-level comparison.
+     */
+    static boolean inProgress() {
+        return CURRENT.get().depth > 0;
+    }
+
+    /**
+     * Returns the slot of the pair, inserting it with an empty state if it is not in the table yet.
+     */
+    private int slot(Object spec, Object a, Object b) {
+        int mask = states.length - 1;
+        int slot = hash(spec, a, b) & mask;
+        while (states[slot] != 0) {
+            int key = slot * 3;
+            if (keys[key] == spec && keys[key + 1] == a && keys[key + 2] == b) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > states.length) {
+            resize(states.length * 2);
+            return slot(spec, a, b);
+        }
+
+        int key = slot * 3;
+        keys[key] = spec;
+        keys[key + 1] = a;
+        keys[key + 2] = b;
+        used[size++] = slot;
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        byte[] oldStates = states;
+        int[] oldDepths = depths;
+        int[] oldUsed = used;
+        int oldSize = size;
+
+        allocate(capacity);
+        for (int i = 0; i < oldSize; i++) {
+            int key = oldUsed[i] * 3;
+            int slot = slot(oldKeys[key], oldKeys[key + 1], oldKeys[key + 2]);
+            states[slot] = oldStates[oldUsed[i]];
+            depths[slot] = oldDepths[oldUsed[i]];
+        }
+    }
+
+    private void clear() {
+        lowest = Integer.MAX_VALUE;
+        if (states.length > MAX_RETAINED_CAPACITY) {
+            allocate(INITIAL_CAPACITY);
+            return;
+        }
+
+        // Only touch used slots, so that a small comparison after a large one stays cheap
+        for (int i = 0; i < size; i++) {
+            int key = used[i] * 3;
+            keys[key] = null;
+            keys[key + 1] = null;
+            keys[key + 2] = null;
+            states[used[i]] = 0;
+        }
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity * 3];
+        states = new byte[capacity];
+        depths = new int[capacity];
+        used = new int[capacity / 2];
+        size = 0;
+    }
+
+    private static int hash(Object spec, Object a, Object b) {
+        int hash = System.identityHashCode(spec);
+        hash = 31 * hash + System.identityHashCode(a);
+        hash = 31 * hash + System.identityHashCode(b);
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,33 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.function.ToIntFunction;
+
+final class IntComparison<T> implements Comparison<T> {
+
+    private final ToIntFunction<T> getter;
+
+    IntComparison(ToIntFunction<T> getter) {
+        this.getter = getter;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return getter.applyAsInt(a) == getter.applyAsInt(b);
+    }
+
+    @Override
+    public int hash(T value) {
+        return getter.applyAsInt(value);
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putInt(getter.applyAsInt(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(IntComparison.class, this, new Class<?>[]{ToIntFunction.class}, getter);
+    }
+
+}
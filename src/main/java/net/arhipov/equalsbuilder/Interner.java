@@ -0,0 +1,280 @@
+package net.arhipov.equalsbuilder;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Canonicalizes objects considered equal by an {@link EqualsSpec}: {@link #intern(Object)} returns
+ * the first interned instance of each equivalence class, so duplicates can be dropped
+ * and later comparisons of interned objects are answered by the {@code a == b} check
+ * in {@link EqualsBuilder} and {@link EqualsSpec} without walking any fields.
+ * <p>
+ * Canonical instances are only weakly referenced and are removed once they are garbage collected.
+ * The table is split into independently locked segments. Lookups of already interned objects take
+ * no locks, only adding a new canonical instance does. Interned objects must not change,
+ * otherwise they are never found again.
+ * </p>
+ * <p>
+ * The interner counts hits and misses and, if given an estimate of object sizes, the number of
+ * bytes saved by returning a canonical instance instead of keeping a duplicate alive.
+ * </p>
+ * <p>
+ * Interner is thread-safe.
+ * </p>
+ *
+ * @param <T> type of interned objects
+ */
+public final class Interner<T> {
+
+    private static final int SEGMENTS = 16;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final class Entry<T> extends WeakReference<T> {
+        private final int hash;
+        private volatile Entry<T> next;
+
+        Entry(T value, int hash, Entry<T> next, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private final class Segment {
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+        private volatile Entry<T>[] buckets = newBuckets(INITIAL_CAPACITY);
+        private int size;
+
+        /**
+         * Finds a canonical instance without locking. Entries are published without a barrier,
+         * so concurrent insertions might be missed, and a miss has to be confirmed under the lock.
+         */
+        T find(T value, int hash) {
+            Entry<T>[] table = buckets;
+            for (Entry<T> e = table[hash & (table.length - 1)]; e != null; e = e.next) {
+                T canonical;
+                if (e.hash == hash && (canonical = e.get()) != null && spec.test(canonical, value)) {
+                    return canonical;
+                }
+            }
+            return null;
+        }
+
+        synchronized T add(T value, int hash) {
+            T canonical = find(value, hash);
+            if (canonical != null) {
+                return canonical;
+            }
+
+            expunge();
+            if (size >= buckets.length * 3 / 4) {
+                resize();
+            }
+
+            Entry<T>[] table = buckets;
+            int bucket = hash & (table.length - 1);
+            table[bucket] = new Entry<>(value, hash, table[bucket], queue);
+            size++;
+            return null;
+        }
+
+        synchronized int size() {
+            expunge();
+            return size;
+        }
+
+        synchronized void clear() {
+            buckets = newBuckets(INITIAL_CAPACITY);
+            size = 0;
+        }
+
+        /**
+         * Unlinks entries which values have been garbage collected. Unlinking only redirects
+         * a {@code next} pointer, so concurrent readers always see a well-formed chain.
+         * Entries of tables dropped by {@link #resize()} or {@link #clear()} are not found and ignored.
+         */
+        @SuppressWarnings("unchecked")
+        private void expunge() {
+            Entry<T> stale;
+            while ((stale = (Entry<T>) queue.poll()) != null) {
+                Entry<T>[] table = buckets;
+                int bucket = stale.hash & (table.length - 1);
+                if (table[bucket] == stale) {
+                    table[bucket] = stale.next;
+                    size--;
+                    continue;
+                }
+                for (Entry<T> e = table[bucket]; e != null; e = e.next) {
+                    if (e.next == stale) {
+                        e.next = stale.next;
+                        size--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Copies live entries into a table twice as large. Entries are copied rather than relinked,
+         * so readers still traversing the old table are not affected.
+         */
+        private void resize() {
+            Entry<T>[] table = buckets;
+            Entry<T>[] resized = newBuckets(table.length * 2);
+            int live = 0;
+            for (Entry<T> head : table) {
+                for (Entry<T> e = head; e != null; e = e.next) {
+                    T value = e.get();
+                    if (value != null) {
+                        int bucket = e.hash & (resized.length - 1);
+                        resized[bucket] = new Entry<>(value, e.hash, resized[bucket], queue);
+                        live++;
+                    }
+                }
+            }
+            size = live;
+            buckets = resized;
+        }
+    }
+
+    private final EqualsSpec<T> spec;
+    private final ToLongFunction<? super T> sizeEstimator;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Creates an interner canonicalizing objects with the spec.
+     *
+     * @param spec a spec defining equivalence classes, it must provide consistent hash codes
+     */
+    public Interner(EqualsSpec<T> spec) {
+        this(spec, value -> 0);
+    }
+
+    /**
+     * Creates an interner canonicalizing objects with the spec and estimating saved memory.
+     *
+     * @param spec          a spec defining equivalence classes, it must provide consistent hash codes
+     * @param sizeEstimator estimated retained size of an object in bytes, counted for every duplicate
+     */
+    public Interner(EqualsSpec<T> spec, ToLongFunction<? super T> sizeEstimator) {
+        this.spec = Objects.requireNonNull(spec, "spec");
+        this.sizeEstimator = Objects.requireNonNull(sizeEstimator, "sizeEstimator");
+        this.segments = newSegments(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Returns the canonical instance equal to the value, making the value canonical if there is none.
+     *
+     * @param value an object to be interned
+     * @return the canonical instance, or {@code null} for {@code null}
+     */
+    public T intern(T value) {
+        if (value == null) {
+            return null;
+        }
+
+        int hash = EqualsUtils.mix(spec.hashCode(value));
+        Segment segment = segmentFor(hash);
+        T canonical = segment.find(value, hash);
+        if (canonical == null) {
+            canonical = segment.add(value, hash);
+        }
+
+        if (canonical == null) {
+            misses.increment();
+            return value;
+        }
+
+        hits.increment();
+        if (canonical != value) {
+            savedBytes.add(sizeEstimator.applyAsLong(value));
+        }
+        return canonical;
+    }
+
+    /**
+     * Returns the number of {@link #intern(Object)} calls that found a canonical instance.
+     *
+     * @return number of hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of {@link #intern(Object)} calls that made their argument canonical.
+     *
+     * @return number of misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of {@link #intern(Object)} calls that found a canonical instance.
+     *
+     * @return hit ratio from 0 to 1, or 0 if nothing was interned yet
+     */
+    public double hitRatio() {
+        long hits = hits();
+        long total = hits + misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the total estimated size of duplicates replaced with canonical instances.
+     * It is always 0 if no size estimator was given.
+     *
+     * @return estimated number of bytes saved
+     */
+    public long savedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * Returns the number of canonical instances that have not been garbage collected yet, approximately.
+     *
+     * @return current number of canonical instances
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes all canonical instances. Counters are not reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        // Buckets use the low bits, so segments are selected with the high ones
+        return segments[(hash >>> 24) & (SEGMENTS - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private Segment[] newSegments(int length) {
+        return (Segment[]) new Interner<?>.Segment[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T>[] newBuckets(int capacity) {
+        return (Entry<T>[]) new Entry<?>[capacity];
+    }
+
+}
@@ -0,0 +1,55 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+final class IterableComparison<T, R> implements Comparison<T> {
+
+    private final Function<T, Iterable<R>> getter;
+    private final BiPredicate<R, R> equalizer;
+    private final ToIntFunction<R> hasher;
+
+    IterableComparison(Function<T, Iterable<R>> getter, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        this.getter = getter;
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return EqualsUtils.iterablesEqual(getter.apply(a), getter.apply(b), equalizer);
+    }
+
+    @Override
+    public int hash(T value) {
+        if (hasher == null) {
+            return 0;
+        }
+
+        Iterable<R> iterable = getter.apply(value);
+        return iterable == null ? 0 : EqualsUtils.hash(iterable, hasher);
+    }
+
+    @Override
+    public Mismatch mismatch(int step, String label, T a, T b) {
+        Iterable<R> first = getter.apply(a);
+        Iterable<R> second = getter.apply(b);
+        if (first == null || second == null) {
+            return Mismatch.of(step, label);
+        }
+        return Mismatch.atIndex(step, label, EqualsUtils.mismatchIndex(first, second, equalizer));
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putOrdered(getter.apply(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(IterableComparison.class, this,
+                new Class<?>[]{Function.class, BiPredicate.class, ToIntFunction.class}, getter, equalizer, hasher);
+    }
+
+}
@@ -0,0 +1,109 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * The build side of a hash join: records are kept in an array and indexed by the hash codes of their keys
+ * in an open-addressing table of ints. Records with equal keys are chained in insertion order through
+ * an int array, so the table holds no entry objects. Each record can be claimed by exactly one probe,
+ * and claims are atomic, so probing may run concurrently.
+ */
+final class JoinTable<T> {
+
+    private final EqualsSpec<T> keySpec;
+    private final Object[] records;
+    private final int[] hashes;
+    private final int[] next;
+    private final int[] heads;
+    private final int[] tails;
+    private final int mask;
+    private final AtomicIntegerArray claimed;
+
+    JoinTable(EqualsSpec<T> keySpec, List<? extends T> records) {
+        int size = records.size();
+        int capacity = Integer.highestOneBit(Math.max(4, size) * 2 - 1) << 1;
+
+        this.keySpec = keySpec;
+        this.records = records.toArray();
+        this.hashes = new int[size];
+        this.next = new int[size];
+        this.heads = new int[capacity];
+        this.tails = new int[capacity];
+        this.mask = capacity - 1;
+        this.claimed = new AtomicIntegerArray(size);
+
+        for (int i = 0; i < size; i++) {
+            add(i);
+        }
+    }
+
+    /**
+     * Claims the first unclaimed record with a key equal to the key of the probe.
+     *
+     * @return index of the claimed record, or -1 if there is none
+     */
+    int claim(T probe) {
+        int hash = EqualsUtils.mix(keySpec.hashCode(probe));
+        int slot = find(probe, hash);
+        if (slot < 0) {
+            return -1;
+        }
+
+        for (int i = heads[slot] - 1; i >= 0; i = next[i]) {
+            if (claimed.get(i) == 0 && claimed.compareAndSet(i, 0, 1)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    T record(int index) {
+        return (T) records[index];
+    }
+
+    /**
+     * Passes records that have not been claimed in insertion order.
+     */
+    void forEachUnclaimed(Consumer<? super T> consumer) {
+        for (int i = 0; i < records.length; i++) {
+            if (claimed.get(i) == 0) {
+                consumer.accept(record(i));
+            }
+        }
+    }
+
+    private void add(int index) {
+        T record = record(index);
+        int hash = EqualsUtils.mix(keySpec.hashCode(record));
+        hashes[index] = hash;
+        next[index] = -1;
+
+        int slot = find(record, hash);
+        if (slot >= 0) {
+            next[tails[slot] - 1] = index;
+        } else {
+            slot = ~slot;
+            heads[slot] = index + 1;
+        }
+        tails[slot] = index + 1;
+    }
+
+    /**
+     * Returns the slot of the key chain, or a bitwise complement of the empty slot it should be put into.
+     * Slots store indices of records plus one, so that zero marks an empty slot.
+     */
+    private int find(T record, int hash) {
+        int slot = hash & mask;
+        for (; heads[slot] != 0; slot = (slot + 1) & mask) {
+            int head = heads[slot] - 1;
+            if (hashes[head] == hash && keySpec.test(record(head), record)) {
+                return slot;
+            }
+        }
+        return ~slot;
+    }
+
+}
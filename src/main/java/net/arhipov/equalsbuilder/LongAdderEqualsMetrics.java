@@ -0,0 +1,163 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link EqualsMetrics} accumulating counters in {@link LongAdder}s, which scale across cores
+ * without contention on a single memory location.
+ * <p>
+ * Counters are kept for a fixed number of steps, which should be at least the number of comparisons
+ * of the spec. Steps beyond it are only accounted for in totals.
+ * </p>
+ */
+public final class LongAdderEqualsMetrics implements EqualsMetrics {
+
+    private final int sampleInterval;
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder equal = new LongAdder();
+    private final LongAdder[] evaluations;
+    private final LongAdder[] stops;
+    private final LongAdder[] sizes;
+    private final LongAdder[] sized;
+    private final LongAdder[] nanos;
+    private final LongAdder[] timed;
+
+    /**
+     * Creates metrics that do not time steps.
+     *
+     * @param steps number of steps to keep counters for
+     */
+    public LongAdderEqualsMetrics(int steps) {
+        this(steps, 0);
+    }
+
+    /**
+     * Creates metrics timing on average one comparison out of {@code sampleInterval}.
+     *
+     * @param steps          number of steps to keep counters for
+     * @param sampleInterval sample interval for timings, or 0 to never time steps
+     * @throws IllegalArgumentException if any argument is negative
+     */
+    public LongAdderEqualsMetrics(int steps, int sampleInterval) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("Number of steps must not be negative: " + steps);
+        } else if (sampleInterval < 0) {
+            throw new IllegalArgumentException("Sample interval must not be negative: " + sampleInterval);
+        }
+
+        this.sampleInterval = sampleInterval;
+        this.evaluations = adders(steps);
+        this.stops = adders(steps);
+        this.sizes = adders(steps);
+        this.sized = adders(steps);
+        this.nanos = adders(steps);
+        this.timed = adders(steps);
+    }
+
+    @Override
+    public void compared(int evaluated, int stoppedAt) {
+        comparisons.increment();
+        if (stoppedAt < 0) {
+            equal.increment();
+        } else if (stoppedAt < stops.length) {
+            stops[stoppedAt].increment();
+        }
+    }
+
+    @Override
+    public void sizes(int step, int first, int second) {
+        if (step < sizes.length) {
+            sizes[step].add(Math.max(first, 0) + Math.max(second, 0));
+            sized[step].add(2);
+        }
+    }
+
+    @Override
+    public int sampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public void timed(int step, long nanos) {
+        if (step < this.nanos.length) {
+            this.nanos[step].add(nanos);
+            timed[step].increment();
+        }
+    }
+
+    @Override
+    public void evaluated(int step) {
+        if (step < evaluations.length) {
+            evaluations[step].increment();
+        }
+    }
+
+    /**
+     * Returns the total number of compared pairs of objects.
+     *
+     * @return number of comparisons
+     */
+    public long comparisons() {
+        return comparisons.sum();
+    }
+
+    /**
+     * Returns the number of compared pairs found equal.
+     *
+     * @return number of equal results
+     */
+    public long equal() {
+        return equal.sum();
+    }
+
+    /**
+     * Returns how many times a step has been evaluated.
+     *
+     * @param step index of the step
+     * @return number of evaluations
+     */
+    public long evaluations(int step) {
+        return evaluations[step].sum();
+    }
+
+    /**
+     * Returns how many times a step has found a mismatch and stopped the comparison.
+     *
+     * @param step index of the step
+     * @return number of mismatches found by the step
+     */
+    public long stops(int step) {
+        return stops[step].sum();
+    }
+
+    /**
+     * Returns the average size of collections or maps compared by a step.
+     *
+     * @param step index of the step
+     * @return average size, or 0 if the step has not reported sizes
+     */
+    public double averageSize(int step) {
+        long count = sized[step].sum();
+        return count == 0 ? 0 : (double) sizes[step].sum() / count;
+    }
+
+    /**
+     * Returns the average sampled duration of a step.
+     *
+     * @param step index of the step
+     * @return average duration in nanoseconds, or 0 if the step has not been timed
+     */
+    public double averageNanos(int step) {
+        long count = timed[step].sum();
+        return count == 0 ? 0 : (double) nanos[step].sum() / count;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+}
@@ -0,0 +1,33 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.function.ToLongFunction;
+
+final class LongComparison<T> implements Comparison<T> {
+
+    private final ToLongFunction<T> getter;
+
+    LongComparison(ToLongFunction<T> getter) {
+        this.getter = getter;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return getter.applyAsLong(a) == getter.applyAsLong(b);
+    }
+
+    @Override
+    public int hash(T value) {
+        return Long.hashCode(getter.applyAsLong(value));
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putLong(getter.applyAsLong(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(LongComparison.class, this, new Class<?>[]{ToLongFunction.class}, getter);
+    }
+
+}
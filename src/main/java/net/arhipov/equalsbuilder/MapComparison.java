@@ -0,0 +1,60 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+final class MapComparison<T, K, R> implements Comparison<T> {
+
+    private final Function<T, Map<K, R>> getter;
+    private final BiPredicate<R, R> equalizer;
+    private final ToIntFunction<R> hasher;
+    private final int parallelThreshold;
+
+    MapComparison(Function<T, Map<K, R>> getter, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher,
+                  int parallelThreshold) {
+        this.getter = getter;
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return EqualsUtils.mapsEqual(getter.apply(a), getter.apply(b), equalizer, parallelThreshold);
+    }
+
+    @Override
+    public int hash(T value) {
+        Map<K, R> map = getter.apply(value);
+        if (map == null) {
+            return 0;
+        }
+        return hasher == null ? map.size() : EqualsUtils.hash(map, hasher);
+    }
+
+    @Override
+    public Mismatch mismatch(int step, String label, T a, T b) {
+        return EqualsUtils.mismatch(step, label, getter.apply(a), getter.apply(b), equalizer);
+    }
+
+    @Override
+    public int size(T value) {
+        Map<K, R> values = getter.apply(value);
+        return values == null ? -1 : values.size();
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putMap(getter.apply(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(MapComparison.class, this,
+                new Class<?>[]{Function.class, BiPredicate.class, ToIntFunction.class, int.class},
+                getter, equalizer, hasher, parallelThreshold);
+    }
+
+}
@@ -0,0 +1,105 @@
+package net.arhipov.equalsbuilder;
+
+/**
+ * Describes the first difference found between two objects by {@link EqualsSpec#firstMismatch(Object, Object)}.
+ * <p>
+ * A mismatch names the failing comparison step by its index in declaration order and by its label,
+ * if one was given with {@link EqualsSpec#named(String)}. For arrays, collections and iterables it also holds
+ * the index of the first differing element, and for maps the key of the first differing entry.
+ * </p>
+ */
+public final class Mismatch {
+
+    private final int step;
+    private final String label;
+    private final int index;
+    private final Object key;
+    private final boolean keyed;
+
+    private Mismatch(int step, String label, int index, Object key, boolean keyed) {
+        this.step = step;
+        this.label = label;
+        this.index = index;
+        this.key = key;
+        this.keyed = keyed;
+    }
+
+    static Mismatch of(int step, String label) {
+        return new Mismatch(step, label, -1, null, false);
+    }
+
+    static Mismatch atIndex(int step, String label, int index) {
+        return new Mismatch(step, label, index, null, false);
+    }
+
+    static Mismatch atKey(int step, String label, Object key) {
+        return new Mismatch(step, label, -1, key, true);
+    }
+
+    /**
+     * Returns the index of the failing comparison in declaration order, or -1 if objects could not be
+     * compared field by field at all, because one of them is {@code null} or has an incompatible type.
+     *
+     * @return index of the failing comparison step
+     */
+    public int step() {
+        return step;
+    }
+
+    /**
+     * Returns the label of the failing comparison step.
+     *
+     * @return the label, or {@code null} if the step was not named
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Returns the index of the first differing element of compared arrays, collections or iterables.
+     * If one of them is shorter, this is its size.
+     *
+     * @return the element index, or -1 if not applicable
+     */
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Returns true if the mismatch was found in a map entry, which key is returned by {@link #key()}.
+     *
+     * @return true for map entry mismatches
+     */
+    public boolean hasKey() {
+        return keyed;
+    }
+
+    /**
+     * Returns the key of the first differing entry of compared maps.
+     *
+     * @return the key, or {@code null} if not applicable
+     */
+    public Object key() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        if (step < 0) {
+            return "Mismatch{objects are not comparable}";
+        }
+
+        StringBuilder result = new StringBuilder("Mismatch{step=").append(step);
+        if (label != null) {
+            result.append(", label=").append(label);
+        }
+        if (index >= 0) {
+            result.append(", index=").append(index);
+        }
+        if (keyed) {
+            result.append(", key=").append(key);
+        }
+        return result.append('}').toString();
+    }
+
+}
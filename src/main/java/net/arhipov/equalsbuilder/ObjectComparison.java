@@ -0,0 +1,45 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+final class ObjectComparison<T, R> implements Comparison<T> {
+
+    private final Function<T, R> getter;
+    private final BiPredicate<R, R> equalizer;
+    private final ToIntFunction<R> hasher;
+
+    ObjectComparison(Function<T, R> getter, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        this.getter = getter;
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return equalizer.test(getter.apply(a), getter.apply(b));
+    }
+
+    @Override
+    public int hash(T value) {
+        if (hasher == null) {
+            return 0;
+        }
+
+        R field = getter.apply(value);
+        return field == null ? 0 : hasher.applyAsInt(field);
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putObject(getter.apply(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(ObjectComparison.class, this,
+                new Class<?>[]{Function.class, BiPredicate.class, ToIntFunction.class}, getter, equalizer, hasher);
+    }
+
+}
@@ -0,0 +1,145 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Compares large lists and maps on the common {@link ForkJoinPool}.
+ * <p>
+ * Work is split into chunks sharing a single mismatch flag. As soon as any chunk finds a mismatch,
+ * it raises the flag and every other chunk stops at its next check, so an early difference
+ * does not cost a full pass over the remaining elements. The equalizer is invoked concurrently
+ * and must be thread-safe, and the compared lists and maps must not be modified meanwhile.
+ * </p>
+ */
+final class ParallelEquality {
+
+    private static final int MIN_CHUNK = 1 << 12;
+    private static final int CHECK_INTERVAL = 1 << 8;
+
+    private ParallelEquality() {
+    }
+
+    /**
+     * Compares two random access lists of the same size element by element.
+     */
+    static <R> boolean listsEqual(List<R> a, List<R> b, BiPredicate<R, R> equalizer) {
+        AtomicBoolean mismatch = new AtomicBoolean();
+        ForkJoinPool.commonPool().invoke(new ListChunk<>(a, b, equalizer, 0, a.size(), chunkSize(a.size()), mismatch));
+        return !mismatch.get();
+    }
+
+    /**
+     * Compares values of two maps of the same size, splitting the entry set of the first one.
+     */
+    static <K, R> boolean mapsEqual(Map<K, R> a, Map<K, R> b, BiPredicate<R, R> equalizer) {
+        AtomicBoolean mismatch = new AtomicBoolean();
+        ForkJoinPool.commonPool().invoke(new MapChunk<>(a.entrySet().spliterator(), b, equalizer,
+                chunkSize(a.size()), mismatch));
+        return !mismatch.get();
+    }
+
+    private static int chunkSize(int size) {
+        // A few chunks per worker are enough to balance the load, smaller ones only add overhead
+        return Math.max(MIN_CHUNK, size / (ForkJoinPool.getCommonPoolParallelism() * 4));
+    }
+
+    private static final class ListChunk<R> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<R> a;
+        private final List<R> b;
+        private final BiPredicate<R, R> equalizer;
+        private final int from;
+        private final int to;
+        private final int chunk;
+        private final AtomicBoolean mismatch;
+
+        ListChunk(List<R> a, List<R> b, BiPredicate<R, R> equalizer, int from, int to, int chunk,
+                  AtomicBoolean mismatch) {
+            this.a = a;
+            this.b = b;
+            this.equalizer = equalizer;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+            this.mismatch = mismatch;
+        }
+
+        @Override
+        protected void compute() {
+            if (mismatch.get()) {
+                return;
+            } else if (to - from > chunk) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ListChunk<>(a, b, equalizer, from, middle, chunk, mismatch),
+                        new ListChunk<>(a, b, equalizer, middle, to, chunk, mismatch));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                if (!equalizer.test(a.get(i), b.get(i))) {
+                    mismatch.set(true);
+                    return;
+                } else if ((i & (CHECK_INTERVAL - 1)) == 0 && mismatch.get()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class MapChunk<K, R> extends RecursiveAction implements Consumer<Map.Entry<K, R>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<Map.Entry<K, R>> entries;
+        private final Map<K, R> b;
+        private final BiPredicate<R, R> equalizer;
+        private final int chunk;
+        private final AtomicBoolean mismatch;
+
+        MapChunk(Spliterator<Map.Entry<K, R>> entries, Map<K, R> b, BiPredicate<R, R> equalizer, int chunk,
+                 AtomicBoolean mismatch) {
+            this.entries = entries;
+            this.b = b;
+            this.equalizer = equalizer;
+            this.chunk = chunk;
+            this.mismatch = mismatch;
+        }
+
+        @Override
+        protected void compute() {
+            List<MapChunk<K, R>> forked = new ArrayList<>();
+            Spliterator<Map.Entry<K, R>> prefix;
+            while (entries.estimateSize() > chunk && (prefix = entries.trySplit()) != null) {
+                MapChunk<K, R> task = new MapChunk<>(prefix, b, equalizer, chunk, mismatch);
+                task.fork();
+                forked.add(task);
+            }
+
+            while (!mismatch.get() && entries.tryAdvance(this)) {
+                // Each entry is checked by accept()
+            }
+
+            for (MapChunk<K, R> task : forked) {
+                task.join();
+            }
+        }
+
+        @Override
+        public void accept(Map.Entry<K, R> entry) {
+            if (!EqualsUtils.valueEqual(b, entry.getKey(), entry.getValue(), equalizer)) {
+                mismatch.set(true);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,294 @@
+package net.arhipov.equalsbuilder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reconciles two collections of records with a hash join: records are matched by the fields of a key spec,
+ * and matched pairs are then compared by the fields of a payload spec. Every record ends up in exactly one
+ * of four outcomes: matched and equal, matched and different, only on the left, or only on the right.
+ * <p>
+ * The left side is indexed in a table of ints (see {@link JoinTable}), which holds the records themselves
+ * and no per-record entries, and the right side is streamed through it. Records with equal keys are
+ * matched one to one in encounter order, so duplicate keys are reconciled pairwise and the surplus
+ * is reported as left-only or right-only. The probe phase can run in parallel with {@link #parallel()}.
+ * </p>
+ * <p>
+ * Inputs larger than the heap can be reconciled with {@link #spillingTo(Path, int)}: both sides are first
+ * written to partition files by hashes of their keys, and then each pair of partitions is joined in memory
+ * (a Grace hash join), so only one partition has to fit in the heap at a time. Records have to be
+ * {@link java.io.Serializable} in this mode, and the outcomes are reported partition by partition.
+ * </p>
+ * <pre>{@code
+ * Reconciliation<Trade> result = Reconciler.of(BY_TRADE_ID, BY_AMOUNT_AND_STATUS)
+ *         .parallel()
+ *         .reconcile(ledger, statement);
+ *
+ * result.matchedDifferent().forEach(match -> log.warn("{}", match.mismatch()));
+ * }</pre>
+ * <p>
+ * Reconciler is immutable and thread-safe.
+ * </p>
+ *
+ * @param <T> type of reconciled records
+ */
+public final class Reconciler<T> {
+
+    private static final int RESET_INTERVAL = 1024;
+
+    private final EqualsSpec<T> keySpec;
+    private final EqualsSpec<T> payloadSpec;
+    private final boolean parallel;
+    private final Path spillDirectory;
+    private final int partitions;
+
+    private Reconciler(EqualsSpec<T> keySpec, EqualsSpec<T> payloadSpec, boolean parallel,
+                       Path spillDirectory, int partitions) {
+        this.keySpec = keySpec;
+        this.payloadSpec = payloadSpec;
+        this.parallel = parallel;
+        this.spillDirectory = spillDirectory;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Creates a sequential in-memory reconciler.
+     *
+     * @param keySpec     a spec matching records, it must provide consistent hash codes
+     * @param payloadSpec a spec comparing matched records
+     * @param <T>         type of reconciled records
+     * @return new Reconciler instance
+     */
+    public static <T> Reconciler<T> of(EqualsSpec<T> keySpec, EqualsSpec<T> payloadSpec) {
+        Objects.requireNonNull(keySpec, "keySpec");
+        Objects.requireNonNull(payloadSpec, "payloadSpec");
+        return new Reconciler<>(keySpec, payloadSpec, false, null, 0);
+    }
+
+    /**
+     * Returns a reconciler probing right records in parallel on the common fork-join pool.
+     * Listeners are then called concurrently, and records with duplicate keys are paired arbitrarily.
+     *
+     * @return new Reconciler instance
+     */
+    public Reconciler<T> parallel() {
+        return new Reconciler<>(keySpec, payloadSpec, true, spillDirectory, partitions);
+    }
+
+    /**
+     * Returns a reconciler partitioning both sides into temporary files in the directory before joining them.
+     * Files are deleted once reconciliation is finished.
+     *
+     * @param directory  a directory for temporary files
+     * @param partitions number of partitions, so that a partition of the left side fits in the heap
+     * @return new Reconciler instance
+     * @throws IllegalArgumentException if the number of partitions is not positive
+     */
+    public Reconciler<T> spillingTo(Path directory, int partitions) {
+        Objects.requireNonNull(directory, "directory");
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be positive: " + partitions);
+        }
+        return new Reconciler<>(keySpec, payloadSpec, parallel, directory, partitions);
+    }
+
+    /**
+     * Reconciles the records and collects the outcomes.
+     *
+     * @param left  records of the left side, without {@code null}s
+     * @param right records of the right side, without {@code null}s
+     * @return collected outcomes
+     * @throws UncheckedIOException if partition files cannot be written or read
+     */
+    public Reconciliation<T> reconcile(Iterable<? extends T> left, Iterable<? extends T> right) {
+        Reconciliation<T> result = new Reconciliation<>(payloadSpec);
+        reconcile(left, right, result.listener());
+        return result;
+    }
+
+    /**
+     * Reconciles the records, passing outcomes to the listener as they are found. Nothing is collected,
+     * so with {@link #spillingTo(Path, int)} the outcomes need not fit in the heap either.
+     *
+     * @param left     records of the left side, without {@code null}s
+     * @param right    records of the right side, without {@code null}s
+     * @param listener a listener of outcomes
+     * @throws UncheckedIOException if partition files cannot be written or read
+     */
+    public void reconcile(Iterable<? extends T> left, Iterable<? extends T> right, Listener<? super T> listener) {
+        Objects.requireNonNull(left, "left");
+        Objects.requireNonNull(right, "right");
+        Objects.requireNonNull(listener, "listener");
+
+        if (spillDirectory == null) {
+            join(toList(left), right, listener);
+        } else {
+            try {
+                spill(left, right, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void join(List<? extends T> left, Iterable<? extends T> right, Listener<? super T> listener) {
+        JoinTable<T> table = new JoinTable<>(keySpec, left);
+        Consumer<T> probe = record -> {
+            int index = table.claim(Objects.requireNonNull(record, "record"));
+            if (index < 0) {
+                listener.rightOnly(record);
+                return;
+            }
+
+            T match = table.record(index);
+            if (payloadSpec.test(match, record)) {
+                listener.matchedEqual(match, record);
+            } else {
+                listener.matchedDifferent(match, record);
+            }
+        };
+
+        if (parallel) {
+            StreamSupport.stream(right.spliterator(), true).forEach(probe);
+        } else {
+            right.forEach(probe);
+        }
+        table.forEachUnclaimed(listener::leftOnly);
+    }
+
+    private void spill(Iterable<? extends T> left, Iterable<? extends T> right,
+                       Listener<? super T> listener) throws IOException {
+        Path directory = Files.createTempDirectory(spillDirectory, "reconcile");
+        try {
+            Path[] leftFiles = partition(left, directory, "left");
+            Path[] rightFiles = partition(right, directory, "right");
+            for (int i = 0; i < partitions; i++) {
+                List<T> leftPartition = read(leftFiles[i]);
+                Files.delete(leftFiles[i]);
+                List<T> rightPartition = read(rightFiles[i]);
+                Files.delete(rightFiles[i]);
+                join(leftPartition, rightPartition, listener);
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private Path[] partition(Iterable<? extends T> records, Path directory, String side) throws IOException {
+        Path[] files = new Path[partitions];
+        ObjectOutputStream[] outputs = new ObjectOutputStream[partitions];
+        int[] counts = new int[partitions];
+        try {
+            for (int i = 0; i < partitions; i++) {
+                files[i] = directory.resolve(side + "-" + i);
+                outputs[i] = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(files[i])));
+            }
+
+            for (T record : records) {
+                // Join tables use the low bits, so partitions are selected with the high ones
+                int hash = EqualsUtils.mix(keySpec.hashCode(Objects.requireNonNull(record, "record")));
+                int i = (hash >>> 16) % partitions;
+                outputs[i].writeBoolean(true);
+                outputs[i].writeObject(record);
+                // Forget written objects, otherwise the stream keeps all of them reachable
+                if (++counts[i] % RESET_INTERVAL == 0) {
+                    outputs[i].reset();
+                }
+            }
+
+            for (ObjectOutputStream output : outputs) {
+                output.writeBoolean(false);
+            }
+        } finally {
+            for (ObjectOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        return files;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> read(Path file) throws IOException {
+        List<T> records = new ArrayList<>();
+        try (ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (input.readBoolean()) {
+                records.add((T) input.readObject());
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Cannot read a spilled record", e);
+        }
+        return records;
+    }
+
+    private static <T> List<? extends T> toList(Iterable<? extends T> records) {
+        if (records instanceof List) {
+            return (List<? extends T>) records;
+        }
+
+        List<T> list = new ArrayList<>();
+        records.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Receives outcomes of reconciliation. All methods do nothing by default.
+     *
+     * @param <T> type of reconciled records
+     */
+    public interface Listener<T> {
+
+        /**
+         * Called for records with equal keys and equal payloads.
+         *
+         * @param left  a record of the left side
+         * @param right a record of the right side
+         */
+        default void matchedEqual(T left, T right) {
+        }
+
+        /**
+         * Called for records with equal keys and different payloads.
+         *
+         * @param left  a record of the left side
+         * @param right a record of the right side
+         */
+        default void matchedDifferent(T left, T right) {
+        }
+
+        /**
+         * Called for a record of the left side that has no match on the right side.
+         *
+         * @param left a record of the left side
+         */
+        default void leftOnly(T left) {
+        }
+
+        /**
+         * Called for a record of the right side that has no match on the left side.
+         *
+         * @param right a record of the right side
+         */
+        default void rightOnly(T right) {
+        }
+    }
+
+}
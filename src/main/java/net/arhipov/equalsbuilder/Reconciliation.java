@@ -0,0 +1,153 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Collected outcomes of {@link Reconciler#reconcile(Iterable, Iterable)}. Matched records are listed
+ * in probe order of the right side, left-only records follow the order of the left side.
+ *
+ * @param <T> type of reconciled records
+ */
+public final class Reconciliation<T> {
+
+    private final EqualsSpec<T> payloadSpec;
+    private final List<Match<T>> matchedEqual = new ArrayList<>();
+    private final List<Match<T>> matchedDifferent = new ArrayList<>();
+    private final List<T> leftOnly = new ArrayList<>();
+    private final List<T> rightOnly = new ArrayList<>();
+
+    Reconciliation(EqualsSpec<T> payloadSpec) {
+        this.payloadSpec = payloadSpec;
+    }
+
+    /**
+     * Returns pairs of records with equal keys and equal payloads.
+     *
+     * @return a stream of matches
+     */
+    public Stream<Match<T>> matchedEqual() {
+        return matchedEqual.stream();
+    }
+
+    /**
+     * Returns pairs of records with equal keys and different payloads.
+     *
+     * @return a stream of matches
+     */
+    public Stream<Match<T>> matchedDifferent() {
+        return matchedDifferent.stream();
+    }
+
+    /**
+     * Returns records of the left side without a match.
+     *
+     * @return a stream of records
+     */
+    public Stream<T> leftOnly() {
+        return leftOnly.stream();
+    }
+
+    /**
+     * Returns records of the right side without a match.
+     *
+     * @return a stream of records
+     */
+    public Stream<T> rightOnly() {
+        return rightOnly.stream();
+    }
+
+    /**
+     * Returns true if every record has a match with an equal payload.
+     *
+     * @return whether both sides are reconciled
+     */
+    public boolean isReconciled() {
+        return matchedDifferent.isEmpty() && leftOnly.isEmpty() && rightOnly.isEmpty();
+    }
+
+    /**
+     * Returns a listener collecting outcomes into this object. Parallel probes call it concurrently,
+     * so it is synchronized.
+     */
+    Reconciler.Listener<T> listener() {
+        return new Reconciler.Listener<T>() {
+            @Override
+            public void matchedEqual(T left, T right) {
+                Match<T> match = new Match<>(payloadSpec, left, right);
+                synchronized (matchedEqual) {
+                    matchedEqual.add(match);
+                }
+            }
+
+            @Override
+            public void matchedDifferent(T left, T right) {
+                Match<T> match = new Match<>(payloadSpec, left, right);
+                synchronized (matchedDifferent) {
+                    matchedDifferent.add(match);
+                }
+            }
+
+            @Override
+            public void leftOnly(T left) {
+                synchronized (leftOnly) {
+                    leftOnly.add(left);
+                }
+            }
+
+            @Override
+            public void rightOnly(T right) {
+                synchronized (rightOnly) {
+                    rightOnly.add(right);
+                }
+            }
+        };
+    }
+
+    /**
+     * A pair of records with equal keys.
+     *
+     * @param <T> type of reconciled records
+     */
+    public static final class Match<T> {
+        private final EqualsSpec<T> payloadSpec;
+        private final T left;
+        private final T right;
+
+        Match(EqualsSpec<T> payloadSpec, T left, T right) {
+            this.payloadSpec = payloadSpec;
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * @return the record of the left side
+         */
+        public T left() {
+            return left;
+        }
+
+        /**
+         * @return the record of the right side
+         */
+        public T right() {
+            return right;
+        }
+
+        /**
+         * Describes the first payload field that differs, see {@link EqualsSpec#firstMismatch(Object, Object)}.
+         *
+         * @return the first mismatch, or {@code null} if payloads are equal
+         */
+        public Mismatch mismatch() {
+            return payloadSpec.firstMismatch(left, right);
+        }
+
+        @Override
+        public String toString() {
+            return "Match{left=" + left + ", right=" + right + '}';
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Encodes values put into it as a compact byte sequence: ints and longs as little-endian fixed-width
+ * numbers, type tags as a byte followed by a variable-length count, and strings as UTF-16 code units.
+ * Equal values always produce equal bytes. Unordered collections and maps have no canonical element order,
+ * so they are encoded as the order-independent 64-bit digest of their elements. Objects of unregistered types
+ * are rejected, since their {@code hashCode} may differ between runs.
+ * <p>
+ * An encoder is reset and reused for every record, along with the digest of its unordered collections.
+ * </p>
+ *
+ * @see SnapshotStore
+ */
+final class RecordEncoder extends StructuredSink {
+
+    private final FingerprintDigest digest;
+    private byte[] bytes = new byte[64];
+    private int length;
+
+    RecordEncoder(Class<?>[] types, BiConsumer<Object, FieldSink>[] folders) {
+        super(types, folders, true);
+        digest = new FingerprintDigest(types, folders, true);
+    }
+
+    @Override
+    public void putInt(int value) {
+        ensure(4);
+        for (int i = 0; i < 4; i++, value >>>= 8) {
+            bytes[length++] = (byte) value;
+        }
+    }
+
+    @Override
+    public void putLong(long value) {
+        ensure(8);
+        for (int i = 0; i < 8; i++, value >>>= 8) {
+            bytes[length++] = (byte) value;
+        }
+    }
+
+    @Override
+    public void putDouble(double value) {
+        putLong(value == 0 ? 0 : Double.doubleToLongBits(value));
+    }
+
+    @Override
+    public void putBoolean(boolean value) {
+        ensure(1);
+        bytes[length++] = (byte) (value ? 1 : 0);
+    }
+
+    @Override
+    public void putString(CharSequence value) {
+        if (value == null) {
+            tagged(NULL, 0);
+            return;
+        }
+
+        int chars = value.length();
+        tagged(STRING, chars);
+        ensure(chars * 2);
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            bytes[length++] = (byte) c;
+            bytes[length++] = (byte) (c >>> 8);
+        }
+    }
+
+    @Override
+    void putUnordered(Collection<?> collection) {
+        if (collection == null) {
+            tagged(NULL, 0);
+            return;
+        }
+
+        tagged(UNORDERED, collection.size());
+        digest.layout(types(), folders());
+        putLong(digest.elementSum(collection));
+    }
+
+    @Override
+    void putMap(Map<?, ?> map) {
+        if (map == null) {
+            tagged(NULL, 0);
+            return;
+        }
+
+        tagged(MAP, map.size());
+        digest.layout(types(), folders());
+        putLong(digest.entrySum(map));
+    }
+
+    @Override
+    void tagged(int tag, long value) {
+        ensure(11);
+        bytes[length++] = (byte) tag;
+        while ((value & ~0x7fL) != 0) {
+            bytes[length++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Collection;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+final class SetComparison<T, R> implements Comparison<T> {
+
+    private final Function<T, Collection<R>> getter;
+    private final BiPredicate<R, R> equalizer;
+    private final ToIntFunction<R> hasher;
+
+    SetComparison(Function<T, Collection<R>> getter, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        this.getter = getter;
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return UnorderedEquality.setsEqual(getter.apply(a), getter.apply(b), equalizer, hasher);
+    }
+
+    @Override
+    public int hash(T value) {
+        Collection<R> collection = getter.apply(value);
+        return collection == null ? 0 : UnorderedEquality.setHash(collection, equalizer, hasher);
+    }
+
+    @Override
+    public int size(T value) {
+        Collection<R> values = getter.apply(value);
+        return values == null ? -1 : values.size();
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putUnordered(getter.apply(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(SetComparison.class, this,
+                new Class<?>[]{Function.class, BiPredicate.class, ToIntFunction.class}, getter, equalizer, hasher);
+    }
+
+}
@@ -0,0 +1,372 @@
+package net.arhipov.equalsbuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A snapshot of records in a memory-mapped file on a local filesystem, telling which records have changed
+ * since the snapshot was saved, e.g. by a previous run of the application.
+ * <p>
+ * Every record is stored as the encoding of its key and of the fields declared in a spec, in a compact binary
+ * layout: primitives as fixed-width numbers, strings as their characters, ordered collections element by
+ * element, and sets and maps as an order-independent 64-bit digest. Records are indexed by the encoding of
+ * their keys in memory, while the encodings themselves stay in the mapped file. {@link #isChanged(Object)}
+ * encodes the fresh record and compares the bytes with the mapped region directly (with the vectorized
+ * {@code ByteBuffer.mismatch} on Java 11 and later), so old records are never deserialized.
+ * </p>
+ * <p>
+ * Like {@link Fingerprinter}, the encoding follows field values rather than equalizers. Unlike a fingerprint,
+ * it never falls back to {@code hashCode}, which may differ between runs: objects of types other than the ones
+ * above need a layout registered with {@link Fingerprinter#withType(Class, Fingerprinter)}, or encoding them
+ * fails with {@code IllegalArgumentException}. Keys should be strings, boxed primitives, enums or combinations
+ * of them. A snapshot file is limited to 2 GB, since it is mapped as a single buffer.
+ * </p>
+ * <p><b>Example:</b>
+ * <pre>{@code
+ * try (SnapshotStore<Product> snapshot = SnapshotStore.open(path, PRODUCT_SPEC, Product::getSku)) {
+ *     List<Product> changed = products.stream().filter(snapshot::isChanged).collect(toList());
+ *     publish(changed);
+ *     snapshot.save(products);
+ * }
+ * }</pre>
+ * <p>
+ * SnapshotStore is thread-safe: {@link #isChanged(Object)} may run concurrently with other calls,
+ * and sees either the old or the new snapshot while it is being saved.
+ * </p>
+ *
+ * @param <T> type of records
+ */
+public final class SnapshotStore<T> implements Closeable {
+
+    private static final int MAGIC = 0x31535345; // "ESS1" in little-endian
+    private static final int HEADER_SIZE = 8;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * An immutable mapped snapshot with an open-addressing index of record offsets by key hash.
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(ByteBuffer.allocate(0), new int[1], new int[1], 0);
+
+        private final ByteBuffer buffer;
+        private final int[] hashes;
+        private final int[] offsets;
+        private final int size;
+
+        Snapshot(ByteBuffer buffer, int[] hashes, int[] offsets, int size) {
+            this.buffer = buffer;
+            this.hashes = hashes;
+            this.offsets = offsets;
+            this.size = size;
+        }
+
+        /**
+         * Returns the offset of the record with the key, or -1 if there is none. Offsets are stored plus one,
+         * so that zero marks an empty slot.
+         */
+        int find(byte[] key, int keyLength, int hash) {
+            int mask = offsets.length - 1;
+            for (int slot = hash & mask; offsets[slot] != 0; slot = (slot + 1) & mask) {
+                int offset = offsets[slot] - 1;
+                if (hashes[slot] == hash && buffer.getInt(offset) == keyLength
+                        && BufferMismatch.regionEquals(buffer, offset + 8, key, keyLength)) {
+                    return offset;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final Path file;
+    private final Fingerprinter<T> layout;
+    private final Function<? super T, ?> key;
+    private final Object saveLock = new Object();
+    private final ThreadLocal<RecordEncoder> encoders = ThreadLocal.withInitial(this::encoder);
+    private volatile Snapshot snapshot;
+
+    private SnapshotStore(Path file, Fingerprinter<T> layout, Function<? super T, ?> key, Snapshot snapshot) {
+        this.file = file;
+        this.layout = layout;
+        this.key = key;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Opens a snapshot file, or an empty snapshot if the file does not exist yet.
+     *
+     * @param file a snapshot file on a local filesystem
+     * @param spec a spec declaring fields to be stored
+     * @param key  a method extracting a unique key of a record
+     * @param <T>  type of records
+     * @return new SnapshotStore instance
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static <T> SnapshotStore<T> open(Path file, EqualsSpec<T> spec, Function<? super T, ?> key)
+            throws IOException {
+        return open(file, Fingerprinter.of(spec), key);
+    }
+
+    /**
+     * Opens a snapshot file, or an empty snapshot if the file does not exist yet.
+     * Types registered in the fingerprinter are encoded with their registered layouts.
+     *
+     * @param file   a snapshot file on a local filesystem
+     * @param layout a fingerprinter declaring fields to be stored
+     * @param key    a method extracting a unique key of a record
+     * @param <T>    type of records
+     * @return new SnapshotStore instance
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static <T> SnapshotStore<T> open(Path file, Fingerprinter<T> layout, Function<? super T, ?> key)
+            throws IOException {
+        Objects.requireNonNull(file, "file");
+        Objects.requireNonNull(layout, "layout");
+        Objects.requireNonNull(key, "key");
+        return new SnapshotStore<>(file, layout, key, Files.exists(file) ? load(file) : Snapshot.EMPTY);
+    }
+
+    /**
+     * Returns true if the snapshot has no record with the key of this record,
+     * or if the stored fields differ from the fields of this record.
+     *
+     * @param record a fresh record
+     * @return true if the record is new or has changed
+     * @throws IllegalArgumentException if the record has a value of a type without a registered layout
+     * @throws IllegalStateException if the store has been closed
+     */
+    public boolean isChanged(T record) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("Snapshot store is closed");
+        }
+
+        RecordEncoder encoder = encoders.get();
+        encoder.reset();
+        encoder.putObject(key.apply(record));
+        int offset = current.find(encoder.bytes(), encoder.length(), hash(encoder));
+        if (offset < 0) {
+            return true;
+        }
+
+        // The key has been found, so the encoder is reused for the fields
+        encoder.reset();
+        layout.fold(record, encoder);
+        ByteBuffer buffer = current.buffer;
+        int keyLength = buffer.getInt(offset);
+        int valueLength = buffer.getInt(offset + 4);
+        return valueLength != encoder.length()
+                || !BufferMismatch.regionEquals(buffer, offset + 8 + keyLength, encoder.bytes(), valueLength);
+    }
+
+    /**
+     * Returns the number of records in the snapshot.
+     *
+     * @return number of records
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.size;
+    }
+
+    /**
+     * Replaces the snapshot with the records. The new snapshot is written to a temporary file,
+     * synced to disk and then atomically moved over the old one, so a crash never leaves
+     * a partially written snapshot behind. If records have equal keys, the last one wins.
+     * If the records do not fit into 2 GB, the old snapshot is kept.
+     *
+     * @param records records to be stored
+     * @throws IOException if the snapshot cannot be written or is larger than 2 GB
+     * @throws IllegalArgumentException if a record has a value of a type without a registered layout
+     * @throws IllegalStateException if the store has been closed
+     */
+    public void save(Iterable<? extends T> records) throws IOException {
+        save(records, MAX_SIZE);
+    }
+
+    /**
+     * Replaces the snapshot with the records, unless the snapshot would be larger than the limit in bytes.
+     */
+    void save(Iterable<? extends T> records, long maxSize) throws IOException {
+        synchronized (saveLock) {
+            if (snapshot == null) {
+                throw new IllegalStateException("Snapshot store is closed");
+            }
+
+            Path directory = file.toAbsolutePath().getParent();
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                // The size is checked while writing, so an oversized snapshot never replaces the old one
+                write(temporary, records, maxSize);
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            snapshot = load(file);
+        }
+    }
+
+    /**
+     * Releases the mapped snapshot. The mapping itself is released once it is garbage collected.
+     */
+    @Override
+    public void close() {
+        synchronized (saveLock) {
+            snapshot = null;
+        }
+    }
+
+    private void write(Path temporary, Iterable<? extends T> records, long maxSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(0);
+
+            int count = 0;
+            long size = HEADER_SIZE;
+            RecordEncoder keyEncoder = encoder();
+            RecordEncoder valueEncoder = encoder();
+            for (T record : records) {
+                keyEncoder.reset();
+                valueEncoder.reset();
+                keyEncoder.putObject(key.apply(record));
+                layout.fold(record, valueEncoder);
+
+                size += 8L + keyEncoder.length() + valueEncoder.length();
+                if (size > maxSize) {
+                    throw new IOException("Snapshot is larger than " + maxSize + " bytes: " + file);
+                }
+                ensureRemaining(channel, buffer, 8);
+                buffer.putInt(keyEncoder.length()).putInt(valueEncoder.length());
+                put(channel, buffer, keyEncoder);
+                put(channel, buffer, valueEncoder);
+                count++;
+            }
+            flush(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, count);
+            channel.write(header, 4);
+            channel.force(true);
+        }
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, RecordEncoder encoder) throws IOException {
+        if (encoder.length() > buffer.capacity()) {
+            flush(channel, buffer);
+            ByteBuffer large = ByteBuffer.wrap(encoder.bytes(), 0, encoder.length());
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+
+        ensureRemaining(channel, buffer, encoder.length());
+        buffer.put(encoder.bytes(), 0, encoder.length());
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() < needed) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static Snapshot load(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is larger than 2 GB: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot file: " + file);
+        }
+
+        int count = buffer.getInt(4);
+        int capacity = Integer.highestOneBit(Math.max(4, count) * 2 - 1) << 1;
+        int[] hashes = new int[capacity];
+        int[] offsets = new int[capacity];
+        int mask = capacity - 1;
+        int size = 0;
+
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            if (offset > buffer.limit() - 8) {
+                throw new IOException("Truncated snapshot file: " + file);
+            }
+            int keyLength = buffer.getInt(offset);
+            int valueLength = buffer.getInt(offset + 4);
+            if (keyLength < 0 || valueLength < 0 || (long) offset + 8 + keyLength + valueLength > buffer.limit()) {
+                throw new IOException("Truncated snapshot file: " + file);
+            }
+
+            int hash = hash(buffer, offset + 8, keyLength);
+            int slot = hash & mask;
+            while (offsets[slot] != 0 && !sameKey(buffer, offsets[slot] - 1, offset, keyLength)) {
+                slot = (slot + 1) & mask;
+            }
+            if (offsets[slot] == 0) {
+                size++;
+            }
+            hashes[slot] = hash;
+            offsets[slot] = offset + 1;
+            offset += 8 + keyLength + valueLength;
+        }
+
+        return new Snapshot(buffer, hashes, offsets, size);
+    }
+
+    private static boolean sameKey(ByteBuffer buffer, int stored, int offset, int keyLength) {
+        if (buffer.getInt(stored) != keyLength) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (buffer.get(stored + 8 + i) != buffer.get(offset + 8 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(RecordEncoder encoder) {
+        byte[] bytes = encoder.bytes();
+        int hash = 1;
+        for (int i = 0; i < encoder.length(); i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return EqualsUtils.mix(hash);
+    }
+
+    private static int hash(ByteBuffer buffer, int offset, int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(offset + i);
+        }
+        return EqualsUtils.mix(hash);
+    }
+
+    private RecordEncoder encoder() {
+        return new RecordEncoder(layout.types(), layout.folders());
+    }
+
+}
@@ -0,0 +1,63 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Comparator;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+final class SortedComparison<T, R> implements Comparison<T> {
+
+    private final Function<T, Iterable<R>> getter;
+    private final Comparator<? super R> comparator;
+    private final BiPredicate<R, R> equalizer;
+    private final ToIntFunction<R> hasher;
+
+    SortedComparison(Function<T, Iterable<R>> getter, Comparator<? super R> comparator, BiPredicate<R, R> equalizer,
+                     ToIntFunction<R> hasher) {
+        this.getter = getter;
+        this.comparator = comparator;
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+    }
+
+    @Override
+    public boolean test(T a, T b) {
+        return EqualsUtils.sortedEqual(getter.apply(a), getter.apply(b), comparator, equalizer);
+    }
+
+    @Override
+    public int hash(T value) {
+        if (hasher == null) {
+            return 0;
+        }
+
+        Iterable<R> iterable = getter.apply(value);
+        return iterable == null ? 0 : EqualsUtils.hash(iterable, hasher);
+    }
+
+    @Override
+    public Mismatch mismatch(int step, String label, T a, T b) {
+        Iterable<R> first = getter.apply(a);
+        Iterable<R> second = getter.apply(b);
+        if (first == null || second == null) {
+            return Mismatch.of(step, label);
+        }
+        return SortedDiff.of(first, second, comparator, equalizer)
+                .findFirst()
+                .map(change -> Mismatch.atKey(step, label, change.key()))
+                .orElseGet(() -> Mismatch.of(step, label));
+    }
+
+    @Override
+    public void fold(T value, StructuredSink sink) {
+        sink.putOrdered(getter.apply(value));
+    }
+
+    @Override
+    public Comparison<T> specialize() {
+        return ClassSpecializer.newInstance(SortedComparison.class, this,
+                new Class<?>[]{Function.class, Comparator.class, BiPredicate.class, ToIntFunction.class},
+                getter, comparator, equalizer, hasher);
+    }
+
+}
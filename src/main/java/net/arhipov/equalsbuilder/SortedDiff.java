@@ -0,0 +1,227 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy differences between two sorted maps or two sorted iterables, found with a single merge walk.
+ * <p>
+ * Both sides are iterated in lockstep, and each step emits at most one {@link Change}: an entry only present
+ * in the second side is {@link Kind#ADDED added}, one only present in the first side is
+ * {@link Kind#REMOVED removed}, and entries with equal keys, but values not considered equal
+ * by the equalizer, are {@link Kind#CHANGED changed}. Changes come in key order and are found only
+ * as the stream is consumed, so large sorted views can be synchronized incrementally, and
+ * {@code findFirst()} stops the walk at the first difference. The equalizer is never invoked with
+ * {@code null}: {@code null} values only equal other {@code null} values.
+ * </p>
+ * <pre>{@code
+ * SortedDiff.of(previousPrices, currentPrices, BigDecimal::equals)
+ *         .forEach(change -> publisher.publish(change.key(), change.after()));
+ * }</pre>
+ */
+public final class SortedDiff {
+
+    /**
+     * A kind of difference.
+     */
+    public enum Kind {
+        ADDED, REMOVED, CHANGED
+    }
+
+    private SortedDiff() {
+    }
+
+    /**
+     * Returns a lazy stream of differences between sorted maps. Both maps must use the same ordering.
+     *
+     * @param before    the first, older map
+     * @param after     the second, newer map
+     * @param equalizer a method used to compare values of equal keys
+     * @param <K>       a key type
+     * @param <V>       a value type
+     * @return a stream of changes in key order
+     * @throws IllegalArgumentException if the maps have different comparators
+     */
+    public static <K, V> Stream<Change<K, V>> of(SortedMap<K, V> before, SortedMap<K, V> after,
+                                                 BiPredicate<V, V> equalizer) {
+        Objects.requireNonNull(equalizer, "equalizer");
+        Comparator<? super K> comparator = before.comparator();
+        if (!Objects.equals(comparator, after.comparator())) {
+            throw new IllegalArgumentException("Maps are sorted differently: " + comparator
+                    + " and " + after.comparator());
+        }
+
+        return StreamSupport.stream(new Merge<Map.Entry<K, V>, K, V>(before.entrySet().iterator(),
+                after.entrySet().iterator(), Map.Entry::getKey, Map.Entry::getValue,
+                (a, b) -> EqualsUtils.compare(comparator, a, b), equalizer, false), false);
+    }
+
+    /**
+     * Returns a lazy stream of differences between iterables sorted by the comparator.
+     * Elements the comparator considers equal are matched and then compared with the equalizer,
+     * so the comparator orders elements by their keys and the equalizer compares the rest of them.
+     * Repeated keys are matched pairwise in iteration order. Changes hold the matched elements
+     * as values and the element of the first iterable as a key.
+     *
+     * @param before     the first, older iterable
+     * @param after      the second, newer iterable
+     * @param comparator an order both iterables are sorted by
+     * @param equalizer  a method used to compare elements with equal keys
+     * @param <R>        an element type
+     * @return a stream of changes in key order
+     * @throws IllegalStateException from the stream, once an element is found out of order
+     */
+    public static <R> Stream<Change<R, R>> of(Iterable<R> before, Iterable<R> after,
+                                              Comparator<? super R> comparator, BiPredicate<R, R> equalizer) {
+        Objects.requireNonNull(comparator, "comparator");
+        Objects.requireNonNull(equalizer, "equalizer");
+        return StreamSupport.stream(new Merge<R, R, R>(before.iterator(), after.iterator(),
+                Function.identity(), Function.identity(), comparator, equalizer, true), false);
+    }
+
+    /**
+     * Walks two sorted iterators, reading the keys and values of elements with functions,
+     * so that map entries and plain elements share the walk.
+     */
+    private static final class Merge<E, K, V> extends Spliterators.AbstractSpliterator<Change<K, V>> {
+        private final Iterator<? extends E> before;
+        private final Iterator<? extends E> after;
+        private final Function<E, K> key;
+        private final Function<E, V> value;
+        private final Comparator<? super K> comparator;
+        private final BiPredicate<V, V> equalizer;
+        private final boolean checkOrder;
+
+        private E nextBefore;
+        private E nextAfter;
+        private boolean hasBefore;
+        private boolean hasAfter;
+
+        Merge(Iterator<? extends E> before, Iterator<? extends E> after, Function<E, K> key, Function<E, V> value,
+              Comparator<? super K> comparator, BiPredicate<V, V> equalizer, boolean checkOrder) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.before = before;
+            this.after = after;
+            this.key = key;
+            this.value = value;
+            this.comparator = comparator;
+            this.equalizer = equalizer;
+            this.checkOrder = checkOrder;
+            advanceBefore();
+            advanceAfter();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Change<K, V>> action) {
+            while (hasBefore || hasAfter) {
+                E b = nextBefore;
+                E a = nextAfter;
+                int order = !hasBefore ? 1 : !hasAfter ? -1 : comparator.compare(key.apply(b), key.apply(a));
+                if (order < 0) {
+                    advanceBefore();
+                    action.accept(new Change<>(Kind.REMOVED, key.apply(b), value.apply(b), null));
+                    return true;
+                } else if (order > 0) {
+                    advanceAfter();
+                    action.accept(new Change<>(Kind.ADDED, key.apply(a), null, value.apply(a)));
+                    return true;
+                }
+
+                advanceBefore();
+                advanceAfter();
+                V vb = value.apply(b);
+                V va = value.apply(a);
+                if (!EqualsUtils.nullSafeEqual(vb, va, equalizer)) {
+                    action.accept(new Change<>(Kind.CHANGED, key.apply(b), vb, va));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void advanceBefore() {
+            E previous = nextBefore;
+            hasBefore = before.hasNext();
+            nextBefore = hasBefore ? before.next() : null;
+            checkOrder(previous, nextBefore);
+        }
+
+        private void advanceAfter() {
+            E previous = nextAfter;
+            hasAfter = after.hasNext();
+            nextAfter = hasAfter ? after.next() : null;
+            checkOrder(previous, nextAfter);
+        }
+
+        private void checkOrder(E previous, E next) {
+            if (checkOrder && previous != null && next != null
+                    && comparator.compare(key.apply(previous), key.apply(next)) > 0) {
+                throw new IllegalStateException("Elements are not sorted: " + previous + " is followed by " + next);
+            }
+        }
+    }
+
+    /**
+     * A single difference between two sorted sides.
+     *
+     * @param <K> a key type
+     * @param <V> a value type
+     */
+    public static final class Change<K, V> {
+        private final Kind kind;
+        private final K key;
+        private final V before;
+        private final V after;
+
+        Change(Kind kind, K key, V before, V after) {
+            this.kind = kind;
+            this.key = key;
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * @return the kind of difference
+         */
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * @return the key present on either side
+         */
+        public K key() {
+            return key;
+        }
+
+        /**
+         * @return the value on the first side, or {@code null} if the key was added
+         */
+        public V before() {
+            return before;
+        }
+
+        /**
+         * @return the value on the second side, or {@code null} if the key was removed
+         */
+        public V after() {
+            return after;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + key + ": " + before + " -> " + after;
+        }
+    }
+
+}
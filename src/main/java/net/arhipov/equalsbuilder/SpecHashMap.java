@@ -0,0 +1,434 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A hash map comparing keys with an {@link EqualsSpec} instead of their own {@code equals} and {@code hashCode}.
+ * <p>
+ * Keys can be of any type, including third-party classes, and are stored as is, without wrappers.
+ * Entries are kept in flat arrays with open addressing and linear probing rather than in entry nodes,
+ * and hash codes of keys are stored alongside them, so a lookup only runs the spec on keys with
+ * an equal hash code. Removal shifts the following entries back instead of leaving tombstones,
+ * so lookups never slow down after many removals.
+ * </p>
+ * <p>
+ * {@code null} keys are not supported, {@code null} values are. Methods accepting {@code Object} keys throw
+ * {@link ClassCastException} if the key has an incompatible type, like {@code TreeMap} does. Keys must
+ * not change while they are in the map. Views support {@code Entry.setValue} and removal through iterators.
+ * Entries compare and hash their keys with the spec too, so two maps are equal if they have the same spec
+ * and their keys are equal by it. The map is not thread-safe, and its iterators are fail-fast.
+ * </p>
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ * @see SpecHashSet
+ * @see EqualityKey
+ */
+public final class SpecHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private final EqualsSpec<K> spec;
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int mask;
+    private int size;
+    private int modCount;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param spec a spec used to compare keys and compute their hash codes
+     */
+    public SpecHashMap(EqualsSpec<K> spec) {
+        this(spec, 0);
+    }
+
+    /**
+     * Creates an empty map, which holds the expected number of entries without resizing.
+     *
+     * @param spec         a spec used to compare keys and compute their hash codes
+     * @param expectedSize expected number of entries
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public SpecHashMap(EqualsSpec<K> spec, int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+
+        this.spec = Objects.requireNonNull(spec, "spec");
+        allocate(capacityFor(expectedSize));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int slot = find(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int slot = find(key);
+        return slot >= 0 ? (V) values[slot] : defaultValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        int hash = hash(Objects.requireNonNull(key, "key"));
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+
+        insert(~slot, key, value, hash);
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        V previous = (V) values[slot];
+        delete(slot);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /**
+     * Inserts the key with a {@code null} value unless an equal key is present.
+     *
+     * @param hash hash of the key computed with {@link #hash(Object)}
+     * @return true if the key was inserted
+     */
+    boolean add(K key, int hash) {
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            return false;
+        }
+
+        insert(~slot, key, null, hash);
+        return true;
+    }
+
+    /**
+     * Removes the key, which hash has already been computed with {@link #hash(Object)}.
+     *
+     * @return true if the key was removed
+     */
+    boolean remove(K key, int hash) {
+        int slot = find(key, hash);
+        if (slot < 0) {
+            return false;
+        }
+
+        delete(slot);
+        return true;
+    }
+
+    /**
+     * Returns the hash of the key as stored in the table, the spec hash code spread over all bits.
+     */
+    int hash(K key) {
+        return EqualsUtils.mix(spec.hashCode(key));
+    }
+
+    /**
+     * Returns the slot of the key, or -1 if there is no such key.
+     */
+    @SuppressWarnings("unchecked")
+    private int find(Object key) {
+        if (key == null) {
+            return -1;
+        }
+
+        K typed = (K) key;
+        int slot = find(typed, hash(typed));
+        return slot >= 0 ? slot : -1;
+    }
+
+    /**
+     * Returns the slot of the key, or a bitwise complement of the empty slot the key should be inserted into.
+     */
+    @SuppressWarnings("unchecked")
+    private int find(K key, int hash) {
+        int slot = hash & mask;
+        for (Object stored = keys[slot]; stored != null; stored = keys[slot]) {
+            if (hashes[slot] == hash && (stored == key || spec.test((K) stored, key))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    /**
+     * Removes the entry in the slot, shifting back the following entries of the same probe sequence
+     * (backward-shift deletion), so that no tombstones are needed.
+     */
+    private void delete(int slot) {
+        delete(slot, null);
+    }
+
+    /**
+     * Removes the entry in the slot, reporting entries which wrap around the end of the table to the iterator.
+     */
+    private void delete(int slot, SlotIterator<?> iterator) {
+        int gap = slot;
+        for (int next = (gap + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+            // An entry can fill the gap if its home slot is not cyclically between the gap and itself
+            int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                if (iterator != null && next < gap) {
+                    iterator.wrapped(keys[next]);
+                }
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                hashes[gap] = hashes[next];
+                gap = next;
+            }
+        }
+
+        keys[gap] = null;
+        values[gap] = null;
+        size--;
+        modCount++;
+    }
+
+    private void insert(int slot, K key, V value, int hash) {
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        modCount++;
+        if (++size > (mask + 1) / 2) {
+            allocate((mask + 1) * 2);
+        }
+    }
+
+    private void allocate(int capacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+
+        if (oldKeys != null) {
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = oldHashes[i] & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        // Keeps the load factor at most 1/2, which keeps linear probe sequences short
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+    }
+
+    /**
+     * Iterates over occupied slots from the end of the table, failing fast on concurrent modification.
+     * <p>
+     * Removal shifts entries back, towards slots already visited, so going backwards none of them is visited
+     * twice. The only entries moving the other way are ones wrapping around from the start of the table
+     * to its end, which are remembered and visited after the slots.
+     * </p>
+     */
+    abstract class SlotIterator<E> implements Iterator<E> {
+        private int expectedModCount = modCount;
+        private int next = advance(keys.length - 1);
+        private int last = -1;
+        private List<Object> wrapped;
+        private int wrappedIndex;
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0 || wrapped != null && wrappedIndex < wrapped.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            } else if (next >= 0) {
+                last = next;
+                next = advance(last - 1);
+            } else if (wrapped != null && wrappedIndex < wrapped.size()) {
+                K key = (K) wrapped.get(wrappedIndex);
+                wrapped.set(wrappedIndex++, null);
+                last = find(key, hash(key));
+            } else {
+                throw new NoSuchElementException();
+            }
+            return at(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            } else if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (next >= 0) {
+                delete(last, this);
+                // Unvisited entries at the start of the table might have moved
+                next = advance(last - 1);
+            } else {
+                delete(last);
+            }
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        abstract E at(int slot);
+
+        private void wrapped(Object key) {
+            if (wrapped == null) {
+                wrapped = new ArrayList<>();
+            }
+            wrapped.add(key);
+        }
+
+        private int advance(int from) {
+            while (from >= 0 && keys[from] == null) {
+                from--;
+            }
+            return from;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new SlotIterator<Map.Entry<K, V>>() {
+                @Override
+                Map.Entry<K, V> at(int slot) {
+                    return new SlotEntry(slot);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<K, V> {
+        private final int slot;
+        private final K key;
+
+        @SuppressWarnings("unchecked")
+        SlotEntry(int slot) {
+            this.slot = slot;
+            this.key = (K) keys[slot];
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            return (V) values[slot];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+
+        /**
+         * Compares keys with the spec, and values with their own {@code equals}.
+         *
+         * @throws ClassCastException if the key of the other entry has an incompatible type
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object other = e.getKey();
+            return other != null && (other == key || spec.test(key, (K) other))
+                    && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return spec.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+}
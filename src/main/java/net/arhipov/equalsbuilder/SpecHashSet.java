@@ -0,0 +1,84 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * A hash set comparing elements with an {@link EqualsSpec} instead of their own {@code equals} and {@code hashCode}.
+ * It is backed by a {@link SpecHashMap} and has the same properties: elements are stored without wrappers
+ * in an open-addressing table, {@code null} elements are not supported, and iterators support removal.
+ * Its hash code is computed with the spec, so it agrees with {@code equals} of sets with the same spec.
+ *
+ * @param <T> type of elements
+ * @see SpecHashMap
+ */
+public final class SpecHashSet<T> extends AbstractSet<T> {
+
+    private static final Object PRESENT = new Object();
+
+    private final EqualsSpec<T> spec;
+    private final SpecHashMap<T, Object> map;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param spec a spec used to compare elements and compute their hash codes
+     */
+    public SpecHashSet(EqualsSpec<T> spec) {
+        this.spec = spec;
+        this.map = new SpecHashMap<>(spec);
+    }
+
+    /**
+     * Creates a set containing distinct elements of the collection, keeping the first of equal ones.
+     *
+     * @param spec     a spec used to compare elements and compute their hash codes
+     * @param elements elements to be added to the set
+     */
+    public SpecHashSet(EqualsSpec<T> spec, Collection<? extends T> elements) {
+        this.spec = spec;
+        this.map = new SpecHashMap<>(spec, elements.size());
+        addAll(elements);
+    }
+
+    @Override
+    public boolean add(T element) {
+        return map.putIfAbsent(element, PRESENT) == null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return map.containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return map.remove(o) != null;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return map.keySet().iterator();
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (T element : this) {
+            hash += spec.hashCode(element);
+        }
+        return hash;
+    }
+
+}
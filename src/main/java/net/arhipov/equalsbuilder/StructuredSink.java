@@ -0,0 +1,254 @@
+package net.arhipov.equalsbuilder;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link FieldSink} that knows how to take apart strings, boxed primitives, enums, arrays,
+ * collections, maps and registered custom types. Subclasses decide how primitive values, type tags
+ * and unordered collections are represented: mixed into a digest or written out as bytes.
+ * <p>
+ * Values of unknown size are preceded by a type tag and their length, and ordered collections are
+ * followed by their element count, so that adjacent values cannot shift into each other.
+ * </p>
+ *
+ * @see FingerprintDigest
+ * @see RecordEncoder
+ */
+abstract class StructuredSink implements FieldSink {
+
+    static final int NULL = 1;
+    static final int STRING = 2;
+    static final int NUMBER = 3;
+    static final int ENUM = 4;
+    static final int ARRAY = 5;
+    static final int ORDERED = 6;
+    static final int UNORDERED = 7;
+    static final int MAP = 8;
+    static final int CUSTOM = 9;
+    static final int HASH_CODE = 10;
+
+    // Boxed types, put along with the NUMBER tag, so that equal values of different types differ
+    private static final int OTHER_NUMBER = 0;
+    private static final int DOUBLE = 1;
+    private static final int FLOAT = 2;
+    private static final int LONG = 3;
+    private static final int INTEGER = 4;
+    private static final int SHORT = 5;
+    private static final int BYTE = 6;
+    private static final int BOOLEAN = 7;
+    private static final int CHARACTER = 8;
+
+    private final boolean persistent;
+    private Class<?>[] types;
+    private BiConsumer<Object, FieldSink>[] folders;
+
+    /**
+     * @param persistent whether the output outlives the JVM, so that objects of unregistered types
+     *                   cannot be put by their {@code hashCode}
+     */
+    StructuredSink(Class<?>[] types, BiConsumer<Object, FieldSink>[] folders, boolean persistent) {
+        this.persistent = persistent;
+        this.types = types;
+        this.folders = folders;
+    }
+
+    /**
+     * Puts a type tag along with a non-negative length, count or index.
+     */
+    abstract void tagged(int tag, long value);
+
+    /**
+     * Puts elements independently of iteration order, counting duplicates.
+     */
+    abstract void putUnordered(Collection<?> collection);
+
+    /**
+     * Puts entries independently of iteration order.
+     */
+    abstract void putMap(Map<?, ?> map);
+
+    @Override
+    public void putObject(Object value) {
+        if (value == null) {
+            tagged(NULL, 0);
+        } else if (value instanceof CharSequence) {
+            putString((CharSequence) value);
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            putBoxed(value);
+        } else if (value instanceof Enum) {
+            tagged(ENUM, 0);
+            putString(((Enum<?>) value).name());
+        } else if (value.getClass().isArray()) {
+            putArray(value);
+        } else if (folders.length > 0 && putCustom(value)) {
+            return;
+        } else if (value instanceof Set) {
+            putUnordered((Set<?>) value);
+        } else if (value instanceof Collection) {
+            putOrdered((Collection<?>) value);
+        } else if (value instanceof Map) {
+            putMap((Map<?, ?>) value);
+        } else if (persistent) {
+            throw new IllegalArgumentException("No layout is registered for " + value.getClass().getName()
+                    + ", and its hashCode may differ between runs");
+        } else {
+            tagged(HASH_CODE, value.hashCode() & 0xffffffffL);
+        }
+    }
+
+    /**
+     * Puts elements in iteration order.
+     */
+    void putOrdered(Iterable<?> iterable) {
+        if (iterable == null) {
+            tagged(NULL, 0);
+            return;
+        }
+
+        long count = 0;
+        if (iterable instanceof List && iterable instanceof RandomAccess) {
+            List<?> list = (List<?>) iterable;
+            for (int i = 0, size = list.size(); i < size; i++) {
+                putObject(list.get(i));
+            }
+            count = list.size();
+        } else {
+            for (Object element : iterable) {
+                putObject(element);
+                count++;
+            }
+        }
+        tagged(ORDERED, count);
+    }
+
+    /**
+     * Puts a value with custom types replaced by the ones of a nested fingerprinter.
+     */
+    <R> void putNested(R value, Fingerprinter<R> fingerprinter) {
+        Class<?>[] savedTypes = types;
+        BiConsumer<Object, FieldSink>[] savedFolders = folders;
+        types = fingerprinter.types();
+        folders = fingerprinter.folders();
+        try {
+            fingerprinter.fold(value, this);
+        } finally {
+            types = savedTypes;
+            folders = savedFolders;
+        }
+    }
+
+    /**
+     * Replaces custom types, e.g. with the ones of the sink this one is nested into.
+     */
+    void layout(Class<?>[] types, BiConsumer<Object, FieldSink>[] folders) {
+        this.types = types;
+        this.folders = folders;
+    }
+
+    Class<?>[] types() {
+        return types;
+    }
+
+    BiConsumer<Object, FieldSink>[] folders() {
+        return folders;
+    }
+
+    private boolean putCustom(Object value) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isInstance(value)) {
+                tagged(CUSTOM, i);
+                folders[i].accept(value, this);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putBoxed(Object value) {
+        if (value instanceof Double) {
+            tagged(NUMBER, DOUBLE);
+            putLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Float) {
+            tagged(NUMBER, FLOAT);
+            putInt(Float.floatToIntBits((Float) value));
+        } else if (value instanceof Long) {
+            tagged(NUMBER, LONG);
+            putLong((Long) value);
+        } else if (value instanceof Integer) {
+            tagged(NUMBER, INTEGER);
+            putInt((Integer) value);
+        } else if (value instanceof Short) {
+            tagged(NUMBER, SHORT);
+            putInt((Short) value);
+        } else if (value instanceof Byte) {
+            tagged(NUMBER, BYTE);
+            putInt((Byte) value);
+        } else if (value instanceof Boolean) {
+            tagged(NUMBER, BOOLEAN);
+            putBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            tagged(NUMBER, CHARACTER);
+            putInt((Character) value);
+        } else {
+            // BigDecimal, BigInteger and other numbers have no fixed width, and are told apart by their class
+            tagged(NUMBER, OTHER_NUMBER);
+            putString(value.getClass().getName());
+            putString(value.toString());
+        }
+    }
+
+    private void putArray(Object array) {
+        if (array instanceof int[]) {
+            int[] values = (int[]) array;
+            tagged(ARRAY, values.length);
+            for (int value : values) {
+                putInt(value);
+            }
+        } else if (array instanceof long[]) {
+            long[] values = (long[]) array;
+            tagged(ARRAY, values.length);
+            for (long value : values) {
+                putLong(value);
+            }
+        } else if (array instanceof double[]) {
+            double[] values = (double[]) array;
+            tagged(ARRAY, values.length);
+            for (double value : values) {
+                // Arrays are compared by bits, unlike double fields
+                putLong(Double.doubleToLongBits(value));
+            }
+        } else if (array instanceof byte[]) {
+            byte[] values = (byte[]) array;
+            tagged(ARRAY, values.length);
+            for (byte value : values) {
+                putInt(value);
+            }
+        } else if (array instanceof char[]) {
+            char[] values = (char[]) array;
+            tagged(ARRAY, values.length);
+            for (char value : values) {
+                putInt(value);
+            }
+        } else if (array instanceof Object[]) {
+            Object[] values = (Object[]) array;
+            tagged(ARRAY, values.length);
+            for (Object value : values) {
+                putObject(value);
+            }
+        } else {
+            // Remaining primitive arrays: boolean[], short[] and float[]
+            int length = Array.getLength(array);
+            tagged(ARRAY, length);
+            for (int i = 0; i < length; i++) {
+                putObject(Array.get(array, i));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Order-independent comparison of collections using a custom equalizer and a consistent hasher.
+ * <p>
+ * Elements of the first collection are grouped into equivalence classes in a temporary
+ * open-addressing hash table with linear probing, then every element of the second collection
+ * is looked up in it. Both operations take expected linear time and allocate three arrays
+ * proportional to the size of the first collection. Neither the equalizer nor the hasher
+ * are ever invoked with {@code null}: {@code null} elements only match other {@code null} elements.
+ * </p>
+ */
+final class UnorderedEquality<R> {
+
+    private final BiPredicate<R, R> equalizer;
+    private final ToIntFunction<R> hasher;
+    private final Object[] keys;
+    private final int[] hashes;
+    private final int[] counts;
+    private final int mask;
+
+    private int nulls;
+    private int classes;
+
+    private UnorderedEquality(int expectedSize, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+
+        this.equalizer = equalizer;
+        this.hasher = hasher;
+        this.keys = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.counts = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Compares collections as sets: every element of one collection must have an equal element
+     * in the other one. Multiplicity is ignored, so collections of different sizes might be equal.
+     */
+    static <R> boolean setsEqual(Collection<R> a, Collection<R> b, BiPredicate<R, R> equalizer,
+                                 ToIntFunction<R> hasher) {
+        if (a == b) {
+            return true;
+        } else if (a == null || b == null || a.isEmpty() != b.isEmpty()) {
+            return false;
+        } else if (a.size() == b.size() && sortedPairwiseEqual(a, b, equalizer)) {
+            return true;
+        }
+
+        UnorderedEquality<R> table = new UnorderedEquality<>(a.size(), equalizer, hasher);
+        for (R element : a) {
+            table.add(element);
+        }
+
+        int matched = 0;
+        boolean nullMatched = false;
+        for (R element : b) {
+            int slot = table.find(element);
+            if (slot == -1) {
+                return false;
+            } else if (slot == -2) {
+                if (!nullMatched) {
+                    nullMatched = true;
+                    matched++;
+                }
+            } else if (table.counts[slot] > 0) {
+                table.counts[slot] = 0;
+                matched++;
+            }
+        }
+
+        return matched == table.classes;
+    }
+
+    /**
+     * Compares collections as bags: every equivalence class must have the same number of elements
+     * in both collections.
+     */
+    static <R> boolean bagsEqual(Collection<R> a, Collection<R> b, BiPredicate<R, R> equalizer,
+                                 ToIntFunction<R> hasher) {
+        if (a == b) {
+            return true;
+        } else if (a == null || b == null || a.size() != b.size()) {
+            return false;
+        } else if (sortedPairwiseEqual(a, b, equalizer)) {
+            return true;
+        }
+
+        UnorderedEquality<R> table = new UnorderedEquality<>(a.size(), equalizer, hasher);
+        for (R element : a) {
+            table.add(element);
+        }
+
+        // Sizes are equal, so if no class runs out of elements, every class is matched exactly
+        for (R element : b) {
+            int slot = table.find(element);
+            if (slot == -1 || (slot == -2 ? table.nulls-- : table.counts[slot]--) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Tries to match sorted sets of the same size and order with a single merge walk, pairing elements
+     * at the same positions, which proves equality without building a table. The equalizer is not
+     * necessarily consistent with the order of the sets (e.g. it might ignore case), so a failed walk
+     * does not prove anything, and the caller falls back to the table.
+     */
+    private static <R> boolean sortedPairwiseEqual(Collection<R> a, Collection<R> b, BiPredicate<R, R> equalizer) {
+        if (!(a instanceof SortedSet && b instanceof SortedSet
+                && Objects.equals(((SortedSet<R>) a).comparator(), ((SortedSet<R>) b).comparator()))) {
+            return false;
+        }
+
+        Iterator<R> bIterator = b.iterator();
+        for (R element : a) {
+            if (!EqualsUtils.nullSafeEqual(element, bIterator.next(), equalizer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes a collection as a set, consistently with {@link #setsEqual}.
+     */
+    static <R> int setHash(Collection<R> collection, BiPredicate<R, R> equalizer, ToIntFunction<R> hasher) {
+        UnorderedEquality<R> table = new UnorderedEquality<>(collection.size(), equalizer, hasher);
+        int result = 0;
+        for (R element : collection) {
+            int slot = table.add(element);
+            if (slot >= 0) {
+                result += table.hashes[slot];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Hashes a collection as a bag, consistently with {@link #bagsEqual}.
+     */
+    static <R> int bagHash(Collection<R> collection, ToIntFunction<R> hasher) {
+        int result = 0;
+        for (R element : collection) {
+            if (element != null) {
+                result += hasher.applyAsInt(element);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds an element to its equivalence class.
+     *
+     * @return the slot of a new equivalence class of a non-null element, or -1 otherwise
+     */
+    private int add(R element) {
+        if (element == null) {
+            if (nulls++ == 0) {
+                classes++;
+            }
+            return -1;
+        }
+
+        int hash = hasher.applyAsInt(element);
+        int slot = find(element, hash);
+        if (slot >= 0) {
+            counts[slot]++;
+            return -1;
+        }
+
+        slot = EqualsUtils.mix(hash) & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = element;
+        hashes[slot] = hash;
+        counts[slot] = 1;
+        classes++;
+        return slot;
+    }
+
+    /**
+     * Finds the equivalence class of an element.
+     *
+     * @return a slot index, -2 for null elements, or -1 if there is no such class
+     */
+    private int find(R element) {
+        if (element == null) {
+            return nulls > 0 ? -2 : -1;
+        }
+        return find(element, hasher.applyAsInt(element));
+    }
+
+    @SuppressWarnings("unchecked")
+    private int find(R element, int hash) {
+        for (int slot = EqualsUtils.mix(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash && equalizer.test((R) keys[slot], element)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,21 @@
+package net.arhipov.equalsbuilder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compares a region of a (usually memory-mapped) buffer with encoded bytes with the vectorized
+ * {@link ByteBuffer#mismatch}, without copying the region.
+ * This is the Java 11 version of the class, loaded from {@code META-INF/versions/11} of the multi-release jar.
+ */
+final class BufferMismatch {
+
+    private BufferMismatch() {
+    }
+
+    static boolean regionEquals(ByteBuffer buffer, int offset, byte[] bytes, int length) {
+        ByteBuffer region = buffer.duplicate();
+        region.limit(offset + length).position(offset);
+        return region.mismatch(ByteBuffer.wrap(bytes, 0, length)) == -1;
+    }
+
+}
@@ -0,0 +1,53 @@
+package net.arhipov.equalsbuilder;
+
+import jdk.jfr.EventType;
+
+/**
+ * Reports slow or large comparison steps to JDK Flight Recorder as {@link EqualsComparisonEvent}s.
+ * <p>
+ * This is the Java 11 version of the class, loaded from {@code META-INF/versions/11} of the multi-release jar.
+ * While no recording has the event enabled, {@link #isRecording()} is a single field read and comparisons
+ * take their regular path without timing anything.
+ * </p>
+ */
+final class ComparisonEvents {
+
+    private static final EventType TYPE = EventType.getEventType(EqualsComparisonEvent.class);
+
+    private ComparisonEvents() {
+    }
+
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+
+    static Object begin() {
+        EqualsComparisonEvent event = new EqualsComparisonEvent();
+        event.begin();
+        return event;
+    }
+
+    static boolean end(Object event) {
+        EqualsComparisonEvent comparison = (EqualsComparisonEvent) event;
+        comparison.end();
+        // With the largest sizes the size threshold always passes, so only the duration is checked
+        comparison.firstSize = Integer.MAX_VALUE;
+        comparison.secondSize = Integer.MAX_VALUE;
+        return comparison.shouldCommit();
+    }
+
+    static void commit(Object event, Class<?> type, int step, String label, int firstSize, int secondSize,
+                       boolean equal) {
+        EqualsComparisonEvent comparison = (EqualsComparisonEvent) event;
+        comparison.firstSize = firstSize;
+        comparison.secondSize = secondSize;
+        if (comparison.shouldCommit()) {
+            comparison.comparedType = type;
+            comparison.step = step;
+            comparison.label = label;
+            comparison.equal = equal;
+            comparison.commit();
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package net.arhipov.equalsbuilder;
+
+import jdk.jfr.SettingControl;
+
+import java.util.Set;
+
+/**
+ * Recording setting for the minimum number of compared elements, e.g. {@code minElements=10000}.
+ * When several recordings are running, the smallest minimum wins, so that each of them gets
+ * at least the events it asked for. Values that are not numbers are treated as 0.
+ */
+final class ElementCountSetting extends SettingControl {
+
+    private volatile int minimum;
+
+    @Override
+    public String combine(Set<String> values) {
+        int result = Integer.MAX_VALUE;
+        for (String value : values) {
+            result = Math.min(result, parse(value));
+        }
+        return Integer.toString(result == Integer.MAX_VALUE ? 0 : result);
+    }
+
+    @Override
+    public void setValue(String value) {
+        minimum = parse(value);
+    }
+
+    @Override
+    public String getValue() {
+        return Integer.toString(minimum);
+    }
+
+    int minimum() {
+        return minimum;
+    }
+
+    private static int parse(String value) {
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
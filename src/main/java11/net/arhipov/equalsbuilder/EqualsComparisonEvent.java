@@ -0,0 +1,57 @@
+package net.arhipov.equalsbuilder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.SettingDefinition;
+import jdk.jfr.Threshold;
+
+/**
+ * A single step of an {@link EqualsSpec} comparison that took long or compared large collections or maps.
+ * <p>
+ * Both thresholds are regular recording settings, e.g. {@code threshold=0 ms} together with
+ * {@code minElements=100000} reports every step comparing at least 100000 elements, however fast it was.
+ * A step is committed only when it crosses both of them; by default only the duration threshold applies.
+ * </p>
+ */
+@Name("net.arhipov.equalsbuilder.EqualsComparison")
+@Label("Equals Comparison")
+@Category("Equals Builder")
+@Description("A slow or large comparison step of an EqualsSpec")
+@Threshold("20 ms")
+final class EqualsComparisonEvent extends Event {
+
+    @Label("Compared Type")
+    Class<?> comparedType;
+
+    @Label("Step")
+    @Description("Index of the comparison step in declaration order")
+    int step;
+
+    @Label("Step Label")
+    @Description("Name of the comparison step given with EqualsSpec.named, if any")
+    String label;
+
+    @Label("First Size")
+    @Description("Size of the first compared collection or map, or -1")
+    int firstSize;
+
+    @Label("Second Size")
+    @Description("Size of the second compared collection or map, or -1")
+    int secondSize;
+
+    @Label("Equal")
+    boolean equal;
+
+    @Label("Minimum Elements")
+    @Description("Only report steps comparing a collection or map of at least this size")
+    @Name("minElements")
+    @SettingDefinition
+    protected boolean minElements(ElementCountSetting setting) {
+        int minimum = setting.minimum();
+        return minimum == 0 || Math.max(firstSize, secondSize) >= minimum;
+    }
+
+}
@@ -0,0 +1,36 @@
+package net.arhipov.equalsbuilder;
+
+import java.util.Arrays;
+
+/**
+ * Locates the first differing element of primitive arrays with the vectorized {@link Arrays#mismatch}.
+ * This is the Java 17 version of the class, loaded from {@code META-INF/versions/17} of the multi-release jar.
+ * It only speeds up {@link EqualsSpec#firstMismatch(Object, Object)}: array equality keeps using
+ * {@code Arrays.equals}, which has used the same vectorized scan since Java 9.
+ */
+final class ArrayMismatch {
+
+    private ArrayMismatch() {
+    }
+
+    static int mismatch(int[] a, int[] b) {
+        return Arrays.mismatch(a, b);
+    }
+
+    static int mismatch(long[] a, long[] b) {
+        return Arrays.mismatch(a, b);
+    }
+
+    static int mismatch(double[] a, double[] b) {
+        return Arrays.mismatch(a, b);
+    }
+
+    static int mismatch(byte[] a, byte[] b) {
+        return Arrays.mismatch(a, b);
+    }
+
+    static int mismatch(char[] a, char[] b) {
+        return Arrays.mismatch(a, b);
+    }
+
+}
@@ -0,0 +1,189 @@
+package net.arhipov.equalsbuilder;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Builds specs comparing every instance field of a class, see {@link EqualsSpec#auto(Class)}.
+ * <p>
+ * This is the Java 17 version of the class, loaded from {@code META-INF/versions/17} of the multi-release jar.
+ * Fields are read through {@link VarHandle}s obtained with a private lookup, which needs no
+ * {@code setAccessible} calls. Every field gets its own hidden copy of a typed getter class, defined with
+ * the handle as its class data, so the handle is a JIT constant and a field read compiles down to a plain load.
+ * </p>
+ */
+final class AutoSpecs {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<EqualsSpec<?>> SPECS = new ClassValue<EqualsSpec<?>>() {
+        @Override
+        protected EqualsSpec<?> computeValue(Class<?> type) {
+            return build(type);
+        }
+    };
+
+    private AutoSpecs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> EqualsSpec<T> of(Class<T> type) {
+        return (EqualsSpec<T>) SPECS.get(type);
+    }
+
+    private static <T> EqualsSpec<T> build(Class<T> type) {
+        if (type.isInterface() || type.isArray() || type.isPrimitive()) {
+            throw new IllegalArgumentException("Cannot compare fields of " + type.getName());
+        }
+
+        EqualsSpec<T> spec = EqualsSpec.of(type);
+        for (Field field : fields(type)) {
+            spec = append(spec, field).named(field.getName());
+        }
+        return spec.specialize();
+    }
+
+    /**
+     * Returns instance fields of the class and its superclasses, superclass fields first.
+     */
+    private static List<Field> fields(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    declared.add(field);
+                }
+            }
+            fields.addAll(0, declared);
+        }
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> EqualsSpec<T> append(EqualsSpec<T> spec, Field field) {
+        Class<?> type = field.getType();
+        VarHandle handle = handle(field);
+
+        // Lambdas reading the handle from a captured field are only used if hidden classes can not be defined
+        if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+            ToIntFunction<T> getter = value -> (int) handle.get(value);
+            return spec.comparing(getter(IntGetter.class, handle, getter));
+        } else if (type == long.class) {
+            ToLongFunction<T> getter = value -> (long) handle.get(value);
+            return spec.comparing(getter(LongGetter.class, handle, getter));
+        } else if (type == double.class || type == float.class) {
+            ToDoubleFunction<T> getter = value -> (double) handle.get(value);
+            return spec.comparing(getter(DoubleGetter.class, handle, getter));
+        } else if (type == boolean.class) {
+            Predicate<T> getter = value -> (boolean) handle.get(value);
+            return spec.comparing(getter(BooleanGetter.class, handle, getter));
+        }
+
+        Function<T, Object> objectGetter = value -> (Object) handle.get(value);
+        objectGetter = getter(ObjectGetter.class, handle, objectGetter);
+        if (type == int[].class) {
+            return spec.comparingIntArrays((Function<T, int[]>) (Function<T, ?>) objectGetter);
+        } else if (type == long[].class) {
+            return spec.comparingLongArrays((Function<T, long[]>) (Function<T, ?>) objectGetter);
+        } else if (type == double[].class) {
+            return spec.comparingDoubleArrays((Function<T, double[]>) (Function<T, ?>) objectGetter);
+        } else if (type == byte[].class) {
+            return spec.comparingByteArrays((Function<T, byte[]>) (Function<T, ?>) objectGetter);
+        } else if (type == char[].class) {
+            return spec.comparingCharArrays((Function<T, char[]>) (Function<T, ?>) objectGetter);
+        } else if (type.isArray() || type == Object.class) {
+            // Fields of type Object might hold arrays as well
+            return spec.comparing(objectGetter, Objects::deepEquals, value -> Arrays.deepHashCode(new Object[]{value}));
+        }
+        return spec.comparing(objectGetter, (Class<Object>) type);
+    }
+
+    private static VarHandle handle(Field field) {
+        try {
+            return MethodHandles.privateLookupIn(field.getDeclaringClass(), LOOKUP).unreflectVarHandle(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot access field " + field, e);
+        }
+    }
+
+    /**
+     * Returns an instance of a hidden copy of the getter class holding the handle in a static final field,
+     * which the JIT treats as a constant. Returns the fallback if the class can not be copied.
+     */
+    static <G> G getter(Class<?> template, VarHandle handle, G fallback) {
+        return ClassSpecializer.newInstanceWithData(template, handle, fallback);
+    }
+
+    /**
+     * Reads the handle a hidden getter copy was defined with. Returns {@code null} for the templates themselves,
+     * which are never instantiated. Package-private, as hidden copies are not nestmates of this class
+     * and can not call its private methods.
+     */
+    static VarHandle classData(MethodHandles.Lookup lookup) {
+        try {
+            return MethodHandles.classData(lookup, ConstantDescs.DEFAULT_NAME, VarHandle.class);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    static final class IntGetter implements ToIntFunction<Object> {
+        private static final VarHandle HANDLE = classData(MethodHandles.lookup());
+
+        @Override
+        public int applyAsInt(Object value) {
+            return (int) HANDLE.get(value);
+        }
+    }
+
+    static final class LongGetter implements ToLongFunction<Object> {
+        private static final VarHandle HANDLE = classData(MethodHandles.lookup());
+
+        @Override
+        public long applyAsLong(Object value) {
+            return (long) HANDLE.get(value);
+        }
+    }
+
+    static final class DoubleGetter implements ToDoubleFunction<Object> {
+        private static final VarHandle HANDLE = classData(MethodHandles.lookup());
+
+        @Override
+        public double applyAsDouble(Object value) {
+            return (double) HANDLE.get(value);
+        }
+    }
+
+    static final class BooleanGetter implements Predicate<Object> {
+        private static final VarHandle HANDLE = classData(MethodHandles.lookup());
+
+        @Override
+        public boolean test(Object value) {
+            return (boolean) HANDLE.get(value);
+        }
+    }
+
+    static final class ObjectGetter implements Function<Object, Object> {
+        private static final VarHandle HANDLE = classData(MethodHandles.lookup());
+
+        @Override
+        public Object apply(Object value) {
+            return (Object) HANDLE.get(value);
+        }
+    }
+
+}
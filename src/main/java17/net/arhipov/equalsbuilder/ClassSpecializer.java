@@ -0,0 +1,94 @@
+package net.arhipov.equalsbuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Defines private copies of template classes at runtime as hidden classes.
+ * <p>
+ * This is the Java 17 version of the class, loaded from {@code META-INF/versions/17} of the multi-release jar.
+ * Like the baseline version, it gives every copy its own type profile, so that call sites inside of it
+ * stay monomorphic. Hidden classes need no renaming or reflective access to class loader internals,
+ * and unlike regular classes they are unloaded once the spec using them becomes unreachable.
+ * The JIT also trusts final instance fields of hidden classes, so a getter held by a copy is a constant
+ * wherever the copy itself is one. Copies are reached through the comparison array of a spec, whose
+ * elements are not trusted, so calls into them are inlined by type profile rather than constant-folded.
+ * </p>
+ */
+final class ClassSpecializer {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final Logger LOGGER = Logger.getLogger(ClassSpecializer.class.getName());
+
+    private ClassSpecializer() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <C> C newInstance(Class<?> template, C fallback, Class<?>[] parameterTypes, Object... arguments) {
+        Class<?> copy = copyOf(template);
+        if (copy == template) {
+            return fallback;
+        }
+
+        try {
+            Constructor<?> constructor = copy.getDeclaredConstructor(parameterTypes);
+            return (C) constructor.newInstance(arguments);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Creates an instance of a fresh copy of the template class, which can retrieve the given class data
+     * with {@code MethodHandles.classData}, typically into a static final field. Unlike instance fields,
+     * class data is a constant for the JIT however the instance was reached.
+     *
+     * @param template  a class to copy, with a constructor without parameters, which may be private
+     * @param classData an object the copy is defined with
+     * @param fallback  an instance returned if the class can not be copied
+     * @param <C>       template type
+     * @return an instance of a template copy, or fallback
+     * @throws IllegalStateException if the constructor of the copy throws
+     */
+    @SuppressWarnings("unchecked")
+    static <C> C newInstanceWithData(Class<?> template, Object classData, C fallback) {
+        try {
+            MethodHandles.Lookup copy = LOOKUP.defineHiddenClassWithClassData(readBytecode(template), classData, true);
+            return (C) copy.findConstructor(copy.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (IOException | ReflectiveOperationException | LinkageError e) {
+            // Linkage errors include failures of the static initializer reading the class data
+            LOGGER.log(Level.WARNING, e, () -> "Cannot define a hidden copy of " + template.getName());
+            return fallback;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot instantiate a hidden copy of " + template.getName(), t);
+        }
+    }
+
+    static Class<?> copyOf(Class<?> template) {
+        try {
+            // References to the template through its own class constant resolve to the hidden copy
+            return LOOKUP.defineHiddenClass(readBytecode(template), true).lookupClass();
+        } catch (IOException | IllegalAccessException | RuntimeException | LinkageError e) {
+            return template;
+        }
+    }
+
+    private static byte[] readBytecode(Class<?> template) throws IOException {
+        String resource = template.getName().substring(template.getName().lastIndexOf('.') + 1) + ".class";
+        try (InputStream in = template.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Bytecode of " + template.getName() + " is not available");
+            }
+            return in.readAllBytes();
+        }
+    }
+
+}
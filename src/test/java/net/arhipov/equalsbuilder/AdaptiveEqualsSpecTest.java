@@ -0,0 +1,162 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveEqualsSpecTest {
+
+    private static class Record {
+        private final String name;
+        private final String description;
+        private final int id;
+
+        Record(String name, String description, int id) {
+            this.name = name;
+            this.description = description;
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    private static class Node {
+        private final String name;
+        private final List<Node> links = new ArrayList<>();
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Collection<Node> getLinks() {
+            return links;
+        }
+    }
+
+    private static final EqualsSpec<Node> NODE = EqualsSpec.of(Node.class)
+            .comparingCollections(Node::getLinks, (a, b) -> AdaptiveEqualsSpecTest.NODE.test(a, b))
+            .comparing(Node::getName)
+            .cycleSafe();
+
+    private static final EqualsSpec<Record> SPEC = EqualsSpec.of(Record.class)
+            .comparing(Record::getName)
+            .comparing(Record::getDescription)
+            .comparing(Record::getId);
+
+    @Test
+    public void learnsToCheckDistinguishingFieldFirst() {
+        AdaptiveEqualsSpec<Record> adaptive = SPEC.adaptive(1, 16);
+        String description = new String(new char[1000]).replace('\0', 'x');
+
+        for (int i = 0; i < 64; i++) {
+            Record a = new Record("name", description, i);
+            Record b = new Record("name", new String(description), i + 1);
+            assertFalse(adaptive.test(a, b));
+        }
+
+        assertEquals(2, adaptive.currentOrder()[0]);
+    }
+
+    @Test
+    public void resultAndHashCodeDoNotDependOnOrder() {
+        AdaptiveEqualsSpec<Record> adaptive = SPEC.adaptive(1, 4);
+        Record record = new Record("name", "description", 1);
+        Record[] candidates = {
+                record,
+                new Record("name", "description", 1),
+                new Record("other", "description", 1),
+                new Record("name", "other", 1),
+                new Record("name", "description", 2),
+                null
+        };
+
+        for (int round = 0; round < 8; round++) {
+            for (Record candidate : candidates) {
+                assertEquals(SPEC.test(record, candidate), adaptive.test(record, candidate));
+                assertEquals(SPEC.test(record, candidate), adaptive.freeze().test(record, candidate));
+            }
+        }
+
+        assertEquals(SPEC.hashCode(record), adaptive.hashCode(record));
+        assertEquals(SPEC.hashCode(record), adaptive.freeze().hashCode(record));
+        assertFalse(adaptive.test(record, "name"));
+    }
+
+    @Test
+    public void frozenSpecDoesNotSample() {
+        AtomicInteger calls = new AtomicInteger();
+        AdaptiveEqualsSpec<Record> adaptive = EqualsSpec.of(Record.class)
+                .comparing((Function<Record, String>) r -> {
+                    calls.incrementAndGet();
+                    return r.getName();
+                })
+                .comparing(Record::getId)
+                .adaptive(1, 16);
+
+        Record a = new Record("name", null, 1);
+        Record b = new Record("name", null, 2);
+        for (int i = 0; i < 64; i++) {
+            adaptive.test(a, b);
+        }
+
+        EqualsSpec<Record> frozen = adaptive.freeze();
+        assertArrayEquals(new int[]{1, 0}, adaptive.currentOrder());
+
+        calls.set(0);
+        assertFalse(frozen.test(a, b));
+        assertEquals(0, calls.get());
+        assertTrue(frozen.specialize().test(a, new Record("name", "other", 1)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void keepsCycleSafetyCacheAndMetrics() {
+        ComparisonCache cache = new ComparisonCache(64);
+        LongAdderEqualsMetrics metrics = new LongAdderEqualsMetrics(2);
+        AdaptiveEqualsSpec<Node> adaptive = NODE.cached(cache).withMetrics(metrics).specialize().adaptive(2, 4);
+
+        Node first = new Node("a");
+        first.links.add(first);
+        Node second = new Node("a");
+        second.links.add(second);
+        Node other = new Node("b");
+        other.links.add(other);
+
+        for (int i = 0; i < 32; i++) {
+            assertTrue(adaptive.test(first, second));
+            assertFalse(adaptive.test(first, other));
+            assertTrue(adaptive.freeze().test(first, second));
+        }
+
+        // Results are cached, so only the first calls are evaluated and reported
+        assertTrue(cache.hits() > 0);
+        assertTrue(metrics.comparisons() > 0);
+        assertTrue(metrics.equal() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidSampleInterval() {
+        SPEC.adaptive(0, 1);
+    }
+}
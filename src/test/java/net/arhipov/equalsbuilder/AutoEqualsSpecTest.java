@@ -0,0 +1,108 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.*;
+import static org.junit.Assert.*;
+
+public class AutoEqualsSpecTest {
+
+    private static class Base {
+        private final long id;
+
+        Base(long id) {
+            this.id = id;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Sample extends Base {
+        private static int instances;
+
+        private final int count;
+        private final short small;
+        private final char letter;
+        private final double ratio;
+        private final float weight;
+        private final boolean active;
+        private final String name;
+        private final List<String> tags;
+        private final int[] numbers;
+        private final String[][] matrix;
+        private transient int cachedHash;
+
+        Sample(long id, int count, double ratio, float weight, boolean active, String name, List<String> tags,
+               int[] numbers, String[][] matrix) {
+            super(id);
+            this.count = count;
+            this.small = (short) count;
+            this.letter = 'x';
+            this.ratio = ratio;
+            this.weight = weight;
+            this.active = active;
+            this.name = name;
+            this.tags = tags;
+            this.numbers = numbers;
+            this.matrix = matrix;
+            this.cachedHash = ++instances;
+        }
+    }
+
+    @Test
+    public void compareAllFields() {
+        EqualsSpec<Sample> spec = EqualsBuilder.auto(Sample.class);
+        Sample sample = sample(1L, 2, "name");
+
+        assertTrue(spec.test(sample, sample));
+        assertTrue(spec.test(sample, sample(1L, 2, "name")));
+        assertFalse(spec.test(sample, sample(2L, 2, "name")));
+        assertFalse(spec.test(sample, sample(1L, 3, "name")));
+        assertFalse(spec.test(sample, sample(1L, 2, null)));
+        assertFalse(spec.test(sample, null));
+        assertFalse(spec.test(sample, "sample"));
+
+        Sample other = new Sample(1L, 2, 0.5, 1.5F, true, "name", asList("a", "b"), new int[]{1, 2},
+                new String[][]{{"a"}, {"c"}});
+        assertEquals("matrix", spec.firstMismatch(sample, other).label());
+    }
+
+    @Test
+    public void hashCodeIsConsistent() {
+        EqualsSpec<Sample> spec = EqualsSpec.auto(Sample.class);
+        Sample first = sample(1L, 2, "name");
+        Sample second = sample(1L, 2, "name");
+
+        assertEquals(spec.hashCode(first), spec.hashCode(second));
+        assertNotEquals(spec.hashCode(first), spec.hashCode(sample(1L, 3, "name")));
+    }
+
+    @Test
+    public void specIsCachedPerClass() {
+        assertSame(EqualsSpec.auto(Sample.class), EqualsBuilder.auto(Sample.class));
+        assertNotSame(EqualsSpec.auto(Sample.class), EqualsSpec.auto(Base.class));
+
+        assertTrue(EqualsSpec.auto(Base.class).test(new Base(1), new Base(1)));
+        assertFalse(EqualsSpec.auto(Base.class).test(new Base(1), new Base(2)));
+    }
+
+    @Test
+    public void reportsFieldNames() {
+        Mismatch mismatch = EqualsSpec.auto(Sample.class).firstMismatch(sample(1L, 2, "a"), sample(1L, 2, "b"));
+        assertEquals("name", mismatch.label());
+        assertEquals("id", EqualsSpec.auto(Sample.class).firstMismatch(sample(1L, 2, "a"), sample(2L, 2, "a")).label());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void interfacesAreRejected() {
+        EqualsSpec.auto(Runnable.class);
+    }
+
+    private static Sample sample(long id, int count, String name) {
+        return new Sample(id, count, 0.5, 1.5F, true, name, asList("a", "b"), new int[]{1, 2},
+                new String[][]{{"a"}, {"b"}});
+    }
+
+}
@@ -0,0 +1,144 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+public class ComparisonCacheTest {
+
+    private static class Config {
+        private final String name;
+        private final List<String> values;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        Config(String name, String... values) {
+            this.name = name;
+            this.values = asList(values);
+        }
+
+        String getName() {
+            reads.incrementAndGet();
+            return name;
+        }
+
+        List<String> getValues() {
+            return values;
+        }
+    }
+
+    private static EqualsSpec<Config> spec(ComparisonCache cache) {
+        return EqualsSpec.of(Config.class)
+                .comparing(Config::getName)
+                .comparingCollections(Config::getValues, String::equals)
+                .cached(cache);
+    }
+
+    @Test
+    public void cachesResults() {
+        ComparisonCache cache = new ComparisonCache(100);
+        EqualsSpec<Config> spec = spec(cache);
+        Config first = new Config("first", "a", "b");
+        Config second = new Config("first", "a", "b");
+        Config third = new Config("first", "a", "c");
+
+        assertTrue(spec.test(first, second));
+        assertTrue(spec.test(first, second));
+        assertFalse(spec.test(first, third));
+        assertFalse(spec.test(first, third));
+        assertEquals(2, first.reads.get());
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+
+        assertTrue(spec.specialize().test(first, second));
+        assertEquals(3, first.reads.get());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertTrue(spec.test(first, second));
+        assertEquals(4, first.reads.get());
+    }
+
+    @Test
+    public void trivialComparisonsBypassCache() {
+        ComparisonCache cache = new ComparisonCache(100);
+        EqualsSpec<Config> spec = spec(cache);
+        Config config = new Config("config");
+
+        assertTrue(spec.test(config, config));
+        assertFalse(spec.test(config, null));
+        assertFalse(spec.test(config, "config"));
+        assertEquals(0, cache.hits() + cache.misses());
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        ComparisonCache cache = new ComparisonCache(50);
+        EqualsSpec<Config> spec = spec(cache);
+        List<Config> configs = IntStream.range(0, 1000).mapToObj(i -> new Config("c" + i)).collect(toList());
+        Config hot = new Config("c0");
+
+        for (int i = 1; i < configs.size(); i++) {
+            assertFalse(spec.test(configs.get(i), configs.get(i - 1)));
+            assertTrue(spec.test(configs.get(0), hot));
+            assertTrue(cache.size() <= 50);
+        }
+        assertEquals(50, cache.size());
+
+        // The pair compared on every iteration stays cached
+        int reads = hot.reads.get();
+        assertTrue(spec.test(configs.get(0), hot));
+        assertEquals(reads, hot.reads.get());
+    }
+
+    @Test
+    public void isThreadSafe() throws Exception {
+        ComparisonCache cache = new ComparisonCache(64);
+        EqualsSpec<Config> spec = spec(cache);
+        List<Config> firsts = IntStream.range(0, 200).mapToObj(i -> new Config("c" + i % 10)).collect(toList());
+        List<Config> seconds = IntStream.range(0, 200).mapToObj(i -> new Config("c" + i % 7)).collect(toList());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = IntStream.range(0, 4).mapToObj(t -> executor.submit(() -> {
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < firsts.size(); i++) {
+                        int j = (i * 31 + round) % seconds.size();
+                        boolean expected = firsts.get(i).name.equals(seconds.get(j).name);
+                        if (spec.test(firsts.get(i), seconds.get(j)) != expected) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            })).collect(toList());
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(4 * 20 * 200, cache.hits() + cache.misses());
+        assertTrue(cache.size() <= 64);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sizeMustBePositive() {
+        new ComparisonCache(0);
+    }
+
+}
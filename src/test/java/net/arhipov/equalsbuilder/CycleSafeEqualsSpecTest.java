@@ -0,0 +1,192 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CycleSafeEqualsSpecTest {
+
+    private static final AtomicInteger NAME_COMPARISONS = new AtomicInteger();
+
+    private static class Node {
+        private final String name;
+        private final List<Node> children = new ArrayList<>();
+        private Node parent;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        Node add(Node child) {
+            child.parent = this;
+            children.add(child);
+            return this;
+        }
+
+        String getName() {
+            NAME_COMPARISONS.incrementAndGet();
+            return name;
+        }
+
+        Node getParent() {
+            return parent;
+        }
+
+        Collection<Node> getChildren() {
+            return children;
+        }
+    }
+
+    private static class Vertex {
+        private final int value;
+        private final Set<Vertex> edges = new LinkedHashSet<>();
+
+        Vertex(int value) {
+            this.value = value;
+        }
+
+        int getValue() {
+            return value;
+        }
+
+        Collection<Vertex> getEdges() {
+            return edges;
+        }
+    }
+
+    // Edges are compared first, so that pairs below are compared before the values of their ancestors
+    private static final EqualsSpec<Vertex> VERTEX = EqualsSpec.of(Vertex.class)
+            .comparingSets(Vertex::getEdges, (a, b) -> CycleSafeEqualsSpecTest.VERTEX.test(a, b), v -> 0)
+            .comparing(Vertex::getValue)
+            .cycleSafe();
+
+    private static final EqualsSpec<Node> NODE = EqualsSpec.of(Node.class)
+            .comparing(Node::getName)
+            .comparing(Node::getParent, (a, b) -> CycleSafeEqualsSpecTest.NODE.test(a, b))
+            .comparingCollections(Node::getChildren, (a, b) -> CycleSafeEqualsSpecTest.NODE.test(a, b))
+            .cycleSafe();
+
+    @Test
+    public void compareGraphsWithBackReferences() {
+        Node first = tree("root", "a", "b");
+        Node second = tree("root", "a", "b");
+
+        assertTrue(NODE.test(first, second));
+        assertTrue(NODE.test(first.children.get(1), second.children.get(1)));
+        assertTrue(NODE.specialize().test(first, second));
+
+        assertFalse(NODE.test(first, tree("root", "a", "c")));
+        assertFalse(NODE.test(first, tree("other", "a", "b")));
+        assertFalse(NODE.test(first.children.get(0), tree("root", "a", "c").children.get(0)));
+    }
+
+    @Test
+    public void compareSelfReferences() {
+        Node first = new Node("loop");
+        Node second = new Node("loop");
+        first.add(first);
+        second.add(second);
+
+        assertTrue(NODE.test(first, second));
+        assertFalse(NODE.test(first, new Node("loop").add(new Node("loop"))));
+    }
+
+    @Test
+    public void compareSharedSubgraphsOnce() {
+        Node first = diamonds(20);
+        Node second = diamonds(20);
+
+        NAME_COMPARISONS.set(0);
+        assertTrue(NODE.test(first, second));
+        // Without memoization every one of 2^20 paths would be walked
+        assertTrue(NAME_COMPARISONS.get() < 1000);
+    }
+
+    @Test
+    public void failedCandidatesDoNotLeaveAssumedResults() {
+        // x1 -> x2 -> x1 is a cycle, while y1 and y2 both point to y1, which is only equal to x2 if x1 equals y1
+        Vertex x1 = new Vertex(2);
+        Vertex x2 = new Vertex(1);
+        Vertex y1 = new Vertex(1);
+        Vertex y2 = new Vertex(2);
+        x1.edges.add(x2);
+        x2.edges.add(x1);
+        y1.edges.add(y1);
+        y2.edges.add(y1);
+
+        // Matching x1 with y1 first assumes them equal while comparing x2 with y1, and then fails
+        for (List<Vertex> order : Arrays.asList(Arrays.asList(x1, x2), Arrays.asList(x2, x1))) {
+            Vertex first = new Vertex(0);
+            Vertex second = new Vertex(0);
+            first.edges.addAll(order);
+            second.edges.addAll(Arrays.asList(y1, y2));
+
+            assertFalse(VERTEX.test(x2, y1));
+            assertFalse(VERTEX.test(first, second));
+            assertNotNull(VERTEX.firstMismatch(first, second));
+        }
+    }
+
+    @Test
+    public void tableIsClearedBetweenComparisons() {
+        Node first = tree("root", "a", "b");
+        Node second = tree("root", "a", "b");
+        assertTrue(NODE.test(first, second));
+
+        second.children.get(0).children.add(new Node("late"));
+        assertFalse(NODE.test(first, second));
+
+        second.children.get(0).children.remove(1);
+        assertTrue(NODE.test(first, second));
+    }
+
+    @Test
+    public void recoversFromExceptions() {
+        EqualsSpec<Node> failing = EqualsSpec.of(Node.class)
+                .comparing(Node::getName, (a, b) -> {
+                    throw new IllegalStateException();
+                })
+                .cycleSafe();
+        try {
+            failing.test(new Node("a"), new Node("a"));
+            fail();
+        } catch (IllegalStateException expected) {
+            // Ignore
+        }
+
+        assertTrue(NODE.test(tree("root", "a"), tree("root", "a")));
+    }
+
+    private static Node tree(String root, String... children) {
+        Node node = new Node(root);
+        for (String child : children) {
+            node.add(new Node(child).add(new Node(child + "-leaf")));
+        }
+        return node;
+    }
+
+    /**
+     * Builds a chain of diamonds, where each level has two children sharing the same grandchild.
+     */
+    private static Node diamonds(int depth) {
+        Node bottom = new Node("bottom");
+        for (int i = 0; i < depth; i++) {
+            Node left = new Node("left");
+            Node right = new Node("right");
+            left.children.add(bottom);
+            right.children.add(bottom);
+            bottom = new Node("top").add(left).add(right);
+        }
+        return bottom;
+    }
+
+}
@@ -0,0 +1,141 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static org.junit.Assert.*;
+
+public class EqualizersTest {
+
+    private enum Color {
+        RED, GREEN {
+            @Override
+            public String toString() {
+                return "green";
+            }
+        }
+    }
+
+    private static class Item {
+        private final Color color;
+        private final String name;
+        private final Integer count;
+        private final int[] values;
+
+        Item(Color color, String name, Integer count, int[] values) {
+            this.color = color;
+            this.name = name;
+            this.count = count;
+            this.values = values;
+        }
+
+        Color getColor() {
+            return color;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Integer getCount() {
+            return count;
+        }
+
+        int[] getValues() {
+            return values;
+        }
+    }
+
+    @Test
+    public void agreesWithObjectsEquals() {
+        assertConsistent(Color.class, Color.RED, Color.GREEN, Color.RED);
+        assertConsistent(String.class, "a", "b", new String("a"));
+        assertConsistent(Integer.class, 1000, 1001, new Integer(1000));
+        assertConsistent(Long.class, 1000L, 1001L, new Long(1000));
+        assertConsistent(Short.class, (short) 1000, (short) 1001, new Short((short) 1000));
+        assertConsistent(Byte.class, (byte) 1, (byte) 2, new Byte((byte) 1));
+        assertConsistent(Character.class, 'a', 'b', new Character('a'));
+        assertConsistent(Boolean.class, true, false, new Boolean(true));
+        assertConsistent(Double.class, Double.NaN, 0.0, new Double(Double.NaN));
+        assertConsistent(Double.class, 0.0, -0.0, new Double(0.0));
+        assertConsistent(Float.class, 1.5f, 2.5f, new Float(1.5f));
+        assertConsistent(Object.class, "a", 1, new String("a"));
+        assertSame(Equalizers.forType(Color.class), Equalizers.forType(Enum.class));
+    }
+
+    @Test
+    public void comparesArraysByContent() {
+        BiPredicate<int[], int[]> ints = Equalizers.forType(int[].class);
+        assertTrue(ints.test(new int[]{1, 2}, new int[]{1, 2}));
+        assertFalse(ints.test(new int[]{1, 2}, new int[]{1, 3}));
+        assertTrue(ints.test(null, null));
+        assertFalse(ints.test(new int[0], null));
+        assertEquals(Equalizers.hasherFor(int[].class).applyAsInt(new int[]{1, 2}), Arrays.hashCode(new int[]{1, 2}));
+
+        BiPredicate<Object[][], Object[][]> nested = Equalizers.forType(Object[][].class);
+        assertTrue(nested.test(new Object[][]{{"a", new int[]{1}}}, new Object[][]{{"a", new int[]{1}}}));
+        assertFalse(nested.test(new Object[][]{{"a"}}, new Object[][]{{"b"}}));
+        ToIntFunction<Object[][]> hasher = Equalizers.hasherFor(Object[][].class);
+        assertEquals(hasher.applyAsInt(new Object[][]{{"a", new int[]{1}}}),
+                hasher.applyAsInt(new Object[][]{{"a", new int[]{1}}}));
+
+        assertTrue(Equalizers.forType(boolean[].class).test(new boolean[]{true}, new boolean[]{true}));
+        assertFalse(Equalizers.forType(float[].class).test(new float[]{1}, new float[]{2}));
+    }
+
+    @Test
+    public void typedComparisons() {
+        Item item = new Item(Color.RED, "name", 1000, new int[]{1, 2});
+        Function<Item, int[]> values = Item::getValues;
+        EqualsSpec<Item> spec = EqualsSpec.of(Item.class)
+                .comparing(Item::getColor, Color.class)
+                .comparing(Item::getName, String.class)
+                .comparing(Item::getCount, Integer.class)
+                .comparing(values, int[].class);
+
+        Item same = new Item(Color.RED, new String("name"), new Integer(1000), new int[]{1, 2});
+        assertTrue(spec.test(item, same));
+        assertEquals(spec.hashCode(item), spec.hashCode(same));
+        assertTrue(spec.specialize().test(item, same));
+        assertFalse(spec.test(item, new Item(Color.GREEN, "name", 1000, new int[]{1, 2})));
+        assertFalse(spec.test(item, new Item(Color.RED, "other", 1000, new int[]{1, 2})));
+        assertFalse(spec.test(item, new Item(Color.RED, "name", null, new int[]{1, 2})));
+        assertFalse(spec.test(item, new Item(Color.RED, "name", 1000, new int[]{2, 1})));
+        assertTrue(spec.test(new Item(null, null, null, null), new Item(null, null, null, null)));
+
+        assertTrue(EqualsBuilder.test(item, same)
+                .comparing(Item::getColor, Color.class)
+                .comparing(Item::getName, String.class)
+                .comparing(values, int[].class)
+                .areEqual());
+        assertFalse(EqualsBuilder.test(item, new Item(Color.RED, "name", 1001, new int[]{1, 2}))
+                .comparing(Item::getCount, Integer.class)
+                .areEqual());
+    }
+
+    private static <R> void assertConsistent(Class<R> type, R value, R other, R copy) {
+        BiPredicate<R, R> equalizer = Equalizers.forType(type);
+        ToIntFunction<R> hasher = Equalizers.hasherFor(type);
+        R[] values = values(value, other, copy, null);
+        for (R a : values) {
+            for (R b : values) {
+                assertEquals(a + " and " + b, Objects.equals(a, b), equalizer.test(a, b));
+                if (a != null && b != null && equalizer.test(a, b)) {
+                    assertEquals(hasher.applyAsInt(a), hasher.applyAsInt(b));
+                }
+            }
+        }
+    }
+
+    @SafeVarargs
+    private static <R> R[] values(R... values) {
+        return values;
+    }
+
+}
@@ -3,11 +3,18 @@ package net.arhipov.equalsbuilder;
 
 import org.junit.Test;
 
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static java.util.Arrays.*;
 import static java.util.Collections.*;
@@ -565,4 +572,128 @@ public class EqualsBuilderTest {
             .comparingMaps(AtomicReference::get, Objects::equals)
             .areEqual());
     }
+
+    @Test
+    public void compareWithMapSubclassesOverridingLookups() {
+        class CaseInsensitiveMap extends HashMap<String, Integer> {
+            @Override
+            public Integer get(Object key) {
+                return super.get(((String) key).toLowerCase());
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return super.containsKey(((String) key).toLowerCase());
+            }
+        }
+
+        Map<String, Integer> map1 = new HashMap<>();
+        Map<String, Integer> map2 = new CaseInsensitiveMap();
+        map1.put("KEY", 1);
+        map1.put("NONE", null);
+        map2.put("key", 1);
+        map2.put("none", null);
+
+        assertTrue(EqualsBuilder.test(new AtomicReference<>(map1), new AtomicReference<>(map2))
+                .comparingMaps(AtomicReference::get, Objects::equals)
+                .areEqual());
+        assertTrue(EqualsBuilder.test(new AtomicReference<>(map1), new AtomicReference<>(map2))
+                .comparingMaps(AtomicReference::get, Objects::equals, 1)
+                .areEqual());
+
+        class CaseInsensitiveTreeMap extends TreeMap<String, Integer> {
+            @Override
+            public Integer get(Object key) {
+                return super.get(((String) key).toLowerCase());
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return super.containsKey(((String) key).toLowerCase());
+            }
+        }
+
+        Map<String, Integer> sorted1 = new TreeMap<>(map1);
+        Map<String, Integer> sorted2 = new CaseInsensitiveTreeMap();
+        sorted2.putAll(map2);
+
+        assertTrue(EqualsBuilder.test(new AtomicReference<>(sorted1), new AtomicReference<>(sorted2))
+                .comparingMaps(AtomicReference::get, Objects::equals)
+                .areEqual());
+    }
+
+    @Test
+    public void compareKnownMapImplementationsHavingNullValues() {
+        List<Supplier<Map<TimeUnit, Integer>>> types = asList(HashMap::new, LinkedHashMap::new, IdentityHashMap::new,
+                TreeMap::new, () -> new EnumMap<>(TimeUnit.class));
+
+        for (Supplier<Map<TimeUnit, Integer>> firstType : types) {
+            for (Supplier<Map<TimeUnit, Integer>> secondType : types) {
+                Map<TimeUnit, Integer> map1 = firstType.get();
+                Map<TimeUnit, Integer> map2 = secondType.get();
+                map1.put(TimeUnit.SECONDS, 1);
+                map1.put(TimeUnit.MINUTES, null);
+                map2.put(TimeUnit.MINUTES, null);
+                map2.put(TimeUnit.SECONDS, 1);
+
+                assertTrue(EqualsBuilder.test(new AtomicReference<>(map1), new AtomicReference<>(map2))
+                        .comparingMaps(AtomicReference::get, Objects::equals)
+                        .areEqual());
+
+                map2.remove(TimeUnit.MINUTES);
+                map2.put(TimeUnit.HOURS, null);
+
+                assertFalse(EqualsBuilder.test(new AtomicReference<>(map1), new AtomicReference<>(map2))
+                        .comparingMaps(AtomicReference::get, Objects::equals)
+                        .areEqual());
+
+                map2.remove(TimeUnit.HOURS);
+                map2.put(TimeUnit.MINUTES, 2);
+
+                assertFalse(EqualsBuilder.test(new AtomicReference<>(map1), new AtomicReference<>(map2))
+                        .comparingMaps(AtomicReference::get, Objects::equals)
+                        .areEqual());
+                assertFalse(EqualsBuilder.test(new AtomicReference<>(map2), new AtomicReference<>(map1))
+                        .comparingMaps(AtomicReference::get, Objects::equals)
+                        .areEqual());
+            }
+        }
+    }
+
+    @Test
+    public void compareWithPrimitiveArrays() {
+        assertTrue(EqualsBuilder.test(new AtomicReference<>(new int[]{1, 2}), new AtomicReference<>(new int[]{1, 2}))
+                .comparingIntArrays(AtomicReference::get)
+                .areEqual());
+        assertFalse(EqualsBuilder.test(new AtomicReference<>(new int[]{1, 2}), new AtomicReference<>(new int[]{2, 1}))
+                .comparingIntArrays(AtomicReference::get)
+                .areEqual());
+        assertFalse(EqualsBuilder.test(new AtomicReference<>(new long[]{1}), new AtomicReference<>(new long[]{1, 2}))
+                .comparingLongArrays(AtomicReference::get)
+                .areEqual());
+        assertTrue(EqualsBuilder.test(new AtomicReference<>(new double[]{Double.NaN}),
+                new AtomicReference<>(new double[]{Double.NaN}))
+                .comparingDoubleArrays(AtomicReference::get)
+                .areEqual());
+        assertFalse(EqualsBuilder.test(new AtomicReference<>(new byte[]{1}), new AtomicReference<>((byte[]) null))
+                .comparingByteArrays(AtomicReference::get)
+                .areEqual());
+        assertTrue(EqualsBuilder.test(new AtomicReference<>("abc".toCharArray()),
+                new AtomicReference<>("abc".toCharArray()))
+                .comparingCharArrays(AtomicReference::get)
+                .areEqual());
+    }
+
+    @Test
+    public void compareRandomAccessAndSequentialLists() {
+        List<Integer> arrayList = asList(1, 2, 3);
+        List<Integer> linkedList = new LinkedList<>(arrayList);
+
+        assertTrue(EqualsUtils.areEqual(arrayList, asList(1, 2, 3), Objects::equals));
+        assertTrue(EqualsUtils.areEqual(arrayList, linkedList, Objects::equals));
+        assertTrue(EqualsUtils.areEqual(linkedList, arrayList, Objects::equals));
+        assertFalse(EqualsUtils.areEqual(arrayList, asList(1, 2), Objects::equals));
+        assertFalse(EqualsUtils.areEqual(asList(1, 2), arrayList, Objects::equals));
+        assertFalse(EqualsUtils.areEqual(arrayList, asList(1, 2, 4), Objects::equals));
+    }
 }
@@ -0,0 +1,118 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Arrays.*;
+import static org.junit.Assert.*;
+
+public class EqualsMetricsTest {
+
+    private static class Item {
+        private final int id;
+        private final String name;
+        private final List<String> tags;
+
+        Item(int id, String name, List<String> tags) {
+            this.id = id;
+            this.name = name;
+            this.tags = tags;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Collection<String> getTags() {
+            return tags;
+        }
+    }
+
+    private static EqualsSpec<Item> spec() {
+        return EqualsSpec.of(Item.class)
+                .comparing(Item::getId)
+                .comparing(Item::getName)
+                .comparingCollections(Item::getTags, Objects::equals);
+    }
+
+    @Test
+    public void countsComparisonsAndStops() {
+        LongAdderEqualsMetrics metrics = new LongAdderEqualsMetrics(3);
+        EqualsSpec<Item> spec = spec().withMetrics(metrics);
+        Item item = new Item(1, "name", asList("a", "b"));
+
+        assertTrue(spec.test(item, new Item(1, "name", asList("a", "b"))));
+        assertFalse(spec.test(item, new Item(2, "name", asList("a", "b"))));
+        assertFalse(spec.test(item, new Item(1, "other", asList("a", "b"))));
+        assertFalse(spec.test(item, new Item(1, "name", asList("a", "b", "c", "d"))));
+        assertTrue(spec.test(item, item));
+        assertFalse(spec.test(item, null));
+
+        assertEquals(4, metrics.comparisons());
+        assertEquals(1, metrics.equal());
+        assertEquals(4, metrics.evaluations(0));
+        assertEquals(3, metrics.evaluations(1));
+        assertEquals(2, metrics.evaluations(2));
+        assertEquals(1, metrics.stops(0));
+        assertEquals(1, metrics.stops(1));
+        assertEquals(1, metrics.stops(2));
+        assertEquals(2.5, metrics.averageSize(2), 0.0);
+        assertEquals(0.0, metrics.averageSize(0), 0.0);
+        assertEquals(0.0, metrics.averageNanos(0), 0.0);
+    }
+
+    @Test
+    public void reportsDeclarationIndicesOfReorderedSteps() {
+        List<Integer> stops = new ArrayList<>();
+        EqualsSpec<Item> spec = spec()
+                .reorder(new int[]{2, 1, 0})
+                .withMetrics((evaluated, stoppedAt) -> stops.add(stoppedAt * 10 + evaluated));
+
+        Item item = new Item(1, "name", asList("a", "b"));
+        assertFalse(spec.test(item, new Item(2, "name", asList("a", "b"))));
+        assertFalse(spec.test(item, new Item(1, "name", asList("a"))));
+        assertTrue(spec.test(item, new Item(1, "name", asList("a", "b"))));
+
+        assertEquals(asList(3, 21, -7), stops);
+    }
+
+    @Test
+    public void timesSampledSteps() {
+        LongAdderEqualsMetrics metrics = new LongAdderEqualsMetrics(1, 1);
+        EqualsSpec<Item> spec = spec().withMetrics(metrics);
+        Item item = new Item(1, "name", asList("a", "b"));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(spec.test(item, new Item(1, "name", asList("a", "b"))));
+        }
+        assertTrue(metrics.averageNanos(0) >= 0);
+        assertEquals(10, metrics.evaluations(0));
+    }
+
+    @Test
+    public void metricsDoNotChangeResults() {
+        EqualsSpec<Item> plain = spec();
+        EqualsSpec<Item> measured = spec().specialize().withMetrics(new LongAdderEqualsMetrics(0, 2));
+        Item item = new Item(1, "name", asList("a", "b"));
+        Item[] others = {
+                new Item(1, "name", asList("a", "b")),
+                new Item(1, "name", null),
+                new Item(1, null, asList("a", "b")),
+                new Item(3, "name", asList("a", "b")),
+        };
+        for (Item other : others) {
+            assertEquals(plain.test(item, other), measured.test(item, other));
+            assertEquals(plain.hashCode(other), measured.hashCode(other));
+        }
+    }
+
+}
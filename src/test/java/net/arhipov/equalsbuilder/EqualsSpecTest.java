@@ -0,0 +1,335 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+public class EqualsSpecTest {
+
+    interface Identifiable {
+        int getId();
+    }
+
+    private static class Person implements Identifiable {
+        private final int id;
+
+        Person(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+    }
+
+    private static class Address implements Identifiable {
+        private final int house;
+        private final long phone;
+        private final double longitude;
+        private final boolean existing;
+        private final String city;
+
+        Address(int house, long phone, double longitude, String city, boolean existing) {
+            this.house = house;
+            this.phone = phone;
+            this.longitude = longitude;
+            this.city = city;
+            this.existing = existing;
+        }
+
+        @Override
+        public int getId() {
+            return house;
+        }
+
+        public long getPhone() {
+            return phone;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public boolean isExisting() {
+            return existing;
+        }
+    }
+
+    private static class Registry {
+        private final List<Person> people;
+        private final Iterable<Person> iterable;
+        private final Map<Integer, Address> addresses;
+
+        Registry(List<Person> people, Map<Integer, Address> addresses) {
+            this.people = people;
+            this.iterable = people;
+            this.addresses = addresses;
+        }
+
+        public List<Person> getPeople() {
+            return people;
+        }
+
+        public Iterable<Person> getIterable() {
+            return iterable;
+        }
+
+        public Map<Integer, Address> getAddresses() {
+            return addresses;
+        }
+    }
+
+    private static final EqualsSpec<Address> ADDRESS = EqualsSpec.of(Address.class)
+            .comparing(Address::getId)
+            .comparing(Address::getPhone)
+            .comparing(Address::getLongitude)
+            .comparing(Address::isExisting)
+            .comparing(Address::getCity);
+
+    private static final EqualsSpec<Person> PERSON = EqualsSpec.of(Person.class)
+            .comparing(Person::getId);
+
+    private static final EqualsSpec<Registry> REGISTRY = EqualsSpec.of(Registry.class)
+            .comparingCollections(Registry::getPeople, PERSON::test)
+            .comparingIterables(Registry::getIterable, PERSON::test)
+            .comparingMaps(Registry::getAddresses, ADDRESS::test);
+
+    @Test
+    public void compareSameObject() {
+        Address address = new Address(1, 123123L, 25.6, "Somewhere", true);
+
+        assertTrue(ADDRESS.test(address, address));
+        assertTrue(ADDRESS.test(null, null));
+    }
+
+    @Test
+    public void compareFields() {
+        Address address1 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        Address address2 = new Address(1, 123123L, 25.6, "Somewhere", true);
+
+        assertTrue(ADDRESS.test(address1, address2));
+        assertFalse(ADDRESS.test(address1, new Address(2, 123123L, 25.6, "Somewhere", true)));
+        assertFalse(ADDRESS.test(address1, new Address(1, 123124L, 25.6, "Somewhere", true)));
+        assertFalse(ADDRESS.test(address1, new Address(1, 123123L, 25.7, "Somewhere", true)));
+        assertFalse(ADDRESS.test(address1, new Address(1, 123123L, 25.6, "Somewhere", false)));
+        assertFalse(ADDRESS.test(address1, new Address(1, 123123L, 25.6, "Somewhere else", true)));
+        assertFalse(ADDRESS.test(address1, new Address(1, 123123L, 25.6, null, true)));
+    }
+
+    @Test
+    public void specIsImmutable() {
+        EqualsSpec<Address> byId = EqualsSpec.of(Address.class).comparing(Address::getId);
+        EqualsSpec<Address> byIdAndCity = byId.comparing(Address::getCity);
+
+        Address address1 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        Address address2 = new Address(1, 123123L, 25.6, "Somewhere else", true);
+
+        assertTrue(byId.test(address1, address2));
+        assertFalse(byIdAndCity.test(address1, address2));
+    }
+
+    @Test
+    public void nullChecks() {
+        Address address = new Address(1, 123123L, 25.6, "Somewhere", true);
+
+        assertFalse(ADDRESS.test(address, null));
+        assertFalse(ADDRESS.test(null, address));
+    }
+
+    @Test
+    public void compareByCommonSuperType() {
+        Person person = new Person(1);
+        Address address = new Address(1, 123123L, 25.6, "Somewhere", true);
+
+        EqualsSpec<Identifiable> common = EqualsSpec.ofCommonType(Identifiable.class)
+                .comparing(Identifiable::getId);
+        EqualsSpec<Identifiable> exact = EqualsSpec.of(Identifiable.class)
+                .comparing(Identifiable::getId);
+
+        assertTrue(common.test(person, address));
+        assertFalse(common.test(person, "1"));
+        assertFalse(exact.test(person, address));
+    }
+
+    @Test
+    public void compareWithCollectionsAndMaps() {
+        Address address1 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        Address address2 = new Address(2, 123123L, 25.6, "Somewhere else", true);
+        Address address3 = new Address(2, 123123L, 25.6, "Somewhere else", true);
+
+        Map<Integer, Address> map1 = new HashMap<>();
+        map1.put(1, address1);
+        map1.put(2, address2);
+        Map<Integer, Address> map2 = new HashMap<>();
+        map2.put(1, address1);
+        map2.put(2, address3);
+
+        Registry registry1 = new Registry(asList(new Person(1), new Person(2)), map1);
+        Registry registry2 = new Registry(asList(new Person(1), new Person(2)), map2);
+
+        assertTrue(REGISTRY.test(registry1, registry2));
+        assertTrue(REGISTRY.test(new Registry(null, null), new Registry(null, null)));
+        assertTrue(REGISTRY.test(new Registry(emptyList(), emptyMap()), new Registry(emptyList(), emptyMap())));
+
+        assertFalse(REGISTRY.test(registry1, new Registry(asList(new Person(1)), map2)));
+        assertFalse(REGISTRY.test(registry1, new Registry(asList(new Person(2), new Person(1)), map2)));
+        assertFalse(REGISTRY.test(registry1, new Registry(registry1.getPeople(), singletonMap(1, address1))));
+        assertFalse(REGISTRY.test(new Registry(null, map1), registry1));
+
+        map2.put(2, address1);
+        assertFalse(REGISTRY.test(registry1, registry2));
+    }
+
+    @Test
+    public void compareWithMapsHavingNullValues() {
+        EqualsSpec<Registry> spec = EqualsSpec.of(Registry.class)
+                .comparingMaps(Registry::getAddresses, Objects::equals);
+
+        Map<Integer, Address> map1 = new HashMap<>();
+        Map<Integer, Address> map2 = new HashMap<>();
+        map1.put(1, null);
+        map2.put(1, null);
+
+        assertTrue(spec.test(new Registry(null, map1), new Registry(null, map2)));
+
+        map2.remove(1);
+        map2.put(2, null);
+
+        assertFalse(spec.test(new Registry(null, map1), new Registry(null, map2)));
+    }
+
+    @Test
+    public void agreesWithEqualsBuilder() {
+        Address address1 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        Address[] candidates = {
+                address1,
+                new Address(1, 123123L, 25.6, "Somewhere", true),
+                new Address(1, 123123L, Double.NaN, "Somewhere", true),
+                new Address(3, 123123L, 25.6, "Somewhere", false),
+                null
+        };
+
+        for (Address candidate : candidates) {
+            assertEquals(EqualsBuilder.test(address1, candidate)
+                            .comparing(Address::getId)
+                            .comparing(Address::getPhone)
+                            .comparing(Address::getLongitude)
+                            .comparing(Address::isExisting)
+                            .comparing(Address::getCity)
+                            .areEqual(),
+                    ADDRESS.test(address1, candidate));
+        }
+    }
+
+    @Test
+    public void specializedSpecAgreesWithPlainSpec() {
+        EqualsSpec<Address> specialized = ADDRESS.specialize();
+        EqualsSpec<Registry> specializedRegistry = REGISTRY.specialize();
+
+        Address address1 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        Address[] candidates = {
+                address1,
+                new Address(1, 123123L, 25.6, "Somewhere", true),
+                new Address(1, 123123L, 25.6, "Somewhere", false),
+                new Address(1, 123123L, 25.6, null, true),
+                new Address(3, 123123L, 25.6, "Somewhere", true),
+                null
+        };
+
+        for (Address candidate : candidates) {
+            assertEquals(ADDRESS.test(address1, candidate), specialized.test(address1, candidate));
+        }
+
+        Registry registry = new Registry(asList(new Person(1), new Person(2)), singletonMap(1, address1));
+        assertTrue(specializedRegistry.test(registry,
+                new Registry(asList(new Person(1), new Person(2)), singletonMap(1, candidates[1]))));
+        assertFalse(specializedRegistry.test(registry,
+                new Registry(asList(new Person(1), new Person(3)), singletonMap(1, address1))));
+        assertTrue(EqualsSpec.of(Address.class).specialize().test(address1, candidates[1]));
+    }
+
+    @Test
+    public void specializedClassesAreCopies() {
+        Class<?> copy = ClassSpecializer.copyOf(IntComparison.class);
+
+        assertNotSame(IntComparison.class, copy);
+        assertSame(IntComparison.class.getClassLoader(), copy.getClassLoader());
+        assertTrue(Comparison.class.isAssignableFrom(copy));
+    }
+
+    @Test
+    public void hashCodeIsConsistentWithEquality() {
+        Address address1 = new Address(1, 123123L, 0.0, "Somewhere", true);
+        Address address2 = new Address(1, 123123L, -0.0, "Somewhere", true);
+
+        assertTrue(ADDRESS.test(address1, address2));
+        assertEquals(ADDRESS.hashCode(address1), ADDRESS.hashCode(address2));
+        assertEquals(0, ADDRESS.hashCode(null));
+        assertNotEquals(ADDRESS.hashCode(address1), ADDRESS.hashCode(new Address(2, 123123L, 0.0, "Somewhere", true)));
+
+        Address address3 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        assertEquals(Objects.hash(1, 123123L, 25.6, true, "Somewhere"), ADDRESS.hashCode(address3));
+    }
+
+    @Test
+    public void hashCodeOfCollectionsAndMaps() {
+        EqualsSpec<Registry> hashed = EqualsSpec.of(Registry.class)
+                .comparingCollections(Registry::getPeople, PERSON::test, PERSON::hashCode)
+                .comparingIterables(Registry::getIterable, PERSON::test, PERSON::hashCode)
+                .comparingMaps(Registry::getAddresses, ADDRESS::test, ADDRESS::hashCode);
+
+        Address address1 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        Address address2 = new Address(1, 123123L, 25.6, "Somewhere", true);
+        Map<Integer, Address> map1 = new HashMap<>();
+        map1.put(1, address1);
+        map1.put(2, null);
+        Map<Integer, Address> map2 = new HashMap<>();
+        map2.put(2, null);
+        map2.put(1, address2);
+
+        Registry registry1 = new Registry(asList(new Person(1), null), map1);
+        Registry registry2 = new Registry(asList(new Person(1), null), map2);
+        Registry registry3 = new Registry(asList(new Person(2), null), map2);
+
+        assertTrue(hashed.test(registry1, registry2));
+        assertEquals(hashed.hashCode(registry1), hashed.hashCode(registry2));
+        assertNotEquals(hashed.hashCode(registry1), hashed.hashCode(registry3));
+
+        assertTrue(REGISTRY.test(registry1, registry2));
+        assertEquals(REGISTRY.hashCode(registry1), REGISTRY.hashCode(registry2));
+        assertEquals(REGISTRY.hashCode(registry1), REGISTRY.hashCode(registry3));
+        assertEquals(REGISTRY.hashCode(new Registry(null, null)), REGISTRY.hashCode(new Registry(null, null)));
+    }
+
+    @Test
+    public void hashCodeOfPrimitiveArrays() {
+        EqualsSpec<int[][]> spec = EqualsSpec.of(int[][].class)
+                .comparingIntArrays(arrays -> arrays[0])
+                .comparingIntArrays(arrays -> arrays[1]);
+
+        int[][] first = {{1, 2, 3}, null};
+        int[][] second = {{1, 2, 3}, null};
+        int[][] third = {{1, 2, 3}, {}};
+
+        assertTrue(spec.test(first, second));
+        assertTrue(spec.specialize().test(first, second));
+        assertEquals(spec.hashCode(first), spec.hashCode(second));
+        assertEquals(Objects.hash(Arrays.hashCode(first[0]), 0), spec.hashCode(first));
+        assertFalse(spec.test(first, third));
+        assertFalse(spec.specialize().test(first, third));
+    }
+}
@@ -0,0 +1,116 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class EqualsStreamsTest {
+
+    private static class Event {
+        private final String source;
+        private final int id;
+        private final long timestamp;
+
+        Event(String source, int id, long timestamp) {
+            this.source = source;
+            this.id = id;
+            this.timestamp = timestamp;
+        }
+
+        String getSource() {
+            return source;
+        }
+
+        Integer getId() {
+            return id;
+        }
+    }
+
+    private static final EqualsSpec<Event> BY_ID = EqualsSpec.of(Event.class)
+            .comparing(Event::getSource, String.class)
+            .comparing(Event::getId, Integer.class);
+
+    @Test
+    public void collectsFirstOfEqualElementsInEncounterOrder() {
+        Event first = new Event("a", 1, 0);
+        Event second = new Event("b", 1, 1);
+        Event third = new Event("a", 2, 2);
+        List<Event> distinct = Stream.of(first, new Event("a", 1, 3), second, third, null, new Event("b", 1, 4), null)
+                .collect(EqualsStreams.distinctBy(BY_ID));
+
+        assertEquals(Arrays.asList(first, second, third, null), distinct);
+    }
+
+    @Test
+    public void collectsParallelStreamsInEncounterOrder() {
+        List<Event> events = IntStream.range(0, 10_000).mapToObj(i -> new Event("s", i % 1000, i)).collect(toList());
+        List<Event> distinct = events.parallelStream().collect(EqualsStreams.distinctBy(BY_ID));
+
+        assertEquals(events.subList(0, 1000), distinct);
+    }
+
+    @Test
+    public void filtersStreams() {
+        List<Integer> ids = EqualsStreams.distinctBy(Stream.of(3, 1, 3, 2, 1).map(i -> new Event("s", i, i)), BY_ID)
+                .map(Event::getId)
+                .collect(toList());
+
+        assertEquals(Arrays.asList(3, 1, 2), ids);
+    }
+
+    @Test
+    public void filtersParallelStreams() {
+        List<Event> distinct = EqualsStreams.distinctBy(
+                IntStream.range(0, 20_000).parallel().mapToObj(i -> new Event("s", i % 700, i)), BY_ID)
+                .collect(toList());
+
+        assertEquals(700, distinct.size());
+        assertEquals(700, distinct.stream().mapToInt(Event::getId).distinct().count());
+    }
+
+    @Test
+    public void filtersStreamsMadeParallelLater() {
+        for (int run = 0; run < 10; run++) {
+            long count = EqualsStreams.distinctBy(IntStream.range(0, 50_000).mapToObj(i -> new Event("s", i % 5000, i)),
+                    BY_ID)
+                    .parallel()
+                    .count();
+
+            assertEquals(5000, count);
+        }
+    }
+
+    @Test
+    public void forgetsElementsOutsideOfWindow() {
+        Stream<Event> events = Stream.of(1, 2, 1, 3, 4, 1, null, 5, null, 6, 7, null)
+                .map(i -> i == null ? null : new Event("s", i, i));
+        List<Integer> ids = EqualsStreams.distinctBy(events, BY_ID, 3)
+                .map(e -> e == null ? null : e.getId())
+                .collect(toList());
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 1, null, 5, 6, 7, null), ids);
+    }
+
+    @Test
+    public void boundsWindowOnUnboundedStreams() {
+        long count = EqualsStreams.distinctBy(Stream.iterate(0, i -> i + 1).map(i -> new Event("s", i % 50, i)),
+                BY_ID, 10)
+                .limit(100_000)
+                .count();
+
+        assertEquals(100_000, count);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowMustBePositive() {
+        EqualsStreams.distinctBy(Stream.<Event>empty(), BY_ID, 0);
+    }
+
+}
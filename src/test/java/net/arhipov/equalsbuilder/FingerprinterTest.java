@@ -0,0 +1,267 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FingerprinterTest {
+
+    private static class Address {
+        private final String city;
+
+        Address(String city) {
+            this.city = city;
+        }
+
+        String getCity() {
+            return city;
+        }
+    }
+
+    private static class Account {
+        private final int id;
+        private final long balance;
+        private final double rate;
+        private final boolean active;
+        private final String owner;
+        private final TimeUnit unit;
+        private final List<String> tags;
+        private final Set<Integer> flags;
+        private final Map<String, Address> addresses;
+        private final int[] limits;
+
+        Account(int id, long balance, double rate, boolean active, String owner, TimeUnit unit, List<String> tags,
+                Set<Integer> flags, Map<String, Address> addresses, int[] limits) {
+            this.id = id;
+            this.balance = balance;
+            this.rate = rate;
+            this.active = active;
+            this.owner = owner;
+            this.unit = unit;
+            this.tags = tags;
+            this.flags = flags;
+            this.addresses = addresses;
+            this.limits = limits;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        long getBalance() {
+            return balance;
+        }
+
+        double getRate() {
+            return rate;
+        }
+
+        boolean isActive() {
+            return active;
+        }
+
+        String getOwner() {
+            return owner;
+        }
+
+        TimeUnit getUnit() {
+            return unit;
+        }
+
+        Collection<String> getTags() {
+            return tags;
+        }
+
+        Collection<Integer> getFlags() {
+            return flags;
+        }
+
+        Map<String, Address> getAddresses() {
+            return addresses;
+        }
+
+        int[] getLimits() {
+            return limits;
+        }
+    }
+
+    private static class Box {
+        private int value;
+        private final Box inner;
+
+        Box(int value, Box inner) {
+            this.value = value;
+            this.inner = inner;
+        }
+
+        int getValue() {
+            return value;
+        }
+
+        Box getInner() {
+            return inner;
+        }
+    }
+
+    private static final EqualsSpec<Box> BOX = EqualsSpec.of(Box.class)
+            .comparing(Box::getValue)
+            .comparing(Box::getInner, (a, b) -> FingerprinterTest.BOX.test(a, b));
+
+    private static final EqualsSpec<Address> ADDRESS = EqualsSpec.of(Address.class)
+            .comparing(Address::getCity, String.class);
+
+    private static final EqualsSpec<Account> ACCOUNT = EqualsSpec.of(Account.class)
+            .comparing(Account::getId)
+            .comparing(Account::getBalance)
+            .comparing(Account::getRate)
+            .comparing(Account::isActive)
+            .comparing(Account::getOwner, String.class)
+            .comparing(Account::getUnit, TimeUnit.class)
+            .comparingCollections(Account::getTags, Objects::equals)
+            .comparingSets(Account::getFlags, Objects::equals, Objects::hashCode)
+            .comparingMaps(Account::getAddresses, ADDRESS::test)
+            .comparingIntArrays(Account::getLimits);
+
+    private static final Fingerprinter<Account> FINGERPRINT = Fingerprinter.of(ACCOUNT)
+            .withType(Address.class, Fingerprinter.of(ADDRESS));
+
+    private static Account account(String owner, List<String> tags, Set<Integer> flags, String city) {
+        Map<String, Address> addresses = new LinkedHashMap<>();
+        addresses.put("home", new Address(city));
+        addresses.put("work", new Address("Berlin"));
+        return new Account(1, 100, 0.5, true, owner, TimeUnit.SECONDS, tags, flags, addresses, new int[]{1, 2});
+    }
+
+    @Test
+    public void equalObjectsHaveEqualFingerprints() {
+        Account account = account("alice", Arrays.asList("a", "b"), new HashSet<>(Arrays.asList(1, 2, 3)), "Paris");
+        Account copy = account("alice", new ArrayList<>(Arrays.asList("a", "b")),
+                new LinkedHashSet<>(Arrays.asList(3, 2, 1)), "Paris");
+
+        assertTrue(ACCOUNT.test(account, copy));
+        assertEquals(FINGERPRINT.fingerprint(account), FINGERPRINT.fingerprint(copy));
+        assertEquals(FINGERPRINT.fingerprint(account), FINGERPRINT.fingerprint(account));
+        assertEquals(0, FINGERPRINT.fingerprint(null));
+    }
+
+    @Test
+    public void changedFieldsChangeFingerprints() {
+        List<String> tags = Arrays.asList("a", "b");
+        Set<Integer> flags = new HashSet<>(Arrays.asList(1, 2, 3));
+        long fingerprint = FINGERPRINT.fingerprint(account("alice", tags, flags, "Paris"));
+
+        assertNotEquals(fingerprint, FINGERPRINT.fingerprint(account("alicf", tags, flags, "Paris")));
+        assertNotEquals(fingerprint,
+                FINGERPRINT.fingerprint(account("alice", Arrays.asList("b", "a"), flags, "Paris")));
+        assertNotEquals(fingerprint, FINGERPRINT.fingerprint(account("alice", tags, new HashSet<>(Arrays.asList(1, 2)),
+                "Paris")));
+        assertNotEquals(fingerprint, FINGERPRINT.fingerprint(account("alice", tags, flags, "Lyon")));
+        assertNotEquals(fingerprint, FINGERPRINT.fingerprint(account(null, tags, flags, "Paris")));
+        assertNotEquals(fingerprint, FINGERPRINT.fingerprint(account("alice", tags, flags, null)));
+    }
+
+    @Test
+    public void adjacentValuesDoNotShiftIntoEachOther() {
+        Fingerprinter<Account> fingerprinter = Fingerprinter.of(EqualsSpec.of(Account.class)
+                .comparingCollections(Account::getTags, Objects::equals));
+
+        assertNotEquals(fingerprinter.fingerprint(account("a", Arrays.asList("ab", "c"), null, "Paris")),
+                fingerprinter.fingerprint(account("a", Arrays.asList("a", "bc"), null, "Paris")));
+        assertNotEquals(fingerprinter.fingerprint(account("a", Arrays.asList("", null), null, "Paris")),
+                fingerprinter.fingerprint(account("a", Arrays.asList(null, ""), null, "Paris")));
+    }
+
+    @Test
+    public void boxedValuesOfDifferentTypesDiffer() {
+        Fingerprinter<Object[]> boxed = Fingerprinter.of(EqualsSpec.of(Object[].class)
+                .comparing(values -> values[0], Object.class));
+        List<Object> values = Arrays.asList(1, 1L, (short) 1, (byte) 1, 1.0, 1.0f, true, (char) 1,
+                BigInteger.ONE, BigDecimal.ONE);
+
+        Set<Long> fingerprints = new HashSet<>();
+        for (Object value : values) {
+            fingerprints.add(boxed.fingerprint(new Object[]{value}));
+        }
+        assertEquals(values.size(), fingerprints.size());
+        assertNotEquals(boxed.fingerprint(new Object[]{'A'}), boxed.fingerprint(new Object[]{65}));
+        assertEquals(boxed.fingerprint(new Object[]{1L}), boxed.fingerprint(new Object[]{Long.valueOf(1)}));
+    }
+
+    @Test
+    public void unregisteredTypesAreFoldedByHashCode() {
+        Map<String, Address> addresses = new HashMap<>();
+        addresses.put("home", new Address("Paris"));
+        Fingerprinter<Account> plain = Fingerprinter.of(ACCOUNT);
+        Account account = new Account(1, 1, 1, true, "a", null, null, null, addresses, null);
+        Account copy = new Account(1, 1, 1, true, "a", null, null, null, new HashMap<>(addresses), null);
+
+        assertEquals(plain.fingerprint(account), plain.fingerprint(copy));
+        addresses.put("home", new Address("Paris"));
+        assertNotEquals(plain.fingerprint(account), plain.fingerprint(copy));
+        assertEquals(FINGERPRINT.fingerprint(account), FINGERPRINT.fingerprint(copy));
+    }
+
+    @Test
+    public void valuesOfRegisteredTypesAreFoldedByContents() {
+        Box inner = new Box(2, null);
+        Box box = new Box(1, inner);
+        Fingerprinter<Box> plain = Fingerprinter.of(BOX);
+        long plainFingerprint = plain.fingerprint(box);
+        Fingerprinter<Box> registered = Fingerprinter.of(BOX).withType(Box.class, Fingerprinter.of(BOX));
+        long registeredFingerprint = registered.fingerprint(box);
+
+        // Box inherits the identity hashCode, so the unregistered nested box is not fingerprint-safe
+        inner.value = 3;
+        assertEquals(plainFingerprint, plain.fingerprint(box));
+        assertNotEquals(registeredFingerprint, registered.fingerprint(box));
+    }
+
+    @Test
+    public void foldersMayUseTheSameFingerprinter() {
+        @SuppressWarnings("unchecked")
+        Fingerprinter<Box>[] self = new Fingerprinter[1];
+        self[0] = Fingerprinter.of(BOX).withType(Box.class, (box, sink) -> sink.putLong(self[0].fingerprint(box)));
+
+        long fingerprint = self[0].fingerprint(new Box(1, new Box(2, null)));
+        assertEquals(fingerprint, self[0].fingerprint(new Box(1, new Box(2, null))));
+        assertNotEquals(fingerprint, self[0].fingerprint(new Box(3, new Box(2, null))));
+        assertNotEquals(fingerprint, self[0].fingerprint(new Box(1, new Box(3, null))));
+    }
+
+    @Test
+    public void foldsRegisteredTypesWithCustomFolders() {
+        Fingerprinter<Account> byCity = Fingerprinter.of(ACCOUNT)
+                .withType(Address.class, (address, sink) -> sink.putString(address.getCity().toLowerCase()));
+
+        assertEquals(byCity.fingerprint(account("a", null, null, "Paris")),
+                byCity.fingerprint(account("a", null, null, "PARIS")));
+    }
+
+    @Test
+    public void distinguishesRandomObjects() {
+        Set<Long> fingerprints = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            Account account = new Account(i % 100, i / 100, 0, false, "o" + i % 7, null,
+                    Arrays.asList("t" + i % 3), null, null, new int[]{i % 11});
+            fingerprints.add(FINGERPRINT.fingerprint(account));
+        }
+        assertEquals(100_000, fingerprints.size());
+    }
+
+}
@@ -0,0 +1,108 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+
+import static org.junit.Assert.*;
+
+public class HashGuardTest {
+
+    private static class Document {
+        private final String title;
+        private final List<String> paragraphs;
+        private final Map<String, String> meta;
+
+        Document(String title, List<String> paragraphs, Map<String, String> meta) {
+            this.title = title;
+            this.paragraphs = paragraphs;
+            this.meta = meta;
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        Collection<String> getParagraphs() {
+            return paragraphs;
+        }
+
+        Map<String, String> getMeta() {
+            return meta;
+        }
+
+        int cachedHashCode() {
+            return title.hashCode();
+        }
+    }
+
+    @Test
+    public void skipsComparisonsOfObjectsWithDifferentHashes() {
+        AtomicInteger compared = new AtomicInteger();
+        EqualsSpec<Document> spec = EqualsSpec.of(Document.class)
+                .comparing(Document::getTitle, (a, b) -> compared.incrementAndGet() > 0 && a.equals(b))
+                .withHashGuard(Document::cachedHashCode);
+
+        Document document = document("title", "text");
+        assertFalse(spec.test(document, document("other", "text")));
+        assertEquals(0, compared.get());
+
+        assertTrue(spec.test(document, document("title", "text")));
+        assertEquals(1, compared.get());
+
+        assertTrue(spec.test(document, document));
+        assertFalse(spec.test(document, null));
+        assertEquals(1, compared.get());
+
+        assertFalse(spec.specialize().test(document, document("other", "text")));
+        assertFalse(spec.adaptive().test(document, document("other", "text")));
+        assertTrue(spec.cached(new ComparisonCache(16)).named("title").test(document, document("title", "text")));
+        assertEquals(0, spec.hashCode(null));
+        assertEquals(2, compared.get());
+    }
+
+    @Test
+    public void guardedEqualizerRejectsElementsWithDifferentHashes() {
+        AtomicInteger compared = new AtomicInteger();
+        BiPredicate<String, String> equalizer = Equalizers.hashGuarded(
+                (a, b) -> compared.incrementAndGet() > 0 && (a == null ? b == null : a.equals(b)), String::length);
+
+        assertFalse(equalizer.test("a", "bb"));
+        assertEquals(0, compared.get());
+        assertFalse(equalizer.test("a", "b"));
+        assertTrue(equalizer.test("a", "a"));
+        assertEquals(2, compared.get());
+        assertTrue(equalizer.test(null, null));
+        assertFalse(equalizer.test(null, "a"));
+        assertEquals(4, compared.get());
+    }
+
+    @Test
+    public void guardsCollectionElementsAndMapValues() {
+        BiPredicate<String, String> equalizer = Equalizers.hashGuarded(String::equals, String::hashCode);
+        EqualsSpec<Document> spec = EqualsSpec.of(Document.class)
+                .comparingCollections(Document::getParagraphs, equalizer)
+                .comparingMaps(Document::getMeta, equalizer);
+
+        Document document = document("title", "first", "second");
+        assertTrue(spec.test(document, document("other", "first", "second")));
+        assertFalse(spec.test(document, document("title", "first", "third")));
+        assertFalse(spec.test(document, new Document("title", Arrays.asList("first", "second"),
+                Collections.singletonMap("author", "someone else"))));
+        assertTrue(EqualsBuilder.test(document, document("other", "first", "second"))
+                .comparingCollections(Document::getParagraphs, equalizer)
+                .areEqual());
+    }
+
+    private static Document document(String title, String... paragraphs) {
+        return new Document(title, Arrays.asList(paragraphs), Collections.singletonMap("author", "someone"));
+    }
+
+}
@@ -0,0 +1,137 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.*;
+
+public class InternerTest {
+
+    private static class Quote {
+        private final String symbol;
+        private final long price;
+
+        Quote(String symbol, long price) {
+            this.symbol = symbol;
+            this.price = price;
+        }
+
+        String getSymbol() {
+            return symbol;
+        }
+
+        Long getPrice() {
+            return price;
+        }
+    }
+
+    private static final EqualsSpec<Quote> SPEC = EqualsSpec.of(Quote.class)
+            .comparing(Quote::getSymbol, String.class)
+            .comparing(Quote::getPrice, Long.class);
+
+    @Test
+    public void returnsFirstInstanceOfEachClass() {
+        Interner<Quote> interner = new Interner<>(SPEC);
+        Quote first = new Quote("ACME", 100);
+
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(new Quote("ACME", 100)));
+        assertSame(first, interner.intern(first));
+
+        Quote other = new Quote("ACME", 101);
+        assertSame(other, interner.intern(other));
+        assertNull(interner.intern(null));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void countsHitsAndSavedBytes() {
+        Interner<Quote> interner = new Interner<>(SPEC, quote -> 40);
+        for (int i = 0; i < 100; i++) {
+            interner.intern(new Quote("Q" + i % 10, i % 10));
+        }
+
+        assertEquals(10, interner.misses());
+        assertEquals(90, interner.hits());
+        assertEquals(0.9, interner.hitRatio(), 1e-9);
+        assertEquals(90 * 40, interner.savedBytes());
+        assertEquals(0.0, new Interner<>(SPEC).hitRatio(), 0.0);
+    }
+
+    @Test
+    public void growsAndClears() {
+        Interner<Quote> interner = new Interner<>(SPEC);
+        List<Quote> quotes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            quotes.add(interner.intern(new Quote("Q", i)));
+        }
+        assertEquals(10_000, interner.size());
+
+        for (int i = 0; i < 10_000; i++) {
+            assertSame(quotes.get(i), interner.intern(new Quote("Q", i)));
+        }
+
+        interner.clear();
+        assertEquals(0, interner.size());
+        Quote fresh = new Quote("Q", 0);
+        assertSame(fresh, interner.intern(fresh));
+    }
+
+    @Test
+    public void forgetsCollectedInstances() throws Exception {
+        Interner<Quote> interner = new Interner<>(SPEC);
+        for (int i = 0; i < 1000; i++) {
+            interner.intern(new Quote("Q", i));
+        }
+
+        Quote kept = interner.intern(new Quote("kept", 0));
+        for (int attempt = 0; attempt < 50 && interner.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, interner.size());
+        assertSame(kept, interner.intern(new Quote("kept", 0)));
+    }
+
+    @Test
+    public void isThreadSafe() throws Exception {
+        Interner<Quote> interner = new Interner<>(SPEC);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Quote>>> results = IntStream.range(0, 4).mapToObj(t -> executor.submit(() -> {
+                List<Quote> canonical = new ArrayList<>();
+                for (int i = 0; i < 2000; i++) {
+                    canonical.add(interner.intern(new Quote("Q" + i % 500, i % 500)));
+                }
+                return canonical;
+            })).collect(toList());
+
+            Map<Quote, Boolean> distinct = new IdentityHashMap<>();
+            for (Future<List<Quote>> result : results) {
+                for (Quote quote : result.get()) {
+                    distinct.put(quote, true);
+                }
+            }
+            assertEquals(500, distinct.size());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(500, interner.misses());
+        assertEquals(4 * 2000 - 500, interner.hits());
+    }
+
+}
@@ -0,0 +1,171 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.*;
+import static java.util.Collections.*;
+import static org.junit.Assert.*;
+
+public class MismatchTest {
+
+    private static class Entry {
+        private final int id;
+        private final String name;
+        private final List<String> tags;
+        private final Map<String, Integer> scores;
+
+        Entry(int id, String name, List<String> tags, Map<String, Integer> scores) {
+            this.id = id;
+            this.name = name;
+            this.tags = tags;
+            this.scores = scores;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Collection<String> getTags() {
+            return tags;
+        }
+
+        Iterable<String> getTagIterable() {
+            return tags;
+        }
+
+        Map<String, Integer> getScores() {
+            return scores;
+        }
+    }
+
+    private static final EqualsSpec<Entry> SPEC = EqualsSpec.of(Entry.class)
+            .comparing(Entry::getId).named("id")
+            .comparing(Entry::getName)
+            .comparingCollections(Entry::getTags, String::equals).named("tags")
+            .comparingMaps(Entry::getScores, Integer::equals).named("scores");
+
+    @Test
+    public void equalObjectsHaveNoMismatch() {
+        Entry entry = entry(1, "name", asList("a", "b"), "x", 1);
+        assertNull(SPEC.firstMismatch(entry, entry));
+        assertNull(SPEC.firstMismatch(entry, entry(1, "name", asList("a", "b"), "x", 1)));
+        assertNull(SPEC.firstMismatch(null, null));
+    }
+
+    @Test
+    public void reportsFirstFailingStep() {
+        Entry entry = entry(1, "name", asList("a", "b"), "x", 1);
+
+        Mismatch id = SPEC.firstMismatch(entry, entry(2, "other", asList("a", "b"), "x", 1));
+        assertEquals(0, id.step());
+        assertEquals("id", id.label());
+        assertEquals(-1, id.index());
+        assertFalse(id.hasKey());
+
+        Mismatch name = SPEC.firstMismatch(entry, entry(1, "other", asList("a", "b"), "x", 1));
+        assertEquals(1, name.step());
+        assertNull(name.label());
+        assertEquals("Mismatch{step=1}", name.toString());
+
+        Mismatch notComparable = SPEC.firstMismatch(entry, null);
+        assertEquals(-1, notComparable.step());
+        assertEquals(-1, SPEC.firstMismatch(entry, "entry").step());
+    }
+
+    @Test
+    public void reportsElementIndex() {
+        Entry entry = entry(1, "name", asList("a", "b", "c"), "x", 1);
+
+        Mismatch differs = SPEC.firstMismatch(entry, entry(1, "name", asList("a", "x", "c"), "x", 1));
+        assertEquals(2, differs.step());
+        assertEquals("tags", differs.label());
+        assertEquals(1, differs.index());
+        assertEquals("Mismatch{step=2, label=tags, index=1}", differs.toString());
+
+        assertEquals(2, SPEC.firstMismatch(entry, entry(1, "name", asList("a", "b"), "x", 1)).index());
+        assertEquals(-1, SPEC.firstMismatch(entry, entry(1, "name", null, "x", 1)).index());
+
+        EqualsSpec<Entry> iterables = EqualsSpec.of(Entry.class)
+                .comparingIterables(Entry::getTagIterable, String::equals);
+        assertEquals(3, iterables.firstMismatch(entry, entry(1, "name", asList("a", "b", "c", "d"), "x", 1)).index());
+    }
+
+    @Test
+    public void reportsMapKey() {
+        Entry entry = entry(1, "name", emptyList(), "x", 1);
+
+        Mismatch differs = SPEC.firstMismatch(entry, entry(1, "name", emptyList(), "x", 2));
+        assertEquals(3, differs.step());
+        assertEquals("scores", differs.label());
+        assertTrue(differs.hasKey());
+        assertEquals("x", differs.key());
+
+        Map<String, Integer> scores = new HashMap<>();
+        scores.put("x", 1);
+        scores.put(null, null);
+        Mismatch missing = SPEC.firstMismatch(entry, new Entry(1, "name", emptyList(), scores));
+        assertTrue(missing.hasKey());
+        assertNull(missing.key());
+        assertEquals("Mismatch{step=3, label=scores, key=null}", missing.toString());
+    }
+
+    @Test
+    public void reportsArrayIndex() {
+        EqualsSpec<int[][]> spec = EqualsSpec.of(int[][].class)
+                .comparingIntArrays(pair -> pair[0])
+                .comparingDoubleArrays(pair -> pair[1] == null ? null : stream(pair[1]).asDoubleStream().toArray());
+
+        int[][] pair = {{1, 2, 3}, {4}};
+        assertEquals(2, spec.firstMismatch(pair, new int[][]{{1, 2, 4}, {4}}).index());
+        assertEquals(1, spec.firstMismatch(pair, new int[][]{{1}, {4}}).index());
+        assertEquals(-1, spec.firstMismatch(pair, new int[][]{null, {4}}).index());
+
+        Mismatch doubles = spec.firstMismatch(pair, new int[][]{{1, 2, 3}, {5}});
+        assertEquals(1, doubles.step());
+        assertEquals(0, doubles.index());
+        assertNull(spec.firstMismatch(pair, new int[][]{{1, 2, 3}, {4}}));
+
+        assertEquals(1, ArrayMismatch.mismatch(new long[]{1, 2}, new long[]{1, 3}));
+        assertEquals(0, ArrayMismatch.mismatch(new double[]{0.0}, new double[]{-0.0}));
+        assertEquals(-1, ArrayMismatch.mismatch(new double[]{Double.NaN}, new double[]{Double.NaN}));
+        assertEquals(2, ArrayMismatch.mismatch(new byte[]{1, 2}, new byte[]{1, 2, 3}));
+        assertEquals(-1, ArrayMismatch.mismatch(new char[0], new char[0]));
+    }
+
+    @Test
+    public void agreesWithTest() {
+        Entry entry = entry(1, "name", asList("a", "b"), "x", 1);
+        Entry[] others = {
+                entry,
+                entry(1, "name", asList("a", "b"), "x", 1),
+                entry(1, "name", asList("a"), "x", 1),
+                entry(1, "name", asList("a", "b"), "y", 1),
+                entry(3, "name", asList("a", "b"), "x", 1),
+        };
+        EqualsSpec<Entry> specialized = SPEC.specialize();
+        for (Entry other : others) {
+            assertEquals(SPEC.test(entry, other), SPEC.firstMismatch(entry, other) == null);
+            assertEquals(specialized.test(entry, other), specialized.firstMismatch(entry, other) == null);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void emptySpecCannotBeNamed() {
+        EqualsSpec.of(Entry.class).named("nothing");
+    }
+
+    private static Entry entry(int id, String name, List<String> tags, String key, int score) {
+        return new Entry(id, name, tags, singletonMap(key, score));
+    }
+
+}
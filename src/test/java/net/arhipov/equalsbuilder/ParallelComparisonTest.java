@@ -0,0 +1,136 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+public class ParallelComparisonTest {
+
+    private static final int SIZE = 100_000;
+
+    private static class Holder {
+        private final List<Integer> list;
+        private final Map<Integer, String> map;
+
+        Holder(List<Integer> list, Map<Integer, String> map) {
+            this.list = list;
+            this.map = map;
+        }
+
+        List<Integer> getList() {
+            return list;
+        }
+
+        Map<Integer, String> getMap() {
+            return map;
+        }
+    }
+
+    private static final EqualsSpec<Holder> SPEC = EqualsSpec.of(Holder.class)
+            .comparingCollections(Holder::getList, Integer::equals, 1000)
+            .comparingMaps(Holder::getMap, String::equals, 1000);
+
+    @Test
+    public void compareListsInParallel() {
+        List<Integer> first = range(SIZE);
+        List<Integer> second = range(SIZE);
+        assertTrue(compareLists(first, second));
+
+        for (int index : new int[]{0, SIZE / 2, SIZE - 1}) {
+            second.set(index, -1);
+            assertFalse(compareLists(first, second));
+            second.set(index, index);
+        }
+
+        second.add(SIZE);
+        assertFalse(compareLists(first, second));
+        assertTrue(compareLists(null, null));
+        assertFalse(compareLists(first, null));
+    }
+
+    @Test
+    public void compareSequentialListsSerially() {
+        List<Integer> first = new LinkedList<>(range(SIZE));
+        List<Integer> second = new LinkedList<>(range(SIZE));
+        assertTrue(compareLists(first, second));
+
+        second.set(SIZE - 1, -1);
+        assertFalse(compareLists(first, second));
+    }
+
+    @Test
+    public void compareMapsInParallel() {
+        Map<Integer, String> first = map(SIZE);
+        Map<Integer, String> second = map(SIZE);
+        assertTrue(compareMaps(first, second));
+
+        second.put(SIZE / 3, "other");
+        assertFalse(compareMaps(first, second));
+
+        second.put(SIZE / 3, null);
+        first.put(SIZE / 3, null);
+        assertTrue(compareMaps(first, second));
+
+        second.remove(SIZE / 3);
+        second.put(-1, null);
+        assertFalse(compareMaps(first, second));
+    }
+
+    @Test
+    public void mismatchCancelsRemainingChunks() {
+        List<Integer> first = range(SIZE * 10);
+        List<Integer> second = new ArrayList<>(first);
+        second.set(0, -1);
+
+        AtomicInteger comparisons = new AtomicInteger();
+        assertFalse(EqualsUtils.collectionsEqual(first, second, (a, b) -> {
+            comparisons.incrementAndGet();
+            return a.equals(b);
+        }, 1000));
+        assertTrue(comparisons.get() < first.size());
+    }
+
+    @Test
+    public void specAgreesWithBuilder() {
+        Holder first = new Holder(range(SIZE), map(SIZE));
+        Holder second = new Holder(range(SIZE), map(SIZE));
+        assertTrue(SPEC.test(first, second));
+        assertTrue(SPEC.specialize().test(first, second));
+        assertEquals(SPEC.hashCode(first), SPEC.hashCode(second));
+
+        second.getMap().put(SIZE - 1, "other");
+        assertFalse(SPEC.test(first, second));
+        assertFalse(SPEC.specialize().test(first, second));
+    }
+
+    private static boolean compareLists(List<Integer> a, List<Integer> b) {
+        return EqualsBuilder.test(new Holder(a, null), new Holder(b, null))
+                .comparingCollections(Holder::getList, Integer::equals, 1000)
+                .areEqual();
+    }
+
+    private static boolean compareMaps(Map<Integer, String> a, Map<Integer, String> b) {
+        return EqualsBuilder.test(new Holder(null, a), new Holder(null, b))
+                .comparingMaps(Holder::getMap, String::equals, 1000)
+                .areEqual();
+    }
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().collect(toCollection(ArrayList::new));
+    }
+
+    private static Map<Integer, String> map(int size) {
+        return IntStream.range(0, size).boxed().collect(toMap(i -> i, String::valueOf, (x, y) -> x, HashMap::new));
+    }
+
+}
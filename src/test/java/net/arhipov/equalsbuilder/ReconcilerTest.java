@@ -0,0 +1,180 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ReconcilerTest {
+
+    private static class Trade implements Serializable {
+        private final String account;
+        private final int id;
+        private final long amount;
+        private final String status;
+
+        Trade(String account, int id, long amount, String status) {
+            this.account = account;
+            this.id = id;
+            this.amount = amount;
+            this.status = status;
+        }
+
+        String getAccount() {
+            return account;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        long getAmount() {
+            return amount;
+        }
+
+        String getStatus() {
+            return status;
+        }
+
+        @Override
+        public String toString() {
+            return account + "/" + id;
+        }
+    }
+
+    private static final EqualsSpec<Trade> KEY = EqualsSpec.of(Trade.class)
+            .comparing(Trade::getAccount, String.class)
+            .comparing(Trade::getId);
+
+    private static final EqualsSpec<Trade> PAYLOAD = EqualsSpec.of(Trade.class)
+            .comparing(Trade::getAmount).named("amount")
+            .comparing(Trade::getStatus, String.class).named("status");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> keys(Stream<Trade> trades) {
+        return trades.map(Trade::toString).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void reportsAllOutcomes() {
+        List<Trade> left = Arrays.asList(
+                new Trade("a", 1, 100, "new"),
+                new Trade("a", 2, 200, "new"),
+                new Trade("b", 1, 300, "new"),
+                new Trade("c", 1, 400, "new"));
+        List<Trade> right = Arrays.asList(
+                new Trade("b", 1, 300, "filled"),
+                new Trade("a", 1, 100, "new"),
+                new Trade("d", 1, 500, "new"),
+                new Trade("a", 2, 200, "new"));
+
+        Reconciliation<Trade> result = Reconciler.of(KEY, PAYLOAD).reconcile(left, right);
+
+        assertEquals(Arrays.asList("a/1", "a/2"), keys(result.matchedEqual().map(Reconciliation.Match::left)));
+        List<Reconciliation.Match<Trade>> different = result.matchedDifferent().collect(Collectors.toList());
+        assertEquals(1, different.size());
+        assertSame(left.get(2), different.get(0).left());
+        assertSame(right.get(0), different.get(0).right());
+        assertEquals("status", different.get(0).mismatch().label());
+        assertEquals(Arrays.asList("c/1"), keys(result.leftOnly()));
+        assertEquals(Arrays.asList("d/1"), keys(result.rightOnly()));
+        assertFalse(result.isReconciled());
+
+        assertTrue(Reconciler.of(KEY, PAYLOAD).reconcile(left, left).isReconciled());
+    }
+
+    @Test
+    public void pairsDuplicateKeysInOrder() {
+        Trade first = new Trade("a", 1, 100, "new");
+        Trade second = new Trade("a", 1, 200, "new");
+        Trade third = new Trade("a", 1, 300, "new");
+
+        Reconciliation<Trade> result = Reconciler.of(KEY, PAYLOAD)
+                .reconcile(Arrays.asList(first, second, third), Arrays.asList(new Trade("a", 1, 100, "new"),
+                        new Trade("a", 1, 100, "new")));
+
+        assertSame(first, result.matchedEqual().findFirst().get().left());
+        assertSame(second, result.matchedDifferent().findFirst().get().left());
+        assertEquals(Arrays.asList(third), result.leftOnly().collect(Collectors.toList()));
+        assertEquals(0, result.rightOnly().count());
+    }
+
+    @Test
+    public void parallelAndSpillingModesAgree() throws Exception {
+        List<Trade> left = new ArrayList<>();
+        List<Trade> right = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            left.add(new Trade("acc" + i % 7, i, i, "new"));
+            if (i % 5 != 0) {
+                right.add(new Trade("acc" + i % 7, i, i % 3 == 0 ? -i : i, "new"));
+            }
+        }
+        for (int i = 0; i < 1_000; i++) {
+            right.add(new Trade("other", i, i, "new"));
+        }
+
+        Reconciler<Trade> reconciler = Reconciler.of(KEY, PAYLOAD);
+        Reconciliation<Trade> expected = reconciler.reconcile(left, right);
+        assertEquals(4_000, expected.leftOnly().count());
+        assertEquals(1_000, expected.rightOnly().count());
+
+        Path spill = folder.newFolder().toPath();
+        for (Reconciler<Trade> mode : Arrays.asList(reconciler.parallel(), reconciler.spillingTo(spill, 8),
+                reconciler.spillingTo(spill, 3).parallel())) {
+            Reconciliation<Trade> actual = mode.reconcile(left, right);
+            assertEquals(keys(expected.matchedEqual().map(Reconciliation.Match::left)),
+                    keys(actual.matchedEqual().map(Reconciliation.Match::left)));
+            assertEquals(keys(expected.matchedDifferent().map(Reconciliation.Match::right)),
+                    keys(actual.matchedDifferent().map(Reconciliation.Match::right)));
+            assertEquals(keys(expected.leftOnly()), keys(actual.leftOnly()));
+            assertEquals(keys(expected.rightOnly()), keys(actual.rightOnly()));
+        }
+
+        try (Stream<Path> files = Files.list(spill)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void streamsOutcomesToListener() {
+        AtomicInteger equal = new AtomicInteger();
+        AtomicInteger rightOnly = new AtomicInteger();
+        List<Trade> trades = Arrays.asList(new Trade("a", 1, 1, "new"), new Trade("a", 2, 2, "new"));
+
+        Reconciler.of(KEY, PAYLOAD).reconcile(trades, trades.stream().map(t -> new Trade(t.account, t.id + 1,
+                t.amount, t.status)).collect(Collectors.toList()), new Reconciler.Listener<Trade>() {
+            @Override
+            public void matchedEqual(Trade left, Trade right) {
+                equal.incrementAndGet();
+            }
+
+            @Override
+            public void rightOnly(Trade right) {
+                rightOnly.incrementAndGet();
+            }
+        });
+
+        assertEquals(0, equal.get());
+        assertEquals(1, rightOnly.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoPartitions() {
+        Reconciler.of(KEY, PAYLOAD).spillingTo(folder.getRoot().toPath(), 0);
+    }
+
+}
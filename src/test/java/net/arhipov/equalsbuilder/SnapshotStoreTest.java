@@ -0,0 +1,275 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SnapshotStoreTest {
+
+    private static class Product {
+        private final String sku;
+        private final String title;
+        private final long price;
+        private final boolean available;
+        private final List<String> images;
+        private final Set<String> labels;
+
+        Product(String sku, String title, long price, boolean available, List<String> images, Set<String> labels) {
+            this.sku = sku;
+            this.title = title;
+            this.price = price;
+            this.available = available;
+            this.images = images;
+            this.labels = labels;
+        }
+
+        String getSku() {
+            return sku;
+        }
+
+        String getTitle() {
+            return title;
+        }
+
+        long getPrice() {
+            return price;
+        }
+
+        boolean isAvailable() {
+            return available;
+        }
+
+        Collection<String> getImages() {
+            return images;
+        }
+
+        Collection<String> getLabels() {
+            return labels;
+        }
+    }
+
+    private static class Dimensions {
+        private final int width;
+        private final int height;
+
+        Dimensions(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        int getWidth() {
+            return width;
+        }
+
+        int getHeight() {
+            return height;
+        }
+    }
+
+    private static class Parcel {
+        private final String id;
+        private final Dimensions size;
+        private final Set<Dimensions> items;
+
+        Parcel(String id, Dimensions size, Dimensions... items) {
+            this.id = id;
+            this.size = size;
+            this.items = new HashSet<>(Arrays.asList(items));
+        }
+
+        String getId() {
+            return id;
+        }
+
+        Dimensions getSize() {
+            return size;
+        }
+
+        Collection<Dimensions> getItems() {
+            return items;
+        }
+    }
+
+    private static final EqualsSpec<Dimensions> DIMENSIONS = EqualsSpec.of(Dimensions.class)
+            .comparing(Dimensions::getWidth)
+            .comparing(Dimensions::getHeight);
+
+    private static final EqualsSpec<Parcel> PARCEL = EqualsSpec.of(Parcel.class)
+            .comparing(Parcel::getSize, DIMENSIONS::test)
+            .comparingSets(Parcel::getItems, DIMENSIONS::test, DIMENSIONS::hashCode);
+
+    private static final EqualsSpec<Product> SPEC = EqualsSpec.of(Product.class)
+            .comparing(Product::getTitle, String.class)
+            .comparing(Product::getPrice)
+            .comparing(Product::isAvailable)
+            .comparingCollections(Product::getImages, String::equals)
+            .comparingSets(Product::getLabels, String::equals, String::hashCode);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Product product(String sku, String title, long price) {
+        return new Product(sku, title, price, true, Arrays.asList("a.png", "b.png"),
+                new HashSet<>(Arrays.asList("new", "sale")));
+    }
+
+    @Test
+    public void detectsChangesAcrossReopening() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("products.snapshot");
+        try (SnapshotStore<Product> store = SnapshotStore.open(file, SPEC, Product::getSku)) {
+            assertEquals(0, store.size());
+            assertTrue(store.isChanged(product("1", "Lamp", 100)));
+            store.save(Arrays.asList(product("1", "Lamp", 100), product("2", "Desk", 2500)));
+            assertEquals(2, store.size());
+        }
+
+        try (SnapshotStore<Product> store = SnapshotStore.open(file, SPEC, Product::getSku)) {
+            assertEquals(2, store.size());
+            assertFalse(store.isChanged(product("1", "Lamp", 100)));
+            assertFalse(store.isChanged(new Product("2", "Desk", 2500, true, new ArrayList<>(Arrays.asList("a.png",
+                    "b.png")), new HashSet<>(Arrays.asList("sale", "new")))));
+
+            assertTrue(store.isChanged(product("1", "Lamp", 101)));
+            assertTrue(store.isChanged(product("1", "Lamps", 100)));
+            assertTrue(store.isChanged(product("3", "Lamp", 100)));
+            assertTrue(store.isChanged(new Product("1", "Lamp", 100, false, Arrays.asList("a.png", "b.png"),
+                    new HashSet<>(Arrays.asList("new", "sale")))));
+            assertTrue(store.isChanged(new Product("1", "Lamp", 100, true, Arrays.asList("b.png", "a.png"),
+                    new HashSet<>(Arrays.asList("new", "sale")))));
+            assertTrue(store.isChanged(new Product("1", "Lamp", 100, true, Arrays.asList("a.png", "b.png"),
+                    Collections.singleton("new"))));
+            assertTrue(store.isChanged(new Product("1", null, 100, true, null, null)));
+        }
+    }
+
+    @Test
+    public void replacesSnapshotsAndStoresLargeRecords() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("large.snapshot");
+        List<Product> products = new ArrayList<>();
+        StringBuilder longTitle = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            longTitle.append('x');
+        }
+        products.add(product("long", longTitle.toString(), 1));
+        for (int i = 0; i < 10_000; i++) {
+            products.add(product("sku" + i, "title" + i, i));
+        }
+
+        try (SnapshotStore<Product> store = SnapshotStore.open(file, SPEC, Product::getSku)) {
+            store.save(products);
+            assertEquals(products.size(), store.size());
+            for (Product product : products) {
+                assertFalse(store.isChanged(product));
+            }
+            assertTrue(store.isChanged(product("long", longTitle.append('y').toString(), 1)));
+
+            store.save(Arrays.asList(product("sku1", "renamed", 1), product("sku1", "renamed again", 1)));
+            assertEquals(1, store.size());
+            assertTrue(store.isChanged(product("sku2", "title2", 2)));
+            assertFalse(store.isChanged(product("sku1", "renamed again", 1)));
+        }
+
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void keepsSnapshotLargerThanLimit() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("limited.snapshot");
+        try (SnapshotStore<Product> store = SnapshotStore.open(file, SPEC, Product::getSku)) {
+            store.save(Collections.singletonList(product("1", "Lamp", 100)));
+            long size = Files.size(file);
+
+            try {
+                store.save(Arrays.asList(product("1", "Lamp", 101), product("2", "Desk", 2500)), size);
+                fail("Snapshot larger than the limit was saved");
+            } catch (IOException expected) {
+                // The old snapshot stays in place
+            }
+            assertEquals(size, Files.size(file));
+            assertEquals(1, store.size());
+            assertFalse(store.isChanged(product("1", "Lamp", 100)));
+        }
+
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void encodesRegisteredTypesByContents() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("parcels.snapshot");
+        try (SnapshotStore<Parcel> store = SnapshotStore.open(file, Fingerprinter.of(PARCEL)
+                .withType(Dimensions.class, Fingerprinter.of(DIMENSIONS)), Parcel::getId)) {
+            store.save(Collections.singletonList(new Parcel("1", new Dimensions(4, 3), new Dimensions(1, 2))));
+        }
+
+        // Fresh instances, whose identity hash codes differ from the saved ones
+        try (SnapshotStore<Parcel> store = SnapshotStore.open(file, Fingerprinter.of(PARCEL)
+                .withType(Dimensions.class, Fingerprinter.of(DIMENSIONS)), Parcel::getId)) {
+            assertFalse(store.isChanged(new Parcel("1", new Dimensions(4, 3), new Dimensions(1, 2))));
+            assertTrue(store.isChanged(new Parcel("1", new Dimensions(4, 3), new Dimensions(2, 1))));
+            assertTrue(store.isChanged(new Parcel("1", new Dimensions(3, 4), new Dimensions(1, 2))));
+        }
+    }
+
+    @Test
+    public void rejectsTypesWithoutLayout() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("parcels.snapshot");
+        try (SnapshotStore<Parcel> store = SnapshotStore.open(file, PARCEL, Parcel::getId)) {
+            store.save(Collections.singletonList(new Parcel("1", null)));
+            assertFalse(store.isChanged(new Parcel("1", null)));
+
+            try {
+                store.isChanged(new Parcel("1", null, new Dimensions(1, 2)));
+                fail("A set of unregistered values was encoded");
+            } catch (IllegalArgumentException expected) {
+                // Their identity hash codes would differ after a restart
+            }
+            try {
+                store.save(Collections.singletonList(new Parcel("1", new Dimensions(4, 3))));
+                fail("An unregistered value was encoded");
+            } catch (IllegalArgumentException expected) {
+                // The old snapshot stays in place
+            }
+            assertEquals(1, store.size());
+            assertFalse(store.isChanged(new Parcel("1", null)));
+        }
+
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFiles() throws IOException {
+        Path file = folder.newFile("foreign").toPath();
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        SnapshotStore.open(file, SPEC, Product::getSku);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotBeUsedAfterClosing() throws IOException {
+        SnapshotStore<Product> store = SnapshotStore.open(folder.getRoot().toPath().resolve("closed"), SPEC,
+                Product::getSku);
+        store.close();
+        store.isChanged(product("1", "Lamp", 100));
+    }
+
+}
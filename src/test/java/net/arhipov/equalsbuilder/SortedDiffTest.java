@@ -0,0 +1,235 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class SortedDiffTest {
+
+    private static class Entry {
+        private final int id;
+        private final String value;
+
+        Entry(int id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return id + "=" + value;
+        }
+    }
+
+    private static class Ledger {
+        private final List<Entry> entries;
+        private final Map<String, Integer> totals;
+        private final Collection<String> tags;
+
+        Ledger(List<Entry> entries, Map<String, Integer> totals, Collection<String> tags) {
+            this.entries = entries;
+            this.totals = totals;
+            this.tags = tags;
+        }
+
+        Iterable<Entry> getEntries() {
+            return entries;
+        }
+
+        Map<String, Integer> getTotals() {
+            return totals;
+        }
+
+        Collection<String> getTags() {
+            return tags;
+        }
+    }
+
+    private static final Comparator<Entry> BY_ID = Comparator.comparingInt(Entry::getId);
+
+    private static final EqualsSpec<Ledger> SPEC = EqualsSpec.of(Ledger.class)
+            .comparingSorted(Ledger::getEntries, BY_ID, (a, b) -> a.getValue().equals(b.getValue())).named("entries")
+            .comparingMaps(Ledger::getTotals, Integer::equals).named("totals")
+            .comparingSets(Ledger::getTags, String::equalsIgnoreCase, tag -> tag.toLowerCase().hashCode());
+
+    private static NavigableMap<String, Integer> sortedMap(Object... keysAndValues) {
+        NavigableMap<String, Integer> map = new TreeMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], (Integer) keysAndValues[i + 1]);
+        }
+        return map;
+    }
+
+    private static List<String> describe(Stream<? extends SortedDiff.Change<?, ?>> changes) {
+        return changes.map(SortedDiff.Change::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    public void diffsSortedMapsInKeyOrder() {
+        SortedMap<String, Integer> before = sortedMap("a", 1, "b", 2, "c", 3, "e", null);
+        SortedMap<String, Integer> after = sortedMap("b", 2, "c", 30, "d", 4, "e", null);
+
+        assertEquals(Arrays.asList("REMOVED a: 1 -> null", "CHANGED c: 3 -> 30", "ADDED d: null -> 4"),
+                describe(SortedDiff.of(before, after, Integer::equals)));
+        assertEquals(0, SortedDiff.of(before, new TreeMap<>(before), Integer::equals).count());
+        assertEquals(SortedDiff.Kind.REMOVED, SortedDiff.of(before, after, Integer::equals).findFirst().get().kind());
+    }
+
+    @Test
+    public void diffsLazily() {
+        List<Integer> consumed = new ArrayList<>();
+        Iterable<Integer> before = () -> new Iterator<Integer>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                consumed.add(next);
+                return next++;
+            }
+        };
+
+        SortedDiff.Change<Integer, Integer> change = SortedDiff.of(before, Arrays.asList(0, 1, 3),
+                Comparator.<Integer>naturalOrder(), Integer::equals).findFirst().get();
+
+        assertEquals(SortedDiff.Kind.REMOVED, change.kind());
+        assertEquals(Integer.valueOf(2), change.key());
+        assertTrue(consumed.size() <= 5);
+    }
+
+    @Test
+    public void diffsSortedIterablesWithRepeatedKeys() {
+        List<Entry> before = Arrays.asList(new Entry(1, "a"), new Entry(2, "b"), new Entry(2, "c"), new Entry(4, "d"));
+        List<Entry> after = Arrays.asList(new Entry(2, "b"), new Entry(2, "x"), new Entry(3, "y"), new Entry(4, "d"));
+
+        assertEquals(Arrays.asList("REMOVED 1=a: 1=a -> null", "CHANGED 2=c: 2=c -> 2=x", "ADDED 3=y: null -> 3=y"),
+                describe(SortedDiff.of(before, after, BY_ID, (a, b) -> a.getValue().equals(b.getValue()))));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUnsortedIterables() {
+        SortedDiff.of(Arrays.asList(1, 3, 2), Arrays.asList(1, 2, 3), Comparator.<Integer>naturalOrder(),
+                Integer::equals).count();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMapsSortedDifferently() {
+        SortedDiff.of(sortedMap("a", 1), new TreeMap<String, Integer>(Comparator.reverseOrder()), Integer::equals);
+    }
+
+    @Test
+    public void comparesSortedFieldsWithMergeWalk() {
+        List<Entry> entries = Arrays.asList(new Entry(1, "a"), new Entry(2, "b"));
+        Ledger ledger = new Ledger(entries, sortedMap("x", 1, "y", null),
+                new TreeSet<>(Arrays.asList("Alpha", "beta")));
+
+        assertTrue(SPEC.test(ledger, new Ledger(new ArrayList<>(entries), sortedMap("x", 1, "y", null),
+                new TreeSet<>(Arrays.asList("Alpha", "beta")))));
+
+        // The equalizer ignores case, unlike the natural order of the sets, so the walk falls back to hashing
+        assertTrue(SPEC.test(ledger, new Ledger(entries, sortedMap("x", 1, "y", null),
+                new TreeSet<>(Arrays.asList("BETA", "alpha")))));
+
+        // Sorted maps are compared with hash maps by lookups
+        Map<String, Integer> hashed = new HashMap<>(sortedMap("x", 1, "y", null));
+        assertTrue(SPEC.test(ledger, new Ledger(entries, hashed, ledger.getTags())));
+
+        assertFalse(SPEC.test(ledger, new Ledger(entries, sortedMap("x", 1, "z", null), ledger.getTags())));
+        assertFalse(SPEC.test(ledger, new Ledger(entries, sortedMap("x", 1, "y", 2), ledger.getTags())));
+
+        Mismatch mismatch = SPEC.firstMismatch(ledger, new Ledger(Arrays.asList(new Entry(1, "a"), new Entry(2, "c")),
+                ledger.getTotals(), ledger.getTags()));
+        assertEquals("entries", mismatch.label());
+        assertEquals(2, ((Entry) mismatch.key()).getId());
+
+        assertTrue(EqualsBuilder.test(ledger, new Ledger(new ArrayList<>(entries), null, null))
+                .comparingSorted(Ledger::getEntries, BY_ID, (a, b) -> a.getValue().equals(b.getValue()))
+                .areEqual());
+        assertFalse(EqualsBuilder.test(ledger, new Ledger(Collections.singletonList(new Entry(1, "a")), null, null))
+                .comparingSorted(Ledger::getEntries, BY_ID, (a, b) -> a.getValue().equals(b.getValue()))
+                .areEqual());
+    }
+
+    @Test
+    public void comparesSortedMapsWithCustomComparator() {
+        TreeMap<String, Integer> a = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        TreeMap<String, Integer> b = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        a.put("Key", 1);
+        b.put("KEY", 1);
+
+        assertTrue(EqualsUtils.mapsEqual(a, b, Integer::equals));
+        b.put("KEY", 2);
+        assertFalse(EqualsUtils.mapsEqual(a, b, Integer::equals));
+    }
+
+    @Test
+    public void hashesSortedFieldsWithHasher() {
+        EqualsSpec<Ledger> spec = EqualsSpec.of(Ledger.class)
+                .comparingSorted(Ledger::getEntries, BY_ID, (a, b) -> a.getValue().equals(b.getValue()),
+                        entry -> entry.getValue().hashCode());
+        Ledger ledger = new Ledger(Arrays.asList(new Entry(1, "a"), new Entry(2, "b")), null, null);
+        Ledger copy = new Ledger(Arrays.asList(new Entry(1, "a"), new Entry(2, "b")), null, null);
+        Ledger changed = new Ledger(Arrays.asList(new Entry(1, "a"), new Entry(2, "c")), null, null);
+
+        assertTrue(spec.test(ledger, copy));
+        assertEquals(spec.hashCode(ledger), spec.hashCode(copy));
+        assertNotEquals(spec.hashCode(ledger), spec.hashCode(changed));
+        assertEquals(spec.hashCode(ledger), spec.specialize().hashCode(copy));
+        assertNotEquals(spec.hashCode(new Ledger(Collections.emptyList(), null, null)),
+                spec.hashCode(new Ledger(null, null, null)));
+    }
+
+    @Test
+    public void passesAbsentValuesToEqualizerLikeLookups() {
+        BiPredicate<Integer, Integer> absentMatches = (x, y) -> y == null || x.equals(y);
+        List<Map<TimeUnit, Integer>> first = Arrays.asList(new HashMap<>(), new TreeMap<>(),
+                new EnumMap<>(TimeUnit.class));
+        List<Map<TimeUnit, Integer>> second = Arrays.asList(new HashMap<>(), new TreeMap<>(),
+                new EnumMap<>(TimeUnit.class));
+
+        for (int i = 0; i < first.size(); i++) {
+            Map<TimeUnit, Integer> a = first.get(i);
+            Map<TimeUnit, Integer> b = second.get(i);
+            a.put(TimeUnit.SECONDS, 1);
+            a.put(TimeUnit.MINUTES, 2);
+            b.put(TimeUnit.SECONDS, 1);
+            b.put(TimeUnit.HOURS, 2);
+
+            assertTrue(a.getClass().getName(), EqualsUtils.mapsEqual(a, b, absentMatches));
+            assertFalse(a.getClass().getName(), EqualsUtils.mapsEqual(a, b, Integer::equals));
+        }
+    }
+
+}
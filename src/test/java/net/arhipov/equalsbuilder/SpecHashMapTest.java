@@ -0,0 +1,296 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SpecHashMapTest {
+
+    private static class Point {
+        private final int x;
+        private final int y;
+        private final String name;
+
+        Point(int x, int y, String name) {
+            this.x = x;
+            this.y = y;
+            this.name = name;
+        }
+
+        int getX() {
+            return x;
+        }
+
+        int getY() {
+            return y;
+        }
+    }
+
+    private static final EqualsSpec<Point> SPEC = EqualsSpec.of(Point.class)
+            .comparing(Point::getX, Integer.class)
+            .comparing(Point::getY, Integer.class);
+
+    // Only a few distinct hash codes, so that probe sequences overlap and wrap around
+    private static final EqualsSpec<Point> COLLIDING_SPEC = EqualsSpec.of(Point.class)
+            .comparing(Point::getX, Integer::equals, x -> x % 3)
+            .comparing(Point::getY, Integer::equals, y -> 0);
+
+    @Test
+    public void equalityKeysFollowSpec() {
+        EqualityKey<Point> key = EqualityKey.of(SPEC, new Point(1, 2, "a"));
+        EqualityKey<Point> same = EqualityKey.of(SPEC, new Point(1, 2, "b"));
+        EqualityKey<Point> other = EqualityKey.of(SPEC, new Point(2, 1, "a"));
+
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertEquals(SPEC.hashCode(new Point(1, 2, "c")), key.hashCode());
+        assertNotEquals(key, other);
+        EqualsSpec<Point> byX = EqualsSpec.of(Point.class).comparing(Point::getX, Integer.class);
+        assertNotEquals(key, EqualityKey.of(byX, key.value()));
+        assertNotEquals(key, key.value());
+    }
+
+    @Test
+    public void probeKeysAreReusable() {
+        Map<EqualityKey<Point>, String> map = new HashMap<>();
+        map.put(EqualityKey.of(SPEC, new Point(1, 2, "a")), "first");
+        map.put(EqualityKey.of(SPEC, new Point(3, 4, "b")), "second");
+
+        EqualityKey<Point> probe = EqualityKey.probe(SPEC);
+        assertEquals("first", map.get(probe.set(new Point(1, 2, "c"))));
+        assertEquals("second", map.get(probe.set(new Point(3, 4, "d"))));
+        assertNull(map.get(probe.set(new Point(5, 6, "e"))));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void onlyProbeKeysCanBeChanged() {
+        EqualityKey.of(SPEC, new Point(1, 2, "a")).set(new Point(3, 4, "b"));
+    }
+
+    @Test
+    public void mapsKeysBySpec() {
+        SpecHashMap<Point, String> map = new SpecHashMap<>(SPEC);
+        assertNull(map.put(new Point(1, 2, "a"), "first"));
+        assertNull(map.put(new Point(2, 1, "b"), "second"));
+        assertEquals("first", map.put(new Point(1, 2, "c"), "third"));
+
+        assertEquals(2, map.size());
+        assertEquals("third", map.get(new Point(1, 2, "d")));
+        assertTrue(map.containsKey(new Point(2, 1, "e")));
+        assertFalse(map.containsKey(new Point(3, 3, "f")));
+        assertFalse(map.containsKey(null));
+        assertEquals("default", map.getOrDefault(new Point(3, 3, "g"), "default"));
+
+        assertEquals("second", map.remove(new Point(2, 1, "h")));
+        assertNull(map.remove(new Point(2, 1, "h")));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(new Point(1, 2, "a")));
+    }
+
+    @Test
+    public void keepsNullValues() {
+        SpecHashMap<Point, String> map = new SpecHashMap<>(SPEC);
+        map.put(new Point(1, 2, "a"), null);
+
+        assertTrue(map.containsKey(new Point(1, 2, "b")));
+        assertNull(map.getOrDefault(new Point(1, 2, "c"), "default"));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void rejectsNullKeys() {
+        new SpecHashMap<Point, String>(SPEC).put(null, "value");
+    }
+
+    @Test
+    public void matchesHashMapOfEqualityKeys() {
+        for (EqualsSpec<Point> spec : Arrays.asList(SPEC, COLLIDING_SPEC)) {
+            Random random = new Random(42);
+            SpecHashMap<Point, Integer> map = new SpecHashMap<>(spec);
+            Map<EqualityKey<Point>, Integer> expected = new HashMap<>();
+
+            for (int i = 0; i < 5000; i++) {
+                Point point = new Point(random.nextInt(20), random.nextInt(20), "p" + i);
+                EqualityKey<Point> key = EqualityKey.of(spec, point);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), map.remove(point));
+                } else {
+                    assertEquals(expected.put(key, i), map.put(point, i));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+
+            for (int x = 0; x < 20; x++) {
+                for (int y = 0; y < 20; y++) {
+                    Point point = new Point(x, y, "probe");
+                    assertEquals(expected.get(EqualityKey.of(spec, point)), map.get(point));
+                }
+            }
+
+            Map<EqualityKey<Point>, Integer> iterated = new HashMap<>();
+            for (Map.Entry<Point, Integer> e : map.entrySet()) {
+                assertNull(iterated.put(EqualityKey.of(spec, e.getKey()), e.getValue()));
+            }
+            assertEquals(expected, iterated);
+        }
+    }
+
+    @Test
+    public void growsBeyondExpectedSize() {
+        SpecHashMap<Point, Integer> map = new SpecHashMap<>(SPEC, 2);
+        for (int i = 0; i < 1000; i++) {
+            map.put(new Point(i, -i, "p"), i);
+        }
+
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(new Point(i, -i, "q")));
+        }
+    }
+
+    @Test
+    public void entriesWriteThrough() {
+        SpecHashMap<Point, String> map = new SpecHashMap<>(SPEC);
+        map.put(new Point(1, 2, "a"), "first");
+
+        for (Map.Entry<Point, String> e : map.entrySet()) {
+            assertEquals("first", e.setValue("second"));
+        }
+        assertEquals("second", map.get(new Point(1, 2, "b")));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void iteratorsFailFast() {
+        SpecHashMap<Point, String> map = new SpecHashMap<>(SPEC);
+        map.put(new Point(1, 2, "a"), "first");
+        map.put(new Point(3, 4, "b"), "second");
+
+        Iterator<Point> iterator = map.keySet().iterator();
+        iterator.next();
+        map.put(new Point(5, 6, "c"), "third");
+        iterator.next();
+    }
+
+    @Test
+    public void iteratorsRemoveEntries() {
+        for (EqualsSpec<Point> spec : Arrays.asList(SPEC, COLLIDING_SPEC)) {
+            for (int seed = 0; seed < 20; seed++) {
+                Random random = new Random(seed);
+                SpecHashMap<Point, Integer> map = new SpecHashMap<>(spec);
+                Map<EqualityKey<Point>, Integer> expected = new HashMap<>();
+                for (int i = 0; i < 200; i++) {
+                    Point point = new Point(random.nextInt(30), random.nextInt(30), "p" + i);
+                    expected.put(EqualityKey.of(spec, point), i);
+                    map.put(point, i);
+                }
+
+                // Every entry is visited once, even when removal shifts entries around the end of the table
+                Map<EqualityKey<Point>, Integer> all = new HashMap<>(expected);
+                Map<EqualityKey<Point>, Integer> visited = new HashMap<>();
+                for (Iterator<Map.Entry<Point, Integer>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+                    Map.Entry<Point, Integer> e = iterator.next();
+                    EqualityKey<Point> key = EqualityKey.of(spec, e.getKey());
+                    assertNull(visited.put(key, e.getValue()));
+                    if (random.nextBoolean()) {
+                        iterator.remove();
+                        expected.remove(key);
+                    }
+                }
+                assertEquals(all, visited);
+                assertEquals(expected.size(), map.size());
+                for (Map.Entry<EqualityKey<Point>, Integer> e : expected.entrySet()) {
+                    assertEquals(e.getValue(), map.get(e.getKey().value()));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void iteratorsRemoveOnce() {
+        SpecHashMap<Point, String> map = new SpecHashMap<>(SPEC);
+        map.put(new Point(1, 2, "a"), "first");
+
+        Iterator<Point> iterator = map.keySet().iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.remove();
+    }
+
+    @Test
+    public void viewsRemoveBySpec() {
+        SpecHashMap<Point, Integer> map = new SpecHashMap<>(SPEC);
+        for (int i = 0; i < 10; i++) {
+            map.put(new Point(i, i, "p"), i);
+        }
+
+        map.entrySet().removeIf(e -> e.getValue() % 2 == 0);
+        assertEquals(5, map.size());
+        map.keySet().retainAll(new SpecHashSet<>(SPEC, Arrays.asList(new Point(1, 1, "q"), new Point(3, 3, "q"))));
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey(new Point(3, 3, "r")));
+
+        SpecHashSet<Point> set = new SpecHashSet<>(SPEC, Arrays.asList(new Point(1, 1, "a"), new Point(2, 2, "b")));
+        set.removeIf(point -> point.getX() == 1);
+        assertEquals(1, set.size());
+        assertTrue(set.retainAll(Collections.emptyList()));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void entriesFollowSpec() {
+        SpecHashMap<Point, String> map = new SpecHashMap<>(SPEC);
+        map.put(new Point(1, 2, "a"), "first");
+        SpecHashMap<Point, String> same = new SpecHashMap<>(SPEC);
+        same.put(new Point(1, 2, "b"), "first");
+
+        assertEquals(map, same);
+        assertEquals(map.hashCode(), same.hashCode());
+        assertTrue(map.entrySet().contains(same.entrySet().iterator().next()));
+        assertTrue(map.entrySet().remove(same.entrySet().iterator().next()));
+        assertTrue(map.isEmpty());
+
+        SpecHashSet<Point> set = new SpecHashSet<>(SPEC, Arrays.asList(new Point(1, 2, "a")));
+        SpecHashSet<Point> sameSet = new SpecHashSet<>(SPEC, Arrays.asList(new Point(1, 2, "b")));
+        assertEquals(set, sameSet);
+        assertEquals(set.hashCode(), sameSet.hashCode());
+    }
+
+    @Test
+    public void setKeepsFirstOfEqualElements() {
+        List<Point> points = new ArrayList<>();
+        points.add(new Point(1, 2, "a"));
+        points.add(new Point(1, 2, "b"));
+        points.add(new Point(2, 1, "c"));
+
+        SpecHashSet<Point> set = new SpecHashSet<>(SPEC, points);
+        assertEquals(2, set.size());
+        assertTrue(set.contains(new Point(2, 1, "d")));
+        assertFalse(set.add(new Point(2, 1, "e")));
+
+        Set<String> names = new HashSet<>();
+        for (Point point : set) {
+            names.add(point.name);
+        }
+        assertEquals(new HashSet<>(Arrays.asList("a", "c")), names);
+
+        assertTrue(set.remove(new Point(1, 2, "f")));
+        assertFalse(set.remove(new Point(1, 2, "f")));
+        assertEquals(1, set.size());
+    }
+
+}
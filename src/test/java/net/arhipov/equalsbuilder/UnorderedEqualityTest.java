@@ -0,0 +1,146 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.*;
+import static java.util.stream.Collectors.*;
+import static org.junit.Assert.*;
+
+public class UnorderedEqualityTest {
+
+    private static class Tagged {
+        private final Collection<String> tags;
+
+        Tagged(Collection<String> tags) {
+            this.tags = tags;
+        }
+
+        Collection<String> getTags() {
+            return tags;
+        }
+    }
+
+    private static final BiPredicate<String, String> IGNORE_CASE = String::equalsIgnoreCase;
+    private static final ToIntFunction<String> IGNORE_CASE_HASH = s -> s.toLowerCase().hashCode();
+
+    private static final EqualsSpec<Tagged> SETS = EqualsSpec.of(Tagged.class)
+            .comparingSets(Tagged::getTags, IGNORE_CASE, IGNORE_CASE_HASH);
+
+    private static final EqualsSpec<Tagged> BAGS = EqualsSpec.of(Tagged.class)
+            .comparingBags(Tagged::getTags, IGNORE_CASE, IGNORE_CASE_HASH);
+
+    @Test
+    public void compareAsSets() {
+        assertSets(true, asList("a", "B", "c"), asList("C", "b", "A"));
+        assertSets(true, asList("a", "A", "b"), asList("b", "a"));
+        assertSets(true, asList("a", null, null), asList(null, "A"));
+        assertSets(true, asList(), new HashSet<>());
+        assertSets(true, null, null);
+
+        assertSets(false, asList("a", "b"), asList("a", "c"));
+        assertSets(false, asList("a", "b"), asList("a", "a"));
+        assertSets(false, asList("a", "b"), asList("a"));
+        assertSets(false, asList("a", null), asList("a"));
+        assertSets(false, asList("a"), asList());
+        assertSets(false, asList("a"), null);
+    }
+
+    @Test
+    public void compareAsBags() {
+        assertBags(true, asList("a", "B", "a"), asList("A", "b", "A"));
+        assertBags(true, asList(null, "a", null), asList(null, null, "a"));
+        assertBags(true, asList(), new HashSet<>());
+        assertBags(true, null, null);
+
+        assertBags(false, asList("a", "a", "b"), asList("a", "b", "b"));
+        assertBags(false, asList("a", "b"), asList("b", "a", "a"));
+        assertBags(false, asList("a", null), asList("a", "a"));
+        assertBags(false, asList("a"), null);
+    }
+
+    @Test
+    public void compareWithCollidingHashes() {
+        List<Integer> first = IntStream.range(0, 1000).boxed().collect(toList());
+        List<Integer> second = new ArrayList<>(first);
+        Collections.reverse(second);
+
+        assertTrue(UnorderedEquality.setsEqual(first, second, Integer::equals, i -> 42));
+        assertTrue(UnorderedEquality.bagsEqual(first, second, Integer::equals, i -> i & 1));
+
+        second.set(500, 1000);
+        assertFalse(UnorderedEquality.setsEqual(first, second, Integer::equals, i -> 42));
+        assertFalse(UnorderedEquality.bagsEqual(first, second, Integer::equals, i -> i & 1));
+    }
+
+    @Test
+    public void compareLargeSets() {
+        Set<Integer> first = IntStream.range(0, 100_000).boxed().collect(toSet());
+        List<Integer> second = IntStream.range(0, 100_000).map(i -> 99_999 - i).boxed().collect(toList());
+
+        assertTrue(EqualsBuilder.test(new Tagged(null), new Tagged(null))
+                .comparingSets(t -> first, Integer::equals, Integer::intValue)
+                .areEqual());
+        assertTrue(UnorderedEquality.setsEqual(first, second, Integer::equals, Integer::intValue));
+        assertTrue(UnorderedEquality.bagsEqual(first, second, Integer::equals, Integer::intValue));
+    }
+
+    @Test
+    public void hashCodeIsConsistent() {
+        Tagged first = new Tagged(asList("a", "A", "b", null));
+        Tagged second = new Tagged(asList(null, "B", "a"));
+        assertTrue(SETS.test(first, second));
+        assertEquals(SETS.hashCode(first), SETS.hashCode(second));
+        assertEquals(SETS.hashCode(first), SETS.specialize().hashCode(second));
+
+        Tagged third = new Tagged(asList("b", "A", null, "a"));
+        assertTrue(BAGS.test(first, third));
+        assertTrue(BAGS.specialize().test(first, third));
+        assertEquals(BAGS.hashCode(first), BAGS.hashCode(third));
+        assertEquals(31, BAGS.hashCode(new Tagged(null)));
+    }
+
+    @Test
+    public void hashCodeHashesEveryElementOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        EqualsSpec<Tagged> sets = EqualsSpec.of(Tagged.class)
+                .comparingSets(Tagged::getTags, IGNORE_CASE, tag -> {
+                    calls.incrementAndGet();
+                    return IGNORE_CASE_HASH.applyAsInt(tag);
+                });
+        Tagged tagged = new Tagged(asList("a", "A", "b", null));
+
+        assertEquals(SETS.hashCode(tagged), sets.hashCode(tagged));
+        assertEquals(3, calls.get());
+    }
+
+    private static void assertSets(boolean expected, Collection<String> a, Collection<String> b) {
+        Tagged first = new Tagged(a);
+        Tagged second = new Tagged(b);
+        assertEquals(a + " " + b, expected, EqualsBuilder.test(first, second)
+                .comparingSets(Tagged::getTags, IGNORE_CASE, IGNORE_CASE_HASH)
+                .areEqual());
+        assertEquals(a + " " + b, expected, SETS.test(second, first));
+    }
+
+    private static void assertBags(boolean expected, Collection<String> a, Collection<String> b) {
+        Tagged first = new Tagged(a);
+        Tagged second = new Tagged(b);
+        assertEquals(a + " " + b, expected, EqualsBuilder.test(first, second)
+                .comparingBags(Tagged::getTags, IGNORE_CASE, IGNORE_CASE_HASH)
+                .areEqual());
+        assertEquals(a + " " + b, expected, BAGS.test(second, first));
+    }
+
+}
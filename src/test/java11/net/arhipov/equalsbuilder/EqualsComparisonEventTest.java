@@ -0,0 +1,152 @@
+package net.arhipov.equalsbuilder;
+
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.*;
+import static org.junit.Assert.*;
+
+public class EqualsComparisonEventTest {
+
+    private static final String EVENT = "net.arhipov.equalsbuilder.EqualsComparison";
+
+    private static final AtomicInteger VALUE_READS = new AtomicInteger();
+
+    private static class Item {
+        private final int id;
+        private final List<Integer> values;
+
+        Item(int id, List<Integer> values) {
+            this.id = id;
+            this.values = values;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        Collection<Integer> getValues() {
+            VALUE_READS.incrementAndGet();
+            return values;
+        }
+    }
+
+    private static final EqualsSpec<Item> SPEC = EqualsSpec.of(Item.class)
+            .comparing(Item::getId)
+            .comparingCollections(Item::getValues, Objects::equals).named("values");
+
+    @Test
+    public void recordsLargeComparisons() throws IOException {
+        List<RecordedEvent> events = record("0 ms", "1000", () -> {
+            assertTrue(SPEC.test(new Item(1, range(1000)), new Item(1, range(1000))));
+            assertFalse(SPEC.test(new Item(1, range(999)), new Item(1, range(1000))));
+            assertTrue(SPEC.test(new Item(1, range(10)), new Item(1, range(10))));
+        });
+
+        assertEquals(2, events.size());
+        RecordedEvent first = events.get(0);
+        assertEquals(Item.class.getName(), first.getClass("comparedType").getName());
+        assertEquals(1, first.getInt("step"));
+        assertEquals("values", first.getString("label"));
+        assertEquals(1000, first.getInt("firstSize"));
+        assertEquals(1000, first.getInt("secondSize"));
+        assertTrue(first.getBoolean("equal"));
+
+        RecordedEvent second = events.get(1);
+        assertEquals(999, second.getInt("firstSize"));
+        assertFalse(second.getBoolean("equal"));
+    }
+
+    @Test
+    public void recordsEveryStepWithoutThresholds() throws IOException {
+        List<RecordedEvent> events = record("0 ms", "0", () ->
+                assertFalse(SPEC.test(new Item(1, range(3)), new Item(2, range(3)))));
+
+        assertEquals(1, events.size());
+        assertEquals(0, events.get(0).getInt("step"));
+        assertNull(events.get(0).getString("label"));
+        assertEquals(-1, events.get(0).getInt("firstSize"));
+        assertFalse(events.get(0).getBoolean("equal"));
+    }
+
+    @Test
+    public void skipsFastComparisonsByDefault() throws IOException {
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT);
+            recording.start();
+            assertTrue(SPEC.test(new Item(1, range(10)), new Item(1, range(10))));
+            recording.stop();
+            assertTrue(events(recording).isEmpty());
+        }
+    }
+
+    @Test
+    public void sizesOfFastStepsAreNotComputed() throws IOException {
+        List<RecordedEvent> events = record("20 ms", "0", () -> {
+            VALUE_READS.set(0);
+            assertTrue(SPEC.test(new Item(1, range(10)), new Item(1, range(10))));
+            // Only the comparison itself reads the values
+            assertEquals(2, VALUE_READS.get());
+        });
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void recordsSpecsWithMetrics() throws IOException {
+        LongAdderEqualsMetrics metrics = new LongAdderEqualsMetrics(2);
+        EqualsSpec<Item> spec = SPEC.withMetrics(metrics);
+        List<RecordedEvent> events = record("0 ms", "1000", () ->
+                assertTrue(spec.test(new Item(1, range(1000)), new Item(1, range(1000)))));
+
+        assertEquals(1, events.size());
+        assertEquals(1000, events.get(0).getInt("firstSize"));
+        assertEquals(1, metrics.comparisons());
+        assertEquals(1, metrics.equal());
+    }
+
+    private static List<RecordedEvent> record(String threshold, String minElements, Runnable action)
+            throws IOException {
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT).with("threshold", threshold).with("minElements", minElements);
+            recording.start();
+            action.run();
+            recording.stop();
+            return events(recording);
+        }
+    }
+
+    private static List<RecordedEvent> events(Recording recording) throws IOException {
+        Path file = Files.createTempFile("equals", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals(EVENT))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<Integer> range(int size) {
+        List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(i);
+        }
+        return result;
+    }
+
+}
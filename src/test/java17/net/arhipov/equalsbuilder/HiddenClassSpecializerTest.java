@@ -0,0 +1,82 @@
+package net.arhipov.equalsbuilder;
+
+
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static org.junit.Assert.*;
+
+public class HiddenClassSpecializerTest {
+
+    private static class Point {
+        private final int x;
+        private final short y;
+        private final float weight;
+        private final String name;
+
+        Point(int x, short y, float weight, String name) {
+            this.x = x;
+            this.y = y;
+            this.weight = weight;
+            this.name = name;
+        }
+
+        int getX() {
+            return x;
+        }
+    }
+
+    @Test
+    public void specializedClassesAreHidden() {
+        Class<?> copy = ClassSpecializer.copyOf(IntComparison.class);
+
+        assertTrue(copy.isHidden());
+        assertTrue(copy.getName().startsWith(IntComparison.class.getName() + "/"));
+        assertNotSame(copy, ClassSpecializer.copyOf(IntComparison.class));
+    }
+
+    @Test
+    public void specializedSpecUsesHiddenComparisons() {
+        EqualsSpec<Point> spec = EqualsSpec.of(Point.class).comparing(Point::getX).specialize();
+
+        assertTrue(spec.test(new Point(1, (short) 2, 0.5f, "a"), new Point(1, (short) 3, 0.5f, "b")));
+        assertFalse(spec.test(new Point(1, (short) 2, 0.5f, "a"), new Point(2, (short) 2, 0.5f, "a")));
+    }
+
+    @Test
+    public void autoSpecReadsFieldsThroughVarHandles() {
+        EqualsSpec<Point> spec = EqualsSpec.auto(Point.class);
+        Point point = new Point(1, (short) 2, 0.5f, "a");
+
+        assertTrue(spec.test(point, new Point(1, (short) 2, 0.5f, "a")));
+        assertFalse(spec.test(point, new Point(1, (short) 3, 0.5f, "a")));
+        assertFalse(spec.test(point, new Point(1, (short) 2, 1.5f, "a")));
+        assertFalse(spec.test(point, new Point(1, (short) 2, 0.5f, "b")));
+        assertEquals(spec.hashCode(point), spec.hashCode(new Point(1, (short) 2, 0.5f, "a")));
+        assertEquals("y", spec.firstMismatch(point, new Point(1, (short) 3, 0.5f, "a")).label());
+    }
+
+    @Test
+    public void autoSpecGettersAreHidden() throws Exception {
+        VarHandle handle = MethodHandles.privateLookupIn(Point.class, MethodHandles.lookup())
+                .findVarHandle(Point.class, "x", int.class);
+        ToIntFunction<Object> fallback = value -> -1;
+        Point point = new Point(1, (short) 2, 0.5f, "a");
+
+        ToIntFunction<Object> getter = AutoSpecs.getter(AutoSpecs.IntGetter.class, handle, fallback);
+        assertNotSame(fallback, getter);
+        assertTrue(getter.getClass().isHidden());
+        assertEquals(1, getter.applyAsInt(point));
+
+        VarHandle name = MethodHandles.privateLookupIn(Point.class, MethodHandles.lookup())
+                .findVarHandle(Point.class, "name", String.class);
+        Function<Object, Object> objectGetter = AutoSpecs.getter(AutoSpecs.ObjectGetter.class, name, null);
+        assertTrue(objectGetter.getClass().isHidden());
+        assertEquals("a", objectGetter.apply(point));
+    }
+
+}